@@ -0,0 +1,163 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.DTO.ConsolidatedPayrollReportDto;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.*;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import com.apv.chronotrack.service.AdminService;
+import com.apv.chronotrack.service.PayrollCalculationService;
+import com.apv.chronotrack.service.PayrollComputePool;
+import com.apv.chronotrack.service.PayrollSnapshotService;
+import com.apv.chronotrack.service.PunchHoursEngine;
+import com.apv.chronotrack.service.WeeklyTotalsService;
+import com.apv.chronotrack.service.WorkedMinutesService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agregación de AdminService.generateConsolidatedPayrollReport con los repositorios en memoria:
+ * mide solo el cálculo, no las consultas. El rango cubre semanas completas, así que se leen
+ * los totales semanales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsolidatedReportBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int workers;
+
+    @Param({"4"})
+    public int weeks;
+
+    private AdminService adminService;
+    private PayrollComputePool computePool;
+    private WeeklyTotalsService weeklyTotalsService;
+    private User admin;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(workers, weeks);
+        startDate = SyntheticData.FIRST_MONDAY;
+        endDate = startDate.plusWeeks(weeks).minusDays(1);
+
+        admin = admin(data.company);
+        computePool = new PayrollComputePool(0, 5000);
+        weeklyTotalsService = weeklyTotalsService(data);
+        adminService = adminService(data, admin, computePool, weeklyTotalsService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        computePool.shutdown();
+        weeklyTotalsService.shutdown();
+    }
+
+    static User admin(Company company) {
+        Role adminRole = new Role();
+        adminRole.setRoleName(RoleName.ROLE_ADMINISTRADOR);
+        User admin = new User();
+        admin.setId(0L);
+        admin.setFullName("Admin");
+        admin.setRole(adminRole);
+        admin.setCompany(company);
+        return admin;
+    }
+
+    /**
+     * weekly_worker_totals precalculado a partir de los registros sintéticos. Tiene su propio hilo
+     * de reconstrucción: quien lo crea lo cierra con shutdown() en el @TearDown.
+     */
+    static WeeklyTotalsService weeklyTotalsService(SyntheticData data) {
+        List<WeeklyTotal> totals = new ArrayList<>();
+        List<List<TimeLog>> logsByWorkerWeek = data.logsByWorkerWeek();
+        for (int w = 0; w < data.workers.size(); w++) {
+            for (int k = 0; k < data.weeks.size(); k++) {
+                totals.add(new WeeklyTotal(data.workers.get(w).getId(), data.weeks.get(k).getId(),
+                        PunchHoursEngine.totalMinutes(logsByWorkerWeek.get(w * data.weeks.size() + k)), null, null, TimesheetStatus.OPEN));
+            }
+        }
+        WeeklyTotalsRepository totalsRepository = new WeeklyTotalsRepository(null, "") {
+            @Override
+            public List<WeeklyTotal> findByWorkWeekIds(Collection<Long> workWeekIds) {
+                Set<Long> requested = new HashSet<>(workWeekIds);
+                return totals.stream().filter(total -> requested.contains(total.workWeekId())).toList();
+            }
+        };
+        return new WeeklyTotalsService(totalsRepository, null, null, null, null);
+    }
+
+    /**
+     * AdminService sobre los datos sintéticos: los totales semanales indicados y una consulta de
+     * registros por rango que solo recorre las semanas pedidas.
+     */
+    static AdminService adminService(SyntheticData data, User admin, PayrollComputePool computePool,
+                                     WeeklyTotalsService weeklyTotalsService) {
+        Map<LocalDate, List<TimeLogRow>> logsByWeekStart = new HashMap<>();
+        for (TimeLog log : data.logs) {
+            logsByWeekStart.computeIfAbsent(log.getWorkWeek().getStartDate(), start -> new ArrayList<>())
+                    .add(new TimeLogRow(log.getId(), log.getUser().getId(), log.getWorkWeek().getId(), log.getEventType(), log.getTimestamp()));
+        }
+
+        UserRepository userRepository = InMemoryRepositories.stub(UserRepository.class, Map.of(
+                "findById", args -> Optional.of(admin),
+                "findByCompany", args -> data.workers));
+        WorkWeekRepository workWeekRepository = InMemoryRepositories.stub(WorkWeekRepository.class, Map.of(
+                "findOverlappingWeeks", args -> data.weeks));
+        TimeLogRepository timeLogRepository = InMemoryRepositories.stub(TimeLogRepository.class, Map.of(
+                "findRowsByCompanyAndTimestampBetween", args -> logsBetween(logsByWeekStart, (LocalDateTime) args[1], (LocalDateTime) args[2])));
+        WeeklyTimesheetRepository timesheetRepository = InMemoryRepositories.stub(WeeklyTimesheetRepository.class, Map.of(
+                "findByUserAndWorkWeek", args -> Optional.empty(),
+                "findStatusesInRange", args -> List.of()));
+
+        // Ninguna semana aprobada: todo se calcula a partir de los totales y los registros
+        PayrollSnapshotRepository snapshotRepository = InMemoryRepositories.stub(PayrollSnapshotRepository.class, Map.of(
+                "findByWorkWeekIds", args -> List.of()));
+
+        return new AdminService(userRepository, timeLogRepository, new PayrollCalculationService(timesheetRepository),
+                workWeekRepository, null, null, null, null, null,
+                weeklyTotalsService, computePool,
+                new PayrollSnapshotService(snapshotRepository, timeLogRepository),
+                new WorkedMinutesService(timeLogRepository, WorkedMinutesService.Strategy.JVM), null, null, null, null);
+    }
+
+    // Registros entre start y end, en el mismo orden que la consulta real (trabajador y fecha)
+    private static List<TimeLogRow> logsBetween(Map<LocalDate, List<TimeLogRow>> logsByWeekStart, LocalDateTime start, LocalDateTime end) {
+        List<TimeLogRow> result = new ArrayList<>();
+        for (LocalDate weekStart = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+             !weekStart.isAfter(end.toLocalDate()); weekStart = weekStart.plusWeeks(1)) {
+            for (TimeLogRow log : logsByWeekStart.getOrDefault(weekStart, List.of())) {
+                if (!log.timestamp().isBefore(start) && !log.timestamp().isAfter(end)) {
+                    result.add(log);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(TimeLogRow::userId).thenComparing(TimeLogRow::timestamp));
+        return result;
+    }
+
+    @Benchmark
+    public ConsolidatedPayrollReportDto generateConsolidatedPayrollReport() {
+        return adminService.generateConsolidatedPayrollReport(startDate, endDate, admin);
+    }
+}
@@ -0,0 +1,69 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.DTO.ConsolidatedPayrollReportDto;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.service.AdminService;
+import com.apv.chronotrack.service.PayrollComputePool;
+import com.apv.chronotrack.service.WeeklyTotalsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escalado del informe consolidado con rangos de hasta un año y compañías de hasta 2.000
+ * trabajadores. El rango empieza un miércoles, así que la primera y la última semana son
+ * parciales y se calculan desde los registros; el resto sale de los totales semanales.
+ * Con coste lineal, el tiempo dividido entre trabajadores x semanas se mantiene constante
+ * entre combinaciones de parámetros. En modo parallel el cálculo por trabajador se reparte en
+ * PayrollComputePool (umbral 0); en sequential no se reparte nunca.
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec@jmh -Djmh.include=ConsolidatedReportScalingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConsolidatedReportScalingBenchmark {
+
+    @Param({"500", "1000", "2000"})
+    public int workers;
+
+    @Param({"13", "26", "52"})
+    public int weeks;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private AdminService adminService;
+    private PayrollComputePool computePool;
+    private WeeklyTotalsService weeklyTotalsService;
+    private User admin;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup
+    public void setUp() {
+        // Una semana más de datos: el rango de "weeks" semanas desde un miércoles toca weeks + 1 semanas
+        SyntheticData data = SyntheticData.generate(workers, weeks + 1);
+        startDate = SyntheticData.FIRST_MONDAY.plusDays(2);
+        endDate = startDate.plusWeeks(weeks).minusDays(1);
+
+        admin = ConsolidatedReportBenchmark.admin(data.company);
+        computePool = new PayrollComputePool(0, "parallel".equals(mode) ? 0 : Long.MAX_VALUE);
+        weeklyTotalsService = ConsolidatedReportBenchmark.weeklyTotalsService(data);
+        adminService = ConsolidatedReportBenchmark.adminService(data, admin, computePool, weeklyTotalsService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        computePool.shutdown();
+        weeklyTotalsService.shutdown();
+    }
+
+    @Benchmark
+    public ConsolidatedPayrollReportDto generateConsolidatedPayrollReport() {
+        return adminService.generateConsolidatedPayrollReport(startDate, endDate, admin);
+    }
+}
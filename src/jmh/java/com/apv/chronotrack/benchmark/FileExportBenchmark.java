@@ -0,0 +1,77 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.DTO.ConsolidatedPayrollReportDto;
+import com.apv.chronotrack.DTO.DetailedPayrollReportDto;
+import com.apv.chronotrack.service.CompanyLogoCache;
+import com.apv.chronotrack.service.FileExportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de PDF y Excel de FileExportService con 10, 1.000 y 10.000 filas (sin logo: no hay red).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileExportBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    private final FileExportService fileExportService = new FileExportService(new CompanyLogoCache(8 * 1024 * 1024, 2000, 3000, 300));
+    private ConsolidatedPayrollReportDto consolidatedReport;
+    private DetailedPayrollReportDto detailedReport;
+
+    @Setup
+    public void setUp() {
+        consolidatedReport = SyntheticData.consolidatedReport(rows);
+        detailedReport = SyntheticData.detailedReport(rows);
+    }
+
+    @Benchmark
+    public ByteArrayInputStream consolidatedPdf() throws Exception {
+        return fileExportService.generateConsolidatedPdf(consolidatedReport);
+    }
+
+    @Benchmark
+    public void consolidatedPdfStreaming() throws Exception {
+        fileExportService.writeConsolidatedPdf(consolidatedReport, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public ByteArrayInputStream consolidatedExcel() throws Exception {
+        return fileExportService.generateConsolidatedExcel(consolidatedReport);
+    }
+
+    // Ruta de los endpoints: escritura directa en la respuesta, aquí un stream que descarta los bytes
+    @Benchmark
+    public void consolidatedExcelStreaming() throws Exception {
+        fileExportService.writeConsolidatedExcel(consolidatedReport, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public ByteArrayInputStream detailedPdf() throws Exception {
+        return fileExportService.generateDetailedPdf(detailedReport);
+    }
+
+    @Benchmark
+    public void detailedPdfStreaming() throws Exception {
+        fileExportService.writeDetailedPdf(detailedReport, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public ByteArrayInputStream detailedExcel() throws Exception {
+        return fileExportService.generateDetailedExcel(detailedReport);
+    }
+
+    @Benchmark
+    public void detailedExcelStreaming() throws Exception {
+        fileExportService.writeDetailedExcel(detailedReport, OutputStream.nullOutputStream());
+    }
+}
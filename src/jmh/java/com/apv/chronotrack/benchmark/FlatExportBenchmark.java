@@ -0,0 +1,61 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogExportRow;
+import com.apv.chronotrack.service.FlatExportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Exportación plana de un millón de fichajes (CSV y NDJSON, con y sin gzip) escrita en un stream
+ * que descarta los bytes. El cursor se simula con filas generadas al vuelo, una a una como las
+ * entrega la base de datos: se mide el coste de formatear y escribir, no el de la consulta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatExportBenchmark {
+
+    private static final long ROWS = 1_000_000;
+    private static final EventType[] DAY = {EventType.INGRESO, EventType.INICIO_ALMUERZO, EventType.FINAL_ALMUERZO, EventType.SALIDA};
+    private static final int[] MINUTES_OF_DAY = {7 * 60, 11 * 60, 11 * 60 + 30, 15 * 60 + 30};
+
+    @Param({"CSV", "NDJSON"})
+    public FlatExportService.Format format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private FlatExportService flatExportService;
+
+    @Setup
+    public void setUp() {
+        TimeLogRepository timeLogRepository = InMemoryRepositories.stub(TimeLogRepository.class, Map.of(
+                "streamExportRowsByCompanyAndTimestampBetween", args -> LongStream.range(0, ROWS).mapToObj(FlatExportBenchmark::row)));
+        flatExportService = new FlatExportService(timeLogRepository);
+    }
+
+    @Benchmark
+    public void timeLogs() throws Exception {
+        flatExportService.writeTimeLogs(1L, SyntheticData.FIRST_MONDAY.atStartOfDay(), SyntheticData.FIRST_MONDAY.plusYears(1).atStartOfDay(),
+                format, OutputStream.nullOutputStream(), gzip);
+    }
+
+    // 500 trabajadores con cuatro fichajes al día, en el orden de la consulta (trabajador, hora)
+    private static TimeLogExportRow row(long index) {
+        long worker = index / 2000 + 1;
+        int event = (int) (index % 4);
+        long day = index % 2000 / 4;
+        LocalDateTime timestamp = SyntheticData.FIRST_MONDAY.plusDays(day).atStartOfDay().plusMinutes(MINUTES_OF_DAY[event]);
+        return new TimeLogExportRow(index + 1, worker, "Worker " + worker, day / 7 + 1, DAY[event], timestamp);
+    }
+}
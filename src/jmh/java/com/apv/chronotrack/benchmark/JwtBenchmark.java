@@ -0,0 +1,58 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.models.Role;
+import com.apv.chronotrack.models.RoleName;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.utils.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de JwtService por petición autenticada: extraer el usuario y validar el token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        // Clave fija de 256 bits: los resultados no dependen del entorno
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+                Base64.getEncoder().encodeToString("synthetic-benchmark-secret-key-256-bits!".getBytes()));
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+
+        Role role = new Role();
+        role.setRoleName(RoleName.ROLE_TRABAJADOR);
+        user = new User();
+        user.setEmail("worker@synthetic.test");
+        user.setRole(role);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,58 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.models.TimeLog;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.models.WorkWeek;
+import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
+import com.apv.chronotrack.service.PayrollCalculationService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PayrollCalculationService.calculateHoursForLogs y calculateWeeklyPay sobre 1, 10 y 1000 semanas-trabajador.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayrollBenchmark {
+
+    @Param({"1", "10", "1000"})
+    public int workerWeeks;
+
+    private PayrollCalculationService payrollService;
+    private List<User> workers;
+    private WorkWeek week;
+    private List<List<TimeLog>> logsByWorkerWeek;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(workerWeeks, 1);
+        workers = data.workers;
+        week = data.weeks.get(0);
+        logsByWorkerWeek = data.logsByWorkerWeek();
+        payrollService = new PayrollCalculationService(InMemoryRepositories.stub(WeeklyTimesheetRepository.class,
+                Map.of("findByUserAndWorkWeek", args -> Optional.empty())));
+    }
+
+    @Benchmark
+    public void calculateHoursForLogs(Blackhole blackhole) {
+        for (List<TimeLog> logs : logsByWorkerWeek) {
+            blackhole.consume(payrollService.calculateHoursForLogs(logs));
+        }
+    }
+
+    @Benchmark
+    public void calculateWeeklyPay(Blackhole blackhole) {
+        for (int i = 0; i < workers.size(); i++) {
+            blackhole.consume(payrollService.calculateWeeklyPay(workers.get(i), week, logsByWorkerWeek.get(i)));
+        }
+    }
+}
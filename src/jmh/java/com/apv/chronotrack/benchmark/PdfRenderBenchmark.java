@@ -0,0 +1,54 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.DTO.DetailedPayrollReportDto;
+import com.apv.chronotrack.service.CompanyLogoCache;
+import com.apv.chronotrack.service.FileExportService;
+import com.lowagie.text.pdf.PdfReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Páginas por segundo del PDF detallado de un año (52 semanas, 364 días) escrito en streaming,
+ * que es lo que hacen los endpoints. El contador "pages" da la cifra en páginas/s; la primaria,
+ * en informes/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfRenderBenchmark {
+
+    private static final int WEEKS = 52;
+
+    private final FileExportService fileExportService = new FileExportService(new CompanyLogoCache(8 * 1024 * 1024, 2000, 3000, 300));
+    private DetailedPayrollReportDto report;
+    private int pagesPerReport;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Pages {
+        public long pages;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        report = SyntheticData.detailedReport(WEEKS * 7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fileExportService.writeDetailedPdf(report, out);
+        try (PdfReader reader = new PdfReader(out.toByteArray())) {
+            pagesPerReport = reader.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public void detailedPdfYear(Pages counter) {
+        fileExportService.writeDetailedPdf(report, OutputStream.nullOutputStream());
+        counter.pages += pagesPerReport;
+    }
+}
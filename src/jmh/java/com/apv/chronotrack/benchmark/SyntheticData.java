@@ -0,0 +1,200 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.DTO.*;
+import com.apv.chronotrack.models.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generador determinista de datos de nómina para los benchmarks: misma semilla, mismos datos,
+ * sin base de datos ni red. Cada día trabajado tiene INGRESO, almuerzo y SALIDA con minutos aleatorios.
+ */
+final class SyntheticData {
+
+    static final LocalDate FIRST_MONDAY = LocalDate.of(2026, 1, 5);
+    private static final long SEED = 20260105L;
+
+    final Company company;
+    final List<User> workers;
+    final List<WorkWeek> weeks;
+    // Registros ordenados por trabajador y fecha, como los devuelve TimeLogRepository.findRowsByCompanyAndTimestampBetween
+    final List<TimeLog> logs;
+
+    private SyntheticData(Company company, List<User> workers, List<WorkWeek> weeks, List<TimeLog> logs) {
+        this.company = company;
+        this.workers = workers;
+        this.weeks = weeks;
+        this.logs = logs;
+    }
+
+    static SyntheticData generate(int workerCount, int weekCount) {
+        Random random = new Random(SEED);
+
+        Company company = new Company();
+        company.setId(1L);
+        company.setCompanyName("Synthetic Co");
+        company.setAddress("1 Benchmark Way");
+        company.setPhoneNumber("555-0100");
+
+        Role workerRole = new Role();
+        workerRole.setId(1);
+        workerRole.setRoleName(RoleName.ROLE_TRABAJADOR);
+
+        List<WorkWeek> weeks = new ArrayList<>(weekCount);
+        for (int w = 0; w < weekCount; w++) {
+            WorkWeek week = new WorkWeek();
+            week.setId((long) w + 1);
+            week.setCompany(company);
+            week.setStartDate(FIRST_MONDAY.plusWeeks(w));
+            week.setEndDate(FIRST_MONDAY.plusWeeks(w).plusDays(6));
+            weeks.add(week);
+        }
+
+        List<User> workers = new ArrayList<>(workerCount);
+        List<TimeLog> logs = new ArrayList<>(workerCount * weekCount * 20);
+        long logId = 1;
+        for (int i = 0; i < workerCount; i++) {
+            User worker = new User();
+            worker.setId((long) i + 1);
+            worker.setFullName("Worker " + (i + 1));
+            worker.setEmail("worker" + (i + 1) + "@synthetic.test");
+            worker.setPasswordHash("x");
+            worker.setHourlyRate(BigDecimal.valueOf(1200 + random.nextInt(1800), 2));
+            worker.setRole(workerRole);
+            worker.setCompany(company);
+            workers.add(worker);
+
+            for (WorkWeek week : weeks) {
+                // 5 o 6 días por semana; los de 6 días suelen pasar de 40 horas
+                int days = 5 + random.nextInt(2);
+                for (int d = 0; d < days; d++) {
+                    LocalDateTime clockIn = week.getStartDate().plusDays(d).atTime(7, 0).plusMinutes(random.nextInt(90));
+                    LocalDateTime lunchStart = clockIn.plusHours(4).plusMinutes(random.nextInt(30));
+                    LocalDateTime lunchEnd = lunchStart.plusMinutes(30 + random.nextInt(31));
+                    LocalDateTime clockOut = lunchEnd.plusHours(4).plusMinutes(random.nextInt(60));
+                    logs.add(log(logId++, worker, week, EventType.INGRESO, clockIn));
+                    logs.add(log(logId++, worker, week, EventType.INICIO_ALMUERZO, lunchStart));
+                    logs.add(log(logId++, worker, week, EventType.FINAL_ALMUERZO, lunchEnd));
+                    logs.add(log(logId++, worker, week, EventType.SALIDA, clockOut));
+                }
+            }
+        }
+        return new SyntheticData(company, workers, weeks, logs);
+    }
+
+    /**
+     * Registros de cada trabajador en cada semana, en el orden de generación.
+     */
+    List<List<TimeLog>> logsByWorkerWeek() {
+        Map<Long, Map<Long, List<TimeLog>>> grouped = new HashMap<>();
+        for (TimeLog log : logs) {
+            grouped.computeIfAbsent(log.getUser().getId(), id -> new HashMap<>())
+                    .computeIfAbsent(log.getWorkWeek().getId(), id -> new ArrayList<>())
+                    .add(log);
+        }
+        List<List<TimeLog>> result = new ArrayList<>();
+        for (User worker : workers) {
+            for (WorkWeek week : weeks) {
+                result.add(grouped.getOrDefault(worker.getId(), Map.of()).getOrDefault(week.getId(), List.of()));
+            }
+        }
+        return result;
+    }
+
+    static ConsolidatedPayrollReportDto consolidatedReport(int rows) {
+        Random random = new Random(SEED);
+        List<ConsolidatedPayrollEntryDto> entries = new ArrayList<>(rows);
+        BigDecimal grandTotal = BigDecimal.ZERO;
+        for (int i = 0; i < rows; i++) {
+            ConsolidatedPayrollEntryDto entry = new ConsolidatedPayrollEntryDto((long) i + 1, "Worker " + (i + 1));
+            double regular = 30 + random.nextInt(11);
+            double overtime = random.nextInt(4) == 0 ? random.nextInt(600) / 100.0 : 0.0;
+            entry.setTotalRegularHours(regular);
+            entry.setTotalOvertimeHours(overtime);
+            entry.setTotalHours(regular + overtime);
+            entry.setTotalPay(BigDecimal.valueOf((regular + overtime * 1.5) * 18.5).setScale(2, RoundingMode.HALF_UP));
+            grandTotal = grandTotal.add(entry.getTotalPay());
+            entries.add(entry);
+        }
+        return ConsolidatedPayrollReportDto.builder()
+                .startDate(FIRST_MONDAY)
+                .endDate(FIRST_MONDAY.plusWeeks(4).minusDays(1))
+                .entries(entries)
+                .grandTotalPay(grandTotal)
+                .companyName("Synthetic Co")
+                .companyAddress("1 Benchmark Way")
+                .companyPhoneNumber("555-0100")
+                .build();
+    }
+
+    /**
+     * Informe detallado con rows filas diarias repartidas en semanas de 7 días.
+     */
+    static DetailedPayrollReportDto detailedReport(int rows) {
+        Random random = new Random(SEED);
+        List<WeeklyPaySummaryDto> weeklySummaries = new ArrayList<>();
+        Map<Long, List<DailySummaryDto>> dailyByWeek = new HashMap<>();
+        BigDecimal rate = new BigDecimal("18.50");
+        for (int i = 0; i < rows; i++) {
+            long weekId = i / 7 + 1;
+            LocalDate weekStart = FIRST_MONDAY.plusWeeks(weekId - 1);
+            if (i % 7 == 0) {
+                weeklySummaries.add(WeeklyPaySummaryDto.builder()
+                        .workWeek(WorkWeekDto.builder().id(weekId).startDate(weekStart).endDate(weekStart.plusDays(6)).build())
+                        .workerId(1L)
+                        .workerName("Worker 1")
+                        .regularHours(40.0)
+                        .overtimeHours(2.5)
+                        .totalHours(42.5)
+                        .regularPay(new BigDecimal("740.00"))
+                        .overtimePay(new BigDecimal("69.38"))
+                        .totalPay(new BigDecimal("809.38"))
+                        .status(TimesheetStatus.APPROVED)
+                        .build());
+            }
+            LocalDateTime clockIn = weekStart.plusDays(i % 7).atTime(7, random.nextInt(60));
+            double hours = 7 + random.nextInt(200) / 100.0;
+            dailyByWeek.computeIfAbsent(weekId, id -> new ArrayList<>()).add(DailySummaryDto.builder()
+                    .date(clockIn.toLocalDate())
+                    .workLocationName("Site " + (1 + random.nextInt(5)))
+                    .clockInTime(clockIn.toLocalTime())
+                    .startLunchTime(clockIn.toLocalTime().plusHours(4))
+                    .endLunchTime(clockIn.toLocalTime().plusHours(4).plusMinutes(30))
+                    .clockOutTime(clockIn.toLocalTime().plusHours(8).plusMinutes(30))
+                    .totalHours(hours)
+                    .dailyRate(rate)
+                    .totalPay(rate.multiply(BigDecimal.valueOf(hours)).setScale(2, RoundingMode.HALF_UP))
+                    .build());
+        }
+        return DetailedPayrollReportDto.builder()
+                .workerId(1L)
+                .workerName("Worker 1")
+                .startDate(FIRST_MONDAY)
+                .endDate(FIRST_MONDAY.plusDays(Math.max(rows, 1) - 1L))
+                .weeklySummaries(weeklySummaries)
+                .dailySummariesByWeek(dailyByWeek)
+                .grandTotalPay(BigDecimal.ZERO)
+                .companyName("Synthetic Co")
+                .companyAddress("1 Benchmark Way")
+                .companyPhoneNumber("555-0100")
+                .build();
+    }
+
+    private static TimeLog log(long id, User worker, WorkWeek week, EventType type, LocalDateTime timestamp) {
+        TimeLog log = new TimeLog();
+        log.setId(id);
+        log.setUser(worker);
+        log.setWorkWeek(week);
+        log.setEventType(type);
+        log.setTimestamp(timestamp);
+        return log;
+    }
+}
@@ -13,6 +13,7 @@ public class ConsolidatedPayrollReportDto {
     private LocalDate endDate;
     private List<ConsolidatedPayrollEntryDto> entries;
     private BigDecimal grandTotalPay;
+    private Long companyId;
     private String companyName;
     private String companyAddress;
     private String companyPhoneNumber;
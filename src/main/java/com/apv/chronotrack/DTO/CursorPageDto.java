@@ -0,0 +1,10 @@
+package com.apv.chronotrack.DTO;
+
+import java.util.List;
+
+/**
+ * Página de un listado por cursor: nextCursor se envía como ?cursor= para pedir la siguiente
+ * y es null en la última.
+ */
+public record CursorPageDto<T>(List<T> items, String nextCursor, boolean hasMore) {
+}
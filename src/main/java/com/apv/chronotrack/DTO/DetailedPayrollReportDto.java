@@ -25,6 +25,7 @@ public class DetailedPayrollReportDto {
     private BigDecimal grandTotalPay;
     @Builder.Default
     private Map<Long, List<TimeLogDTO>> timeLogsByWeek = new HashMap<>();
+    private Long companyId;
     private String companyName;
     private String companyAddress;
     private String companyPhoneNumber;
@@ -0,0 +1,46 @@
+package com.apv.chronotrack.DTO;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimesheetStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento del canal en vivo del panel de administración (ver LiveEventBus). Solo se rellenan
+ * los campos que aplican al tipo; RESYNC avisa de que se descartaron eventos y el cliente
+ * debe volver a pedir los datos.
+ */
+public record LiveEventDto(Type type,
+                           Long workerId,
+                           String workerName,
+                           Long workWeekId,
+                           Long timeLogId,
+                           EventType eventType,
+                           LocalDateTime timestamp,
+                           TimesheetStatus timesheetStatus,
+                           LocalDateTime occurredAt) {
+
+    public enum Type { PUNCH, TIME_LOG_CORRECTED, TIME_LOG_DELETED, TIMESHEET_STATUS, RESYNC }
+
+    public static LiveEventDto punch(Long workerId, String workerName, Long workWeekId, Long timeLogId,
+                                     EventType eventType, LocalDateTime timestamp) {
+        return new LiveEventDto(Type.PUNCH, workerId, workerName, workWeekId, timeLogId, eventType, timestamp, null, LocalDateTime.now());
+    }
+
+    public static LiveEventDto timeLogCorrected(Long workerId, String workerName, Long workWeekId, Long timeLogId,
+                                                EventType eventType, LocalDateTime timestamp) {
+        return new LiveEventDto(Type.TIME_LOG_CORRECTED, workerId, workerName, workWeekId, timeLogId, eventType, timestamp, null, LocalDateTime.now());
+    }
+
+    public static LiveEventDto timeLogDeleted(Long workerId, String workerName, Long workWeekId, Long timeLogId) {
+        return new LiveEventDto(Type.TIME_LOG_DELETED, workerId, workerName, workWeekId, timeLogId, null, null, null, LocalDateTime.now());
+    }
+
+    public static LiveEventDto timesheetStatus(Long workerId, String workerName, Long workWeekId, TimesheetStatus status) {
+        return new LiveEventDto(Type.TIMESHEET_STATUS, workerId, workerName, workWeekId, null, null, null, status, LocalDateTime.now());
+    }
+
+    public static LiveEventDto resync() {
+        return new LiveEventDto(Type.RESYNC, null, null, null, null, null, null, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,18 @@
+package com.apv.chronotrack.DTO;
+
+import lombok.Builder;
+import lombok.Data;
+import java.util.List;
+
+@Data
+@Builder
+public class PresenceDto {
+    private int clockedIn;
+    private int onLunch;
+    // Trabajadores que ya han salido hoy (los que no han fichado hoy no aparecen)
+    private int clockedOut;
+    private int punchedToday;
+    private List<PresenceWorkerDto> clockedInWorkers;
+    private List<PresenceWorkerDto> onLunchWorkers;
+    private List<PresenceWorkerDto> clockedOutWorkers;
+}
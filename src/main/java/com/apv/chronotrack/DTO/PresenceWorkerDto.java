@@ -0,0 +1,7 @@
+package com.apv.chronotrack.DTO;
+
+import java.time.LocalDateTime;
+
+// since: hora del último registro, el que dejó al trabajador en su situación actual
+public record PresenceWorkerDto(Long workerId, String fullName, LocalDateTime since) {
+}
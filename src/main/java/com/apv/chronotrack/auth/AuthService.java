@@ -4,6 +4,7 @@ import com.apv.chronotrack.DTO.*;
 import com.apv.chronotrack.models.*;
 import com.apv.chronotrack.repository.*;
 import com.apv.chronotrack.service.AuditService;
+import com.apv.chronotrack.service.DashboardStatsCache;
 import com.apv.chronotrack.service.EmailService;
 import com.apv.chronotrack.utils.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -41,6 +42,7 @@ public class AuthService {
     private final WorkLocationRepository workLocationRepository; // <-- Añadir dependencia
     private final UserWorkAssignmentRepository assignmentRepository;
     private final AuditService auditService;
+    private final DashboardStatsCache dashboardStatsCache;
     /**
      * Inicia el proceso de registro de un nuevo trabajador.
      * Este método es llamado por un administrador.
@@ -103,6 +105,7 @@ public class AuthService {
             assignment.setCurrent(true); // Esta es su primera y actual asignación
             assignmentRepository.save(assignment);
         }
+        dashboardStatsCache.invalidate(adminCompany.getId());
         emailService.sendRegistrationInvite(newUser.getEmail(), token, adminCompany.getCompanyName());
         auditService.logAction(
                 admin,
@@ -159,6 +162,7 @@ public class AuthService {
 
         // 5. Guarda el usuario completamente actualizado en la base de datos.
         userRepository.save(user);
+        dashboardStatsCache.invalidate(user.getCompany().getId());
 
         // 6. Genera un token JWT para que el usuario inicie sesión inmediatamente.
         String jwtToken = jwtService.generateToken(user);
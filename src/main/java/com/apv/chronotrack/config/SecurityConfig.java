@@ -1,5 +1,6 @@
 package com.apv.chronotrack.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -33,6 +34,8 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // Los despachos asíncronos (cierre de conexiones SSE) ya pasaron la autorización de su petición.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Las rutas para autenticación (login, registro) son públicas.
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/reports/**").authenticated()
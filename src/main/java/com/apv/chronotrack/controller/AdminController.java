@@ -1,14 +1,15 @@
 package com.apv.chronotrack.controller;
 
 import com.apv.chronotrack.DTO.*;
+import com.apv.chronotrack.exception.BusinessRuleException;
 import com.apv.chronotrack.models.User;
 import com.apv.chronotrack.service.AdminService;
 import com.apv.chronotrack.service.CloudinaryService;
+import com.apv.chronotrack.service.LiveEventBus;
 import com.apv.chronotrack.service.FileExportService;
-import com.lowagie.text.DocumentException;
+import com.apv.chronotrack.service.FlatExportService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -19,10 +20,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -34,18 +37,38 @@ public class AdminController {
     private final AdminService adminService;
     private final FileExportService fileExportService;
     private final CloudinaryService cloudinaryService;
+    private final LiveEventBus liveEventBus;
+    private final FlatExportService flatExportService;
 
     @GetMapping("/dashboard-stats")
     public ResponseEntity<DashboardStatsDto> getDashboardStats(@AuthenticationPrincipal User admin) {
         return ResponseEntity.ok(adminService.getDashboardStats(admin));
     }
+
+    @GetMapping("/presence")
+    public ResponseEntity<PresenceDto> getPresence(@AuthenticationPrincipal User admin) {
+        return ResponseEntity.ok(adminService.getPresence(admin));
+    }
+
+    // Marcaciones, correcciones y cambios de estado de hojas de horas de la compañía en vivo (SSE)
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@AuthenticationPrincipal User admin) {
+        return liveEventBus.subscribe(admin.getCompany().getId());
+    }
+
     // --- Nuevos Endpoints de Gestión de Trabajadores ---
 
+    // Con cursor o limit responde por páginas (CursorPageDto); sin ellos, la lista completa
     @GetMapping("/workers")
-    public ResponseEntity<List<WorkerDto>> listWorkers(
+    public ResponseEntity<?> listWorkers(
             @AuthenticationPrincipal User admin,
-            @RequestParam(required = false, defaultValue = "ACTIVE") String status) { // <-- Cambio aquí
+            @RequestParam(required = false, defaultValue = "ACTIVE") String status, // <-- Cambio aquí
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
+        if (cursor != null || limit != null) {
+            return ResponseEntity.ok(adminService.listWorkersPage(admin, status, cursor, limit));
+        }
         return ResponseEntity.ok(adminService.listWorkers(admin, status));
     }
 
@@ -87,14 +110,14 @@ public class AdminController {
         return ResponseEntity.ok(adminService.generateDetailedPayrollReport(workerId, startDate, endDate, admin));
     }
 
+    // El PDF se escribe en la respuesta página a página mientras se genera
     @GetMapping("/reports/consolidated-payroll/pdf")
-    public ResponseEntity<InputStreamResource> exportConsolidatedReportPdf(
+    public ResponseEntity<StreamingResponseBody> exportConsolidatedReportPdf(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User admin) throws DocumentException {
+            @AuthenticationPrincipal User admin) {
 
         ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(startDate, endDate, admin);
-        ByteArrayInputStream pdf = fileExportService.generateConsolidatedPdf(report);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition", "attachment; filename=reporte-nomina.pdf");
@@ -102,17 +125,17 @@ public class AdminController {
         return ResponseEntity.ok()
                 .headers(headers)
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(new InputStreamResource(pdf));
+                .body(out -> fileExportService.writeConsolidatedPdf(report, out));
     }
 
+    // El Excel se escribe directamente en la respuesta mientras se genera (SXSSF), sin copias en memoria
     @GetMapping("/reports/consolidated-payroll/excel")
-    public ResponseEntity<InputStreamResource> exportConsolidatedReportExcel(
+    public ResponseEntity<StreamingResponseBody> exportConsolidatedReportExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User admin) throws IOException {
+            @AuthenticationPrincipal User admin) {
 
         ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(startDate, endDate, admin);
-        ByteArrayInputStream excel = fileExportService.generateConsolidatedExcel(report);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition", "attachment; filename=reporte-nomina.xlsx");
@@ -120,39 +143,71 @@ public class AdminController {
         return ResponseEntity.ok()
                 .headers(headers)
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(new InputStreamResource(excel));
+                .body(out -> fileExportService.writeConsolidatedExcel(report, out));
     }
 
     @GetMapping("/reports/detailed-payroll/{workerId}/pdf")
-    public ResponseEntity<InputStreamResource> exportDetailedReportPdf(
+    public ResponseEntity<StreamingResponseBody> exportDetailedReportPdf(
             @PathVariable Long workerId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User admin) throws DocumentException, IOException {
+            @AuthenticationPrincipal User admin) {
 
         DetailedPayrollReportDto report = adminService.generateDetailedPayrollReport(workerId, startDate, endDate, admin);
-        ByteArrayInputStream pdf = fileExportService.generateDetailedPdf(report);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition", "attachment; filename=reporte-detallado-" + report.getWorkerName() + ".pdf");
 
-        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_PDF).body(new InputStreamResource(pdf));
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_PDF)
+                .body(out -> fileExportService.writeDetailedPdf(report, out));
     }
 
     @GetMapping("/reports/detailed-payroll/{workerId}/excel")
-    public ResponseEntity<InputStreamResource> exportDetailedReportExcel(
+    public ResponseEntity<StreamingResponseBody> exportDetailedReportExcel(
             @PathVariable Long workerId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User admin) throws IOException {
+            @AuthenticationPrincipal User admin) {
 
         DetailedPayrollReportDto report = adminService.generateDetailedPayrollReport(workerId, startDate, endDate, admin);
-        ByteArrayInputStream excel = fileExportService.generateDetailedExcel(report);
 
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition", "attachment; filename=reporte-detallado-" + report.getWorkerName() + ".xlsx");
 
-        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM).body(new InputStreamResource(excel));
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(out -> fileExportService.writeDetailedExcel(report, out));
+    }
+
+    // Filas planas para integradores de nómina: /csv o /ndjson, con ?gzip=true para descargarlas comprimidas
+    @GetMapping("/reports/consolidated-payroll/{format:csv|ndjson}")
+    public ResponseEntity<StreamingResponseBody> exportConsolidatedReportFlat(
+            @PathVariable String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User admin) {
+
+        ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(startDate, endDate, admin);
+        FlatExportService.Format flatFormat = FlatExportService.Format.fromPath(format);
+
+        return flatExport("reporte-nomina", flatFormat, gzip,
+                out -> flatExportService.writeConsolidated(report, flatFormat, out, gzip));
+    }
+
+    @GetMapping("/reports/detailed-payroll/{workerId}/{format:csv|ndjson}")
+    public ResponseEntity<StreamingResponseBody> exportDetailedReportFlat(
+            @PathVariable Long workerId,
+            @PathVariable String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User admin) {
+
+        DetailedPayrollReportDto report = adminService.generateDetailedPayrollReport(workerId, startDate, endDate, admin);
+        FlatExportService.Format flatFormat = FlatExportService.Format.fromPath(format);
+
+        return flatExport("reporte-detallado-" + report.getWorkerName(), flatFormat, gzip,
+                out -> flatExportService.writeDetailed(report, flatFormat, out, gzip));
     }
 
     @PostMapping("/timelogs/correction")
@@ -169,6 +224,33 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
 
+    // Fichajes en bruto de la compañía entre dos fechas (ambas incluidas), leídos de la base de datos con un cursor
+    @GetMapping("/timelogs/export/{format:csv|ndjson}")
+    public ResponseEntity<StreamingResponseBody> exportTimeLogs(
+            @PathVariable String format,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal User admin) {
+
+        if (endDate.isBefore(startDate)) {
+            throw new BusinessRuleException("End date must not be before start date.");
+        }
+        Long companyId = admin.getCompany().getId();
+        FlatExportService.Format flatFormat = FlatExportService.Format.fromPath(format);
+
+        return flatExport("fichajes-" + startDate + "-" + endDate, flatFormat, gzip,
+                out -> flatExportService.writeTimeLogs(companyId, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX),
+                        flatFormat, out, gzip));
+    }
+
+    @PostMapping("/weekly-totals/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildWeeklyTotals(@AuthenticationPrincipal User admin) {
+        int rows = adminService.rebuildWeeklyTotals(admin);
+        int snapshots = adminService.backfillPayrollSnapshots(admin);
+        return ResponseEntity.ok(Map.of("rows", rows, "snapshots", snapshots));
+    }
+
     @PostMapping("/company/logo")
     public ResponseEntity<Map<String, String>> uploadCompanyLogo(
             @RequestParam("file") MultipartFile file,
@@ -189,4 +271,16 @@ public class AdminController {
             @AuthenticationPrincipal User admin) {
         return ResponseEntity.ok(adminService.updateCompanyInfo(admin, request));
     }
+
+    private ResponseEntity<StreamingResponseBody> flatExport(String baseName, FlatExportService.Format format, boolean gzip,
+                                                             StreamingResponseBody body) {
+        String filename = baseName + "." + format.extension() + (gzip ? ".gz" : "");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Disposition", "attachment; filename=" + filename);
+
+        return ResponseEntity.ok().headers(headers)
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType()))
+                .body(body);
+    }
 }
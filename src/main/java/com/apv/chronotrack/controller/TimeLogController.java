@@ -60,12 +60,18 @@ public class TimeLogController {
         return ResponseEntity.ok(timeLogService.getCurrentWeekLogs(user));
     }
 
+    // Con cursor o limit responde por páginas (CursorPageDto); sin ellos, la lista completa del rango
     @GetMapping("/date-range")
-    public ResponseEntity<List<TimeLogDTO>> getLogsByDateRange(
+    public ResponseEntity<?> getLogsByDateRange(
             @AuthenticationPrincipal User user,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
+        if (cursor != null || limit != null) {
+            return ResponseEntity.ok(timeLogService.getLogsByDateRangePage(user, startDate, endDate, cursor, limit));
+        }
         return ResponseEntity.ok(timeLogService.getLogsByDateRange(user, startDate, endDate));
     }
 
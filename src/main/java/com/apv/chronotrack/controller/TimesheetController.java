@@ -78,7 +78,13 @@ public class TimesheetController {
             @RequestParam(required = false) TimesheetStatus status,
             @RequestParam(required = false) Long workerId,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false, defaultValue = "20") Integer size) {
+            @RequestParam(required = false, defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        // Por cursor (sin OFFSET ni COUNT): preferible a page para recorrer historiales largos
+        if (cursor != null || limit != null) {
+            return ResponseEntity.ok(timesheetService.getFilteredTimesheetsAfter(user, status, workerId, cursor, limit));
+        }
         if (page != null) {
             Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "workWeek.startDate"));
             return ResponseEntity.ok(timesheetService.getFilteredTimesheetsPaged(user, status, workerId, pageable));
@@ -0,0 +1,64 @@
+package com.apv.chronotrack.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Nómina congelada de una hoja de horas aprobada: minutos, tarifa aplicada e importes tal como
+ * se calcularon al aprobarla. Una hoja aprobada ya no admite correcciones, así que la fila no
+ * cambia; los informes la leen en lugar de recalcular desde time_logs y no les afectan los
+ * cambios de tarifa posteriores.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "payroll_snapshots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_payroll_snapshots_user_week", columnNames = {"user_id", "work_week_id"})
+})
+public class PayrollSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "timesheet_id", nullable = false, unique = true)
+    private WeeklyTimesheet timesheet;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "work_week_id", nullable = false)
+    private WorkWeek workWeek;
+
+    @Column(name = "worked_minutes", nullable = false)
+    private long workedMinutes;
+
+    @Column(name = "regular_minutes", nullable = false)
+    private long regularMinutes;
+
+    @Column(name = "overtime_minutes", nullable = false)
+    private long overtimeMinutes;
+
+    // Tarifa por hora vigente al aprobar
+    @Column(name = "hourly_rate", nullable = false, precision = 10, scale = 2)
+    private BigDecimal hourlyRate;
+
+    @Column(name = "regular_pay", nullable = false, precision = 12, scale = 2)
+    private BigDecimal regularPay;
+
+    @Column(name = "overtime_pay", nullable = false, precision = 12, scale = 2)
+    private BigDecimal overtimePay;
+
+    @Column(name = "total_pay", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalPay;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
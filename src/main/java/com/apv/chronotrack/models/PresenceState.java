@@ -0,0 +1,16 @@
+package com.apv.chronotrack.models;
+
+// Situación actual de un trabajador según su último registro
+public enum PresenceState {
+    OUT,
+    IN,
+    LUNCH;
+
+    public static PresenceState of(EventType eventType) {
+        return switch (eventType) {
+            case INGRESO, FINAL_ALMUERZO -> IN;
+            case INICIO_ALMUERZO -> LUNCH;
+            case SALIDA -> OUT;
+        };
+    }
+}
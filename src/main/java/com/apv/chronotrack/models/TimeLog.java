@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "time_logs")
+@Table(name = "time_logs", indexes = {
+        @Index(name = "idx_time_logs_user_timestamp", columnList = "user_id, timestamp")
+})
 public class TimeLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
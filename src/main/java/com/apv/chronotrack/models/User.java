@@ -19,7 +19,10 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Listado paginado de trabajadores por compañía en orden de id
+        @Index(name = "idx_users_company_id", columnList = "company_id, id")
+})
 public class User implements UserDetails { // Implementamos UserDetails
 
     @Id
@@ -8,7 +8,12 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "weekly_timesheets")
+@Table(name = "weekly_timesheets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_weekly_timesheets_user_week", columnNames = {"user_id", "work_week_id"})
+}, indexes = {
+        // Listado paginado de la compañía: se recorren sus semanas (uk_work_weeks_company_start) y, en cada una, las hojas por id
+        @Index(name = "idx_weekly_timesheets_week_id", columnList = "work_week_id, id")
+})
 public class WeeklyTimesheet {
 
     @Id
@@ -0,0 +1,50 @@
+package com.apv.chronotrack.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Modelo de lectura: minutos trabajados acumulados por trabajador y semana.
+ * Se mantiene de forma incremental con cada marcación (ver WeeklyTotalsService) y se
+ * puede reconstruir a partir de time_logs; los informes leen una fila por trabajador
+ * en lugar de todos sus registros.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "weekly_worker_totals", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_weekly_worker_totals_user_week", columnNames = {"user_id", "work_week_id"})
+})
+public class WeeklyWorkerTotal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "work_week_id", nullable = false)
+    private WorkWeek workWeek;
+
+    // Minutos completos de los intervalos cerrados, con el mismo cálculo que PayrollCalculationService
+    @Column(name = "worked_minutes", nullable = false)
+    private long workedMinutes;
+
+    // Inicio del intervalo en curso (INGRESO o FINAL_ALMUERZO sin cierre), o null
+    @Column(name = "open_interval_start")
+    private LocalDateTime openIntervalStart;
+
+    // Fecha del último registro aplicado: una marcación anterior obliga a recalcular la semana
+    @Column(name = "last_event_at")
+    private LocalDateTime lastEventAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TimesheetStatus status;
+}
@@ -8,7 +8,10 @@ import java.time.LocalDate;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "work_weeks")
+@Table(name = "work_weeks", uniqueConstraints = {
+        // Una sola semana por compañía y fecha de inicio (evita duplicados en fichajes simultáneos)
+        @UniqueConstraint(name = "uk_work_weeks_company_start", columnNames = {"company_id", "start_date"})
+})
 public class WorkWeek {
 
     @Id
@@ -0,0 +1,104 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.models.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Comando de fichaje de entrada en una sola sentencia: un INSERT ... SELECT que solo
+ * inserta el registro si la hoja de horas de la semana está abierta, el trabajador no
+ * ha marcado INGRESO hoy, su último evento permite la entrada y está dentro de la
+ * geocerca de su lugar de trabajo actual.
+ * Si alguna condición falla no se inserta nada y el servicio decide el mensaje de error.
+ */
+@Repository
+public class ClockInCommandRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String clockInSql;
+
+    public ClockInCommandRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        String prefix = (schema == null || schema.isBlank()) ? "" : schema + ".";
+        this.clockInSql = """
+                INSERT INTO %1$stime_logs (event_type, timestamp, user_id, work_week_id)
+                SELECT :eventType, :timestamp, u.id, w.id
+                FROM %1$susers u
+                JOIN %1$swork_weeks w ON w.company_id = u.company_id AND w.start_date = :weekStart
+                JOIN %1$sweekly_timesheets ts ON ts.user_id = u.id AND ts.work_week_id = w.id
+                JOIN %1$suser_work_assignments a ON a.id = (
+                    SELECT MAX(ca.id) FROM %1$suser_work_assignments ca WHERE ca.user_id = u.id AND ca.is_current = TRUE)
+                JOIN %1$swork_locations l ON l.id = a.work_location_id
+                WHERE u.id = :userId
+                  AND ts.status = 'OPEN'
+                  AND NOT EXISTS (
+                      SELECT 1 FROM %1$stime_logs t
+                      WHERE t.user_id = u.id AND t.event_type = 'INGRESO'
+                        AND t.timestamp BETWEEN :startOfDay AND :endOfDay)
+                  AND COALESCE((
+                      SELECT t.event_type FROM %1$stime_logs t
+                      WHERE t.user_id = u.id ORDER BY t.timestamp DESC LIMIT 1), 'SALIDA') = 'SALIDA'
+                  AND (l.latitude IS NULL OR l.longitude IS NULL OR l.geofence_radius_meters IS NULL
+                       OR 6371 * 2 * ATAN2(SQRT(%2$s), SQRT(1 - %2$s)) * 1000 <= l.geofence_radius_meters)
+                """.formatted(prefix, haversineTerm());
+    }
+
+    /**
+     * Inserta el INGRESO de hoy si se cumplen todas las reglas de fichaje.
+     *
+     * @return el id del registro y de la semana, o vacío si alguna regla no se cumple
+     *         (o la semana / hoja de horas aún no existen).
+     */
+    public Optional<ClockInResult> clockIn(Long userId, LocalDateTime timestamp, double latitude, double longitude) {
+        LocalDate day = timestamp.toLocalDate();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventType", EventType.INGRESO.name())
+                .addValue("timestamp", timestamp)
+                .addValue("userId", userId)
+                .addValue("weekStart", day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)))
+                .addValue("startOfDay", day.atStartOfDay())
+                .addValue("endOfDay", day.atTime(LocalTime.MAX))
+                .addValue("latitude", latitude)
+                .addValue("longitude", longitude);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update(clockInSql, params, keyHolder, new String[]{"id", "work_week_id"});
+        if (inserted == 0) {
+            return Optional.empty();
+        }
+        Map<String, Object> keys = keyHolder.getKeys();
+        return Optional.of(new ClockInResult(longKey(keys, "id"), longKey(keys, "work_week_id"), timestamp));
+    }
+
+    // Cada driver devuelve los nombres de las claves generadas con distinta capitalización
+    private static Long longKey(Map<String, Object> keys, String column) {
+        return keys.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(column))
+                .map(entry -> ((Number) entry.getValue()).longValue())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Generated key not returned: " + column));
+    }
+
+    // Misma fórmula de Haversine que TimeLogService.calculateDistance (lat1/lon1 = lugar de trabajo)
+    private static String haversineTerm() {
+        return "(SIN(RADIANS(:latitude - l.latitude) / 2) * SIN(RADIANS(:latitude - l.latitude) / 2)"
+                + " + COS(RADIANS(l.latitude)) * COS(RADIANS(:latitude))"
+                + " * SIN(RADIANS(:longitude - l.longitude) / 2) * SIN(RADIANS(:longitude - l.longitude) / 2))";
+    }
+
+    public record ClockInResult(Long timeLogId, Long workWeekId, LocalDateTime timestamp) {
+    }
+}
@@ -2,6 +2,9 @@ package com.apv.chronotrack.repository;
 
 import com.apv.chronotrack.models.Company;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface CompanyRepository extends JpaRepository<Company, Long> {
@@ -9,4 +12,8 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
     Optional<Company> findByEin(String ein);
 
     Optional<Company> findByStripeCustomerId(String stripeCustomerId);
+
+    // Solo los ids, para procesos por lotes que no necesitan la entidad completa
+    @Query("SELECT c.id FROM Company c ORDER BY c.id")
+    List<Long> findAllIds();
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.models.PayrollSnapshot;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.models.WeeklyTimesheet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PayrollSnapshotRepository extends JpaRepository<PayrollSnapshot, Long> {
+
+    boolean existsByTimesheet(WeeklyTimesheet timesheet);
+
+    // Nóminas congeladas de las semanas indicadas (todas las de la compañía, una por trabajador y semana)
+    @Query("SELECT s FROM PayrollSnapshot s WHERE s.workWeek.id IN :workWeekIds")
+    List<PayrollSnapshot> findByWorkWeekIds(@Param("workWeekIds") Collection<Long> workWeekIds);
+
+    @Query("SELECT s FROM PayrollSnapshot s WHERE s.user = :user AND s.workWeek.id IN :workWeekIds")
+    List<PayrollSnapshot> findByUserAndWorkWeekIds(@Param("user") User user, @Param("workWeekIds") Collection<Long> workWeekIds);
+
+    // Hojas de la compañía en el estado indicado que aún no tienen nómina congelada
+    @Query("SELECT t FROM WeeklyTimesheet t JOIN FETCH t.user JOIN FETCH t.workWeek w " +
+            "WHERE w.company.id = :companyId AND t.status = :status " +
+            "AND NOT EXISTS (SELECT s FROM PayrollSnapshot s WHERE s.timesheet = t)")
+    List<WeeklyTimesheet> findTimesheetsWithoutSnapshot(@Param("companyId") Long companyId,
+                                                        @Param("status") TimesheetStatus status);
+}
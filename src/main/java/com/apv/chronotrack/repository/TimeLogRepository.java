@@ -2,29 +2,139 @@ package com.apv.chronotrack.repository;
 
 
 import com.apv.chronotrack.models.*;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TimeLogRepository extends JpaRepository<TimeLog, Long> {
 
+    // Filas que trae cada viaje a la base de datos al recorrer un cursor (consultas stream*)
+    String STREAM_FETCH_SIZE = "1000";
+
+    // Proyección de solo lectura de un registro: sin entidad gestionada ni relaciones que cargar
+    String ROW = "new com.apv.chronotrack.repository.TimeLogRepository$TimeLogRow(" +
+            "tl.id, tl.user.id, tl.workWeek.id, tl.eventType, tl.timestamp)";
+
     // Busca todos los registros de un usuario en un rango de fechas, ordenados por tiempo.
-    List<TimeLog> findByUserAndTimestampBetweenOrderByTimestampAsc(User user, LocalDateTime start, LocalDateTime end);
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user = :user AND tl.timestamp BETWEEN :start AND :end " +
+            "ORDER BY tl.timestamp, tl.id")
+    List<TimeLogRow> findRowsByUserAndTimestampBetween(@Param("user") User user, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Página por cursor del rango: los registros posteriores a (afterTimestamp, afterId) en el mismo orden
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user = :user AND tl.timestamp BETWEEN :start AND :end " +
+            "AND (tl.timestamp > :afterTimestamp OR (tl.timestamp = :afterTimestamp AND tl.id > :afterId)) " +
+            "ORDER BY tl.timestamp, tl.id")
+    List<TimeLogRow> findRowsByUserAndTimestampBetweenAfter(@Param("user") User user,
+                                                            @Param("start") LocalDateTime start,
+                                                            @Param("end") LocalDateTime end,
+                                                            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                            @Param("afterId") Long afterId,
+                                                            Pageable pageable);
 
     // Busca el último registro de un usuario para validar el estado actual (trabajando, en almuerzo, etc.)
     Optional<TimeLog> findTopByUserOrderByTimestampDesc(User user);
-    @Query("SELECT COUNT(DISTINCT tl.user) FROM TimeLog tl WHERE tl.user.company = :company AND tl.timestamp BETWEEN :start AND :end")
-    long countActiveWorkersBetween(@Param("company") Company company, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Igual, como proyección: se pide con PageRequest.of(0, 1)
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user = :user ORDER BY tl.timestamp DESC, tl.id DESC")
+    List<TimeLogRow> findLatestRowsByUser(@Param("user") User user, Pageable pageable);
 
     // Obtiene todos los registros de una compañía en un rango de fechas
-    @Query("SELECT tl FROM TimeLog tl WHERE tl.user.company = :company AND tl.timestamp BETWEEN :start AND :end ORDER BY tl.user.id, tl.timestamp")
-    List<TimeLog> findByCompanyAndTimestampBetween(@Param("company") Company company, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user.company = :company AND tl.timestamp BETWEEN :start AND :end " +
+            "ORDER BY tl.user.id, tl.timestamp, tl.id")
+    List<TimeLogRow> findRowsByCompanyAndTimestampBetween(@Param("company") Company company, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Igual, recorriendo el cursor por bloques de STREAM_FETCH_SIZE filas en vez de cargar todo el rango.
+    // Se consume dentro de una transacción de solo lectura y se cierra al terminar (try-with-resources).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user.company = :company AND tl.timestamp BETWEEN :start AND :end " +
+            "ORDER BY tl.user.id, tl.timestamp, tl.id")
+    Stream<TimeLogRow> streamRowsByCompanyAndTimestampBetween(@Param("company") Company company, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Registros de la compañía con el nombre del trabajador para la exportación plana (CSV/NDJSON), por cursor
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new com.apv.chronotrack.repository.TimeLogRepository$TimeLogExportRow(" +
+            "tl.id, u.id, u.fullName, tl.workWeek.id, tl.eventType, tl.timestamp) " +
+            "FROM TimeLog tl JOIN tl.user u WHERE u.company.id = :companyId AND tl.timestamp BETWEEN :start AND :end " +
+            "ORDER BY u.id, tl.timestamp, tl.id")
+    Stream<TimeLogExportRow> streamExportRowsByCompanyAndTimestampBetween(@Param("companyId") Long companyId,
+                                                                          @Param("start") LocalDateTime start,
+                                                                          @Param("end") LocalDateTime end);
 
     List<TimeLog> findByUserAndWorkWeekOrderByTimestampAsc(User user, WorkWeek workWeek);
 
+    @Query("SELECT " + ROW + " FROM TimeLog tl WHERE tl.user = :user AND tl.workWeek = :workWeek ORDER BY tl.timestamp, tl.id")
+    List<TimeLogRow> findRowsByUserAndWorkWeek(@Param("user") User user, @Param("workWeek") WorkWeek workWeek);
+
+    /**
+     * Minutos trabajados por trabajador y semana calculados en la base de datos, con las mismas
+     * reglas que PayrollCalculationService.calculateHoursForLogs: INGRESO/FINAL_ALMUERZO abren un
+     * intervalo si no hay uno abierto y SALIDA/INICIO_ALMUERZO lo cierran si lo hay.
+     * LAG da el evento anterior de cada registro: un inicio precedido de otro inicio no abre nada,
+     * así que el intervalo empieza en el último inicio que siguió a un cierre (o fue el primero).
+     * Un cierre precedido de un inicio suma los minutos completos desde ese punto.
+     * Filas: [user_id, work_week_id, worked_minutes].
+     */
+    @Query(nativeQuery = true, value = """
+            WITH punches AS (
+                SELECT t.id, t.user_id, t.work_week_id, t.timestamp,
+                       CASE WHEN t.event_type IN ('INGRESO', 'FINAL_ALMUERZO') THEN 1 ELSE 2 END AS code
+                FROM {h-schema}time_logs t
+                JOIN {h-schema}users u ON u.id = t.user_id
+                WHERE u.company_id = :companyId AND t.timestamp BETWEEN :start AND :end
+            ), paired AS (
+                SELECT p.*, LAG(p.code) OVER (PARTITION BY p.user_id, p.work_week_id ORDER BY p.timestamp, p.id) AS prev_code
+                FROM punches p
+            ), opened AS (
+                SELECT q.*, MAX(CASE WHEN q.code = 1 AND (q.prev_code IS NULL OR q.prev_code <> 1) THEN q.timestamp END)
+                           OVER (PARTITION BY q.user_id, q.work_week_id ORDER BY q.timestamp, q.id
+                                 ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS open_at
+                FROM paired q
+            )
+            SELECT o.user_id, o.work_week_id,
+                   COALESCE(SUM(CASE WHEN o.code = 2 AND o.prev_code = 1
+                       THEN FLOOR((EXTRACT(EPOCH FROM o.timestamp) - EXTRACT(EPOCH FROM o.open_at)) / 60) END), 0) AS worked_minutes
+            FROM opened o
+            GROUP BY o.user_id, o.work_week_id
+            """)
+    List<Object[]> sumWorkedMinutesByUserAndWeek(@Param("companyId") Long companyId,
+                                                 @Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end);
+
     boolean existsByUserAndEventTypeAndTimestampBetween(User user, EventType eventType, LocalDateTime start, LocalDateTime end);
+
+    // Hora del primer registro de un tipo de evento en un rango (ej. el INGRESO de hoy), para cargar el estado de marcación
+    @Query("SELECT MIN(tl.timestamp) FROM TimeLog tl WHERE tl.user = :user AND tl.eventType = :eventType AND tl.timestamp BETWEEN :start AND :end")
+    Optional<LocalDateTime> findFirstTimestamp(@Param("user") User user, @Param("eventType") EventType eventType,
+                                               @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Registros desde una fecha con la compañía y el nombre del trabajador, para reconstruir PresenceRegistry
+    @Query("SELECT new com.apv.chronotrack.repository.TimeLogRepository$PresenceRow(u.id, u.company.id, u.fullName, tl.eventType, tl.timestamp) " +
+            "FROM TimeLog tl JOIN tl.user u WHERE tl.timestamp >= :since ORDER BY tl.timestamp, tl.id")
+    List<PresenceRow> findPresenceRowsSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT new com.apv.chronotrack.repository.TimeLogRepository$PresenceRow(u.id, u.company.id, u.fullName, tl.eventType, tl.timestamp) " +
+            "FROM TimeLog tl JOIN tl.user u WHERE u.id = :userId AND tl.timestamp >= :since ORDER BY tl.timestamp, tl.id")
+    List<PresenceRow> findPresenceRowsByUserSince(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    /**
+     * Registro sin hidratar la entidad: solo los ids de sus relaciones. Lo usan las lecturas
+     * (historial, informes, nómina), que no modifican registros ni recorren user o workWeek.
+     */
+    record TimeLogRow(Long id, Long userId, Long workWeekId, EventType eventType, LocalDateTime timestamp) {
+    }
+
+    record TimeLogExportRow(Long id, Long userId, String fullName, Long workWeekId, EventType eventType, LocalDateTime timestamp) {
+    }
+
+    record PresenceRow(Long userId, Long companyId, String fullName, EventType eventType, LocalDateTime timestamp) {
+    }
 }
@@ -3,8 +3,13 @@ package com.apv.chronotrack.repository;
 import com.apv.chronotrack.models.Company;
 import com.apv.chronotrack.models.RoleName;
 import com.apv.chronotrack.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +31,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPasswordResetToken(String token);
 
     long countByCompanyAndRole_RoleName(Company company, RoleName roleName);
+
+    // Trabajador con su ubicación actual (si la tiene) en una sola fila: LEFT JOIN a la asignación vigente
+    String WORKER_ROW = "SELECT new com.apv.chronotrack.repository.UserRepository$WorkerRow(" +
+            "u.id, u.fullName, u.email, u.hourlyRate, u.accountActive, wl.id, wl.name) " +
+            "FROM User u LEFT JOIN UserWorkLocationAssignment a ON a.user = u AND a.isCurrent = true " +
+            "LEFT JOIN a.workLocation wl ";
+
+    // Usuarios de la compañía con el rol y estados indicados (true = activos, false = inactivos)
+    @Query(WORKER_ROW + "WHERE u.company.id = :companyId AND u.role.roleName = :roleName AND u.accountActive IN :active " +
+            "ORDER BY u.id")
+    List<WorkerRow> findWorkerRows(@Param("companyId") Long companyId,
+                                   @Param("roleName") RoleName roleName,
+                                   @Param("active") Collection<Boolean> active);
+
+    // Igual, por páginas: los siguientes a afterId en orden de id (índice company_id, id)
+    @Query(WORKER_ROW + "WHERE u.company.id = :companyId AND u.role.roleName = :roleName AND u.accountActive IN :active " +
+            "AND u.id > :afterId ORDER BY u.id")
+    List<WorkerRow> findWorkerRowsAfter(@Param("companyId") Long companyId,
+                                        @Param("roleName") RoleName roleName,
+                                        @Param("active") Collection<Boolean> active,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @Query(WORKER_ROW + "WHERE u.id = :userId")
+    Optional<WorkerRow> findWorkerRowById(@Param("userId") Long userId);
+
+    record WorkerRow(Long id, String fullName, String email, BigDecimal hourlyRate, boolean active,
+                     Long workLocationId, String workLocationName) {
+    }
 }
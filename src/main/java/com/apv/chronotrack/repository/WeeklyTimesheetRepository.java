@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,26 @@ public interface WeeklyTimesheetRepository extends JpaRepository<WeeklyTimesheet
     Optional<WeeklyTimesheet> findByUserAndWorkWeek(User user, WorkWeek workWeek);
     List<WeeklyTimesheet> findByUser_CompanyAndStatus(Company company, TimesheetStatus status);
 
+    // Hojas de horas con al menos un registro: excluye las creadas por adelantado en semanas sin actividad
+    @Query("SELECT ts FROM WeeklyTimesheet ts WHERE ts.user.company = :company AND ts.status = :status " +
+            "AND EXISTS (SELECT 1 FROM TimeLog tl WHERE tl.user = ts.user AND tl.workWeek = ts.workWeek)")
+    List<WeeklyTimesheet> findWithTimeLogsByCompanyAndStatus(
+            @Param("company") Company company,
+            @Param("status") TimesheetStatus status
+    );
+
+    // Estado de todas las hojas de horas de las semanas que se solapan con el rango, en una sola consulta
+    @Query("SELECT ts.user.id AS userId, ts.workWeek.id AS workWeekId, ts.status AS status " +
+            "FROM WeeklyTimesheet ts WHERE ts.workWeek.company = :company " +
+            "AND ts.workWeek.startDate <= :endDate AND ts.workWeek.endDate >= :startDate " +
+            "AND (:userId IS NULL OR ts.user.id = :userId)")
+    List<TimesheetStatusRow> findStatusesInRange(
+            @Param("company") Company company,
+            @Param("userId") Long userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
     @Query("SELECT ts FROM WeeklyTimesheet ts WHERE ts.user.company = :company " +
             "AND (:status IS NULL OR ts.status = :status) " +
             "AND (:userId IS NULL OR ts.user.id = :userId)")
@@ -32,4 +53,27 @@ public interface WeeklyTimesheetRepository extends JpaRepository<WeeklyTimesheet
             @Param("userId") Long userId,
             Pageable pageable
     );
-}
\ No newline at end of file
+
+    // Página por cursor, de la semana más reciente a la más antigua: las que van después de
+    // (afterStart, afterId) en orden (inicio de semana DESC, id DESC). Trabajador y semana vienen en la misma consulta.
+    @Query("SELECT ts FROM WeeklyTimesheet ts JOIN FETCH ts.user JOIN FETCH ts.workWeek ww " +
+            "WHERE ww.company = :company " +
+            "AND (:status IS NULL OR ts.status = :status) " +
+            "AND (:userId IS NULL OR ts.user.id = :userId) " +
+            "AND (ww.startDate < :afterStart OR (ww.startDate = :afterStart AND ts.id < :afterId)) " +
+            "ORDER BY ww.startDate DESC, ts.id DESC")
+    List<WeeklyTimesheet> findFilteredTimesheetsAfter(
+            @Param("company") Company company,
+            @Param("status") TimesheetStatus status,
+            @Param("userId") Long userId,
+            @Param("afterStart") LocalDate afterStart,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    interface TimesheetStatusRow {
+        Long getUserId();
+        Long getWorkWeekId();
+        TimesheetStatus getStatus();
+    }
+}
@@ -0,0 +1,185 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimesheetStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Acceso JDBC a weekly_worker_totals (ver WeeklyWorkerTotal). Las filas se crean con
+ * INSERT ... ON CONFLICT DO NOTHING y se bloquean con SELECT ... FOR UPDATE antes de
+ * actualizarlas, de modo que dos marcaciones de la misma semana no se pisan.
+ */
+@Repository
+public class WeeklyTotalsRepository {
+
+    private static final String COLUMNS = "user_id, work_week_id, worked_minutes, open_interval_start, last_event_at, status";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String ensureRowSql;
+    private final String lockRowSql;
+    private final String updateSql;
+    private final String updateStatusSql;
+    private final String selectPunchesSql;
+    private final String selectByWeeksSql;
+    private final String deleteByCompanySql;
+    private final String selectCompanyPunchesSql;
+    private final String insertSql;
+    private final String anyTotalSql;
+
+    private static final RowMapper<WeeklyTotal> TOTAL_MAPPER = (rs, rowNum) -> new WeeklyTotal(
+            rs.getLong("user_id"),
+            rs.getLong("work_week_id"),
+            rs.getLong("worked_minutes"),
+            toLocalDateTime(rs.getTimestamp("open_interval_start")),
+            toLocalDateTime(rs.getTimestamp("last_event_at")),
+            TimesheetStatus.valueOf(rs.getString("status")));
+
+    public WeeklyTotalsRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        String prefix = (schema == null || schema.isBlank()) ? "" : schema + ".";
+        // El estado inicial se copia de la hoja de horas, si existe
+        this.ensureRowSql = """
+                INSERT INTO %1$sweekly_worker_totals (user_id, work_week_id, worked_minutes, status)
+                SELECT :userId, :workWeekId, 0, COALESCE((
+                    SELECT ts.status FROM %1$sweekly_timesheets ts
+                    WHERE ts.user_id = :userId AND ts.work_week_id = :workWeekId), 'OPEN')
+                ON CONFLICT DO NOTHING
+                """.formatted(prefix);
+        this.lockRowSql = ("SELECT %2$s FROM %1$sweekly_worker_totals "
+                + "WHERE user_id = :userId AND work_week_id = :workWeekId FOR UPDATE").formatted(prefix, COLUMNS);
+        this.updateSql = ("UPDATE %sweekly_worker_totals SET worked_minutes = :workedMinutes, "
+                + "open_interval_start = :openIntervalStart, last_event_at = :lastEventAt "
+                + "WHERE user_id = :userId AND work_week_id = :workWeekId").formatted(prefix);
+        this.updateStatusSql = ("UPDATE %sweekly_worker_totals SET status = :status "
+                + "WHERE user_id = :userId AND work_week_id = :workWeekId").formatted(prefix);
+        this.selectPunchesSql = ("SELECT event_type, timestamp FROM %stime_logs "
+                + "WHERE user_id = :userId AND work_week_id = :workWeekId ORDER BY timestamp, id").formatted(prefix);
+        this.selectByWeeksSql = "SELECT %2$s FROM %1$sweekly_worker_totals WHERE work_week_id IN (:workWeekIds)"
+                .formatted(prefix, COLUMNS);
+        this.deleteByCompanySql = ("DELETE FROM %1$sweekly_worker_totals WHERE work_week_id IN "
+                + "(SELECT w.id FROM %1$swork_weeks w WHERE w.company_id = :companyId)").formatted(prefix);
+        this.selectCompanyPunchesSql = """
+                SELECT t.user_id, t.work_week_id, t.event_type, t.timestamp, ts.status
+                FROM %1$stime_logs t
+                JOIN %1$swork_weeks w ON w.id = t.work_week_id
+                LEFT JOIN %1$sweekly_timesheets ts ON ts.user_id = t.user_id AND ts.work_week_id = t.work_week_id
+                WHERE w.company_id = :companyId
+                ORDER BY t.user_id, t.work_week_id, t.timestamp, t.id
+                """.formatted(prefix);
+        this.insertSql = ("INSERT INTO %sweekly_worker_totals (%s) VALUES "
+                + "(:userId, :workWeekId, :workedMinutes, :openIntervalStart, :lastEventAt, :status) ON CONFLICT DO NOTHING")
+                .formatted(prefix, COLUMNS);
+        this.anyTotalSql = "SELECT 1 FROM %sweekly_worker_totals LIMIT 1".formatted(prefix);
+    }
+
+    /**
+     * Crea la fila del trabajador y semana si no existe.
+     *
+     * @return true si se ha creado en esta llamada
+     */
+    public boolean ensureRow(Long userId, Long workWeekId) {
+        return jdbcTemplate.update(ensureRowSql, keyParams(userId, workWeekId)) > 0;
+    }
+
+    /**
+     * Lee la fila bloqueándola hasta el final de la transacción.
+     */
+    public WeeklyTotal lockRow(Long userId, Long workWeekId) {
+        return jdbcTemplate.queryForObject(lockRowSql, keyParams(userId, workWeekId), TOTAL_MAPPER);
+    }
+
+    public void update(WeeklyTotal total) {
+        jdbcTemplate.update(updateSql, totalParams(total));
+    }
+
+    public void updateStatus(Long userId, Long workWeekId, TimesheetStatus status) {
+        jdbcTemplate.update(updateStatusSql, keyParams(userId, workWeekId).addValue("status", status.name()));
+    }
+
+    /**
+     * Registros del trabajador en la semana, en orden cronológico.
+     */
+    public List<Punch> findPunches(Long userId, Long workWeekId) {
+        return jdbcTemplate.query(selectPunchesSql, keyParams(userId, workWeekId), (rs, rowNum) -> new Punch(
+                EventType.valueOf(rs.getString("event_type")),
+                rs.getTimestamp("timestamp").toLocalDateTime()));
+    }
+
+    public List<WeeklyTotal> findByWorkWeekIds(Collection<Long> workWeekIds) {
+        if (workWeekIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(selectByWeeksSql, new MapSqlParameterSource("workWeekIds", workWeekIds), TOTAL_MAPPER);
+    }
+
+    public int deleteByCompany(Long companyId) {
+        return jdbcTemplate.update(deleteByCompanySql, new MapSqlParameterSource("companyId", companyId));
+    }
+
+    /**
+     * Recorre todos los registros de la compañía ordenados por trabajador, semana y fecha.
+     * Columnas: user_id, work_week_id, event_type, timestamp y status (de la hoja de horas, puede ser null).
+     */
+    public void forEachCompanyPunch(Long companyId, RowCallbackHandler handler) {
+        jdbcTemplate.query(selectCompanyPunchesSql, new MapSqlParameterSource("companyId", companyId), handler);
+    }
+
+    /**
+     * Inserta filas nuevas; si una marcación concurrente ya creó la fila, se conserva la suya.
+     */
+    public void insertAll(List<WeeklyTotal> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(insertSql, totals.stream().map(this::totalParams).toArray(SqlParameterSource[]::new));
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList(anyTotalSql, new MapSqlParameterSource(), Integer.class).isEmpty();
+    }
+
+    private MapSqlParameterSource keyParams(Long userId, Long workWeekId) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("workWeekId", workWeekId);
+    }
+
+    private MapSqlParameterSource totalParams(WeeklyTotal total) {
+        return keyParams(total.userId(), total.workWeekId())
+                .addValue("workedMinutes", total.workedMinutes())
+                .addValue("openIntervalStart", total.openIntervalStart())
+                .addValue("lastEventAt", total.lastEventAt())
+                .addValue("status", total.status().name());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    public record WeeklyTotal(Long userId,
+                              Long workWeekId,
+                              long workedMinutes,
+                              LocalDateTime openIntervalStart,
+                              LocalDateTime lastEventAt,
+                              TimesheetStatus status) {
+
+        public WeeklyTotal withProgress(long workedMinutes, LocalDateTime openIntervalStart, LocalDateTime lastEventAt) {
+            return new WeeklyTotal(userId, workWeekId, workedMinutes, openIntervalStart, lastEventAt, status);
+        }
+    }
+
+    public record Punch(EventType eventType, LocalDateTime timestamp) {
+    }
+}
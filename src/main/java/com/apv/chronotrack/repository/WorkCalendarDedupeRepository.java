@@ -0,0 +1,138 @@
+package com.apv.chronotrack.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SQL de la limpieza de semanas y hojas de horas duplicadas (ver WorkCalendarDedupeService):
+ * localiza los duplicados, mueve a la fila que se conserva lo que cuelga de las demás, las borra
+ * y crea las restricciones únicas que ddl-auto=update no pudo crear mientras hubo duplicados.
+ */
+@Repository
+public class WorkCalendarDedupeRepository {
+
+    public static final String WORK_WEEKS_UNIQUE = "uk_work_weeks_company_start";
+    public static final String TIMESHEETS_UNIQUE = "uk_weekly_timesheets_user_week";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String prefix;
+    private final String constraintExistsSql;
+    private final MapSqlParameterSource schemaParams;
+
+    public WorkCalendarDedupeRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                        @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        boolean defaultSchema = schema == null || schema.isBlank();
+        this.prefix = defaultSchema ? "" : schema + ".";
+        // Solo las restricciones de nuestras tablas: otro esquema (public, otro cliente) puede usar los mismos nombres
+        this.constraintExistsSql = """
+                SELECT COUNT(*) FROM information_schema.table_constraints
+                WHERE LOWER(constraint_schema) = LOWER(%s)
+                  AND LOWER(table_name) = :table
+                  AND LOWER(constraint_name) = :name
+                """.formatted(defaultSchema ? "current_schema()" : ":schema");
+        this.schemaParams = defaultSchema ? new MapSqlParameterSource() : new MapSqlParameterSource("schema", schema);
+    }
+
+    public record WeekRow(long id, long companyId, LocalDate startDate) {
+    }
+
+    public record TimesheetRow(long id, long userId, long workWeekId, String status, boolean hasSnapshot) {
+    }
+
+    public boolean workWeeksUniqueExists() {
+        return constraintExists("work_weeks", WORK_WEEKS_UNIQUE);
+    }
+
+    public boolean timesheetsUniqueExists() {
+        return constraintExists("weekly_timesheets", TIMESHEETS_UNIQUE);
+    }
+
+    // Semanas que comparten compañía y fecha de inicio con otra, ordenadas por grupo y por id
+    public List<WeekRow> findDuplicateWeeks() {
+        return jdbcTemplate.query("""
+                SELECT w.id, w.company_id, w.start_date FROM %1$swork_weeks w
+                WHERE EXISTS (SELECT 1 FROM %1$swork_weeks o
+                              WHERE o.company_id = w.company_id AND o.start_date = w.start_date AND o.id <> w.id)
+                ORDER BY w.company_id, w.start_date, w.id
+                """.formatted(prefix), new MapSqlParameterSource(),
+                (rs, i) -> new WeekRow(rs.getLong("id"), rs.getLong("company_id"), rs.getDate("start_date").toLocalDate()));
+    }
+
+    public List<TimesheetRow> findTimesheetsByWeekIds(Collection<Long> workWeekIds) {
+        return queryTimesheets("t.work_week_id IN (:ids)", new MapSqlParameterSource("ids", workWeekIds));
+    }
+
+    // Hojas de horas que comparten trabajador y semana con otra
+    public List<TimesheetRow> findDuplicateTimesheets() {
+        return queryTimesheets("""
+                EXISTS (SELECT 1 FROM %1$sweekly_timesheets o
+                        WHERE o.user_id = t.user_id AND o.work_week_id = t.work_week_id AND o.id <> t.id)
+                """.formatted(prefix), new MapSqlParameterSource());
+    }
+
+    public void deleteSnapshotsOfTimesheets(Collection<Long> timesheetIds) {
+        jdbcTemplate.update("DELETE FROM %spayroll_snapshots WHERE timesheet_id IN (:ids)".formatted(prefix),
+                new MapSqlParameterSource("ids", timesheetIds));
+    }
+
+    public void deleteTimesheets(Collection<Long> timesheetIds) {
+        jdbcTemplate.update("DELETE FROM %sweekly_timesheets WHERE id IN (:ids)".formatted(prefix),
+                new MapSqlParameterSource("ids", timesheetIds));
+    }
+
+    public void moveTimesheet(long timesheetId, long workWeekId) {
+        jdbcTemplate.update("UPDATE %sweekly_timesheets SET work_week_id = :week WHERE id = :id".formatted(prefix),
+                new MapSqlParameterSource().addValue("id", timesheetId).addValue("week", workWeekId));
+    }
+
+    /**
+     * Pasa a keepWeekId los registros y nóminas congeladas de las semanas duplicadas, descarta sus
+     * totales semanales (se reconstruyen después) y borra las semanas.
+     */
+    public void mergeWeeks(long keepWeekId, Collection<Long> duplicateWeekIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("keep", keepWeekId)
+                .addValue("ids", duplicateWeekIds);
+        jdbcTemplate.update("UPDATE %stime_logs SET work_week_id = :keep WHERE work_week_id IN (:ids)".formatted(prefix), params);
+        jdbcTemplate.update("UPDATE %spayroll_snapshots SET work_week_id = :keep WHERE work_week_id IN (:ids)".formatted(prefix), params);
+        jdbcTemplate.update("DELETE FROM %sweekly_worker_totals WHERE work_week_id IN (:ids)".formatted(prefix), params);
+        jdbcTemplate.update("DELETE FROM %swork_weeks WHERE id IN (:ids)".formatted(prefix), params);
+    }
+
+    public void addWorkWeeksUnique() {
+        jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE %swork_weeks ADD CONSTRAINT %s UNIQUE (company_id, start_date)"
+                .formatted(prefix, WORK_WEEKS_UNIQUE));
+    }
+
+    public void addTimesheetsUnique() {
+        jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE %sweekly_timesheets ADD CONSTRAINT %s UNIQUE (user_id, work_week_id)"
+                .formatted(prefix, TIMESHEETS_UNIQUE));
+    }
+
+    private boolean constraintExists(String table, String name) {
+        MapSqlParameterSource params = new MapSqlParameterSource(schemaParams.getValues())
+                .addValue("table", table)
+                .addValue("name", name);
+        Integer count = jdbcTemplate.queryForObject(constraintExistsSql, params, Integer.class);
+        return count != null && count > 0;
+    }
+
+    private List<TimesheetRow> queryTimesheets(String condition, MapSqlParameterSource params) {
+        return jdbcTemplate.query("""
+                SELECT t.id, t.user_id, t.work_week_id, t.status,
+                       EXISTS (SELECT 1 FROM %1$spayroll_snapshots s WHERE s.timesheet_id = t.id) AS has_snapshot
+                FROM %1$sweekly_timesheets t
+                WHERE %2$s
+                ORDER BY t.user_id, t.id
+                """.formatted(prefix, condition), params,
+                (rs, i) -> new TimesheetRow(rs.getLong("id"), rs.getLong("user_id"), rs.getLong("work_week_id"),
+                        rs.getString("status"), rs.getBoolean("has_snapshot")));
+    }
+}
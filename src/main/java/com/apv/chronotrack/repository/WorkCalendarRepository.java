@@ -0,0 +1,149 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.models.TimesheetStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.List;
+
+/**
+ * Alta idempotente de semanas de trabajo y hojas de horas. Los INSERT usan
+ * ON CONFLICT (company_id, start_date) / (user_id, work_week_id) DO NOTHING sobre las
+ * restricciones únicas, de modo que dos fichajes simultáneos nunca crean duplicados. Nombrar
+ * las columnas hace que PostgreSQL rechace la sentencia si falta la restricción, en lugar de
+ * insertar el duplicado en silencio (ver WorkCalendarDedupeService). Con
+ * work.calendar.conflict-columns=false se usa ON CONFLICT DO NOTHING sin columnas, la única forma
+ * que admite la base de datos embebida de las pruebas.
+ */
+@Repository
+public class WorkCalendarRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String insertWorkWeekSql;
+    private final String selectWorkWeekIdSql;
+    private final String insertTimesheetSql;
+    private final String selectTimesheetStatusSql;
+    private final String provisionWorkWeeksSql;
+    private final String provisionTimesheetsSql;
+    private final String selectWeekTimesheetsSql;
+
+    public WorkCalendarRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema,
+                                  @Value("${work.calendar.conflict-columns:true}") boolean conflictColumns) {
+        this.jdbcTemplate = jdbcTemplate;
+        String prefix = (schema == null || schema.isBlank()) ? "" : schema + ".";
+        String onWeekConflict = onConflict(conflictColumns, "company_id, start_date");
+        String onTimesheetConflict = onConflict(conflictColumns, "user_id, work_week_id");
+        this.insertWorkWeekSql = ("INSERT INTO %swork_weeks (company_id, start_date, end_date, week_number_of_year) "
+                + "VALUES (:companyId, :startDate, :endDate, :weekNumber) " + onWeekConflict).formatted(prefix);
+        this.selectWorkWeekIdSql = "SELECT id FROM %swork_weeks WHERE company_id = :companyId AND start_date = :startDate"
+                .formatted(prefix);
+        this.insertTimesheetSql = ("INSERT INTO %sweekly_timesheets (user_id, work_week_id, status) "
+                + "VALUES (:userId, :workWeekId, 'OPEN') " + onTimesheetConflict).formatted(prefix);
+        this.selectTimesheetStatusSql = "SELECT status FROM %sweekly_timesheets WHERE user_id = :userId AND work_week_id = :workWeekId"
+                .formatted(prefix);
+        this.provisionWorkWeeksSql = """
+                INSERT INTO %1$swork_weeks (company_id, start_date, end_date, week_number_of_year)
+                SELECT c.id, :startDate, :endDate, :weekNumber FROM %1$scompanies c
+                WHERE c.id IN (:companyIds)
+                %2$s
+                """.formatted(prefix, onWeekConflict);
+        this.provisionTimesheetsSql = """
+                INSERT INTO %1$sweekly_timesheets (user_id, work_week_id, status)
+                SELECT u.id, w.id, 'OPEN'
+                FROM %1$susers u
+                JOIN %1$sroles r ON r.id = u.role_id
+                JOIN %1$swork_weeks w ON w.company_id = u.company_id AND w.start_date = :startDate
+                WHERE u.company_id IN (:companyIds)
+                  AND u.is_active = TRUE
+                  AND r.role_name = 'ROLE_TRABAJADOR'
+                %2$s
+                """.formatted(prefix, onTimesheetConflict);
+        this.selectWeekTimesheetsSql = """
+                SELECT w.company_id, w.id AS work_week_id, ts.user_id, ts.status
+                FROM %1$swork_weeks w
+                LEFT JOIN %1$sweekly_timesheets ts ON ts.work_week_id = w.id
+                WHERE w.start_date = :startDate AND w.company_id IN (:companyIds)
+                """.formatted(prefix);
+    }
+
+    /**
+     * Devuelve el id de la semana (lunes a domingo) que empieza en startDate, creándola si no existe.
+     */
+    public Long findOrCreateWorkWeekId(Long companyId, LocalDate startDate) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("companyId", companyId)
+                .addValue("startDate", startDate)
+                .addValue("endDate", startDate.plusDays(6))
+                .addValue("weekNumber", startDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        jdbcTemplate.update(insertWorkWeekSql, params);
+        return jdbcTemplate.queryForObject(selectWorkWeekIdSql, params, Long.class);
+    }
+
+    /**
+     * Devuelve el estado de la hoja de horas del trabajador para la semana, creándola (OPEN) si no existe.
+     */
+    public TimesheetStatus findOrCreateTimesheetStatus(Long userId, Long workWeekId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("workWeekId", workWeekId);
+        jdbcTemplate.update(insertTimesheetSql, params);
+        return TimesheetStatus.valueOf(jdbcTemplate.queryForObject(selectTimesheetStatusSql, params, String.class));
+    }
+
+    /**
+     * Crea en bloque la semana que empieza en startDate para las compañías indicadas.
+     * Idempotente: las semanas que ya existen se ignoran.
+     *
+     * @return número de semanas creadas
+     */
+    public int provisionWorkWeeks(List<Long> companyIds, LocalDate startDate) {
+        return jdbcTemplate.update(provisionWorkWeeksSql, new MapSqlParameterSource()
+                .addValue("companyIds", companyIds)
+                .addValue("startDate", startDate)
+                .addValue("endDate", startDate.plusDays(6))
+                .addValue("weekNumber", startDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)));
+    }
+
+    /**
+     * Crea en bloque una hoja de horas OPEN para cada trabajador activo de las compañías indicadas
+     * en la semana que empieza en startDate. Idempotente: las hojas existentes no se tocan.
+     *
+     * @return número de hojas de horas creadas
+     */
+    public int provisionOpenTimesheets(List<Long> companyIds, LocalDate startDate) {
+        return jdbcTemplate.update(provisionTimesheetsSql, new MapSqlParameterSource()
+                .addValue("companyIds", companyIds)
+                .addValue("startDate", startDate));
+    }
+
+    /**
+     * Semanas y hojas de horas existentes para la semana que empieza en startDate, para precargar el calendario.
+     */
+    public void forEachWeekTimesheet(List<Long> companyIds, LocalDate startDate, WeekTimesheetConsumer consumer) {
+        jdbcTemplate.query(selectWeekTimesheetsSql, new MapSqlParameterSource()
+                .addValue("companyIds", companyIds)
+                .addValue("startDate", startDate), rs -> {
+            long userId = rs.getLong("user_id");
+            boolean hasTimesheet = !rs.wasNull();
+            consumer.accept(
+                    rs.getLong("company_id"),
+                    rs.getLong("work_week_id"),
+                    hasTimesheet ? userId : null,
+                    hasTimesheet ? TimesheetStatus.valueOf(rs.getString("status")) : null);
+        });
+    }
+
+    private static String onConflict(boolean conflictColumns, String columns) {
+        return conflictColumns ? "ON CONFLICT (" + columns + ") DO NOTHING" : "ON CONFLICT DO NOTHING";
+    }
+
+    @FunctionalInterface
+    public interface WeekTimesheetConsumer {
+        void accept(Long companyId, Long workWeekId, Long userId, TimesheetStatus status);
+    }
+}
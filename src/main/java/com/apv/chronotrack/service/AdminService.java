@@ -3,8 +3,12 @@ package com.apv.chronotrack.service;
 import com.apv.chronotrack.DTO.*;
 import com.apv.chronotrack.models.*;
 import com.apv.chronotrack.repository.*;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import com.apv.chronotrack.utils.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +28,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdminService {
 
+    private static final String WORKERS_CURSOR = "workers";
+
     // --- DEPENDENCIAS ---
     private final UserRepository userRepository;
     private final TimeLogRepository timeLogRepository;
@@ -31,28 +37,43 @@ public class AdminService {
     private final WorkWeekRepository workWeekRepository;
     private final UserWorkAssignmentRepository assignmentRepository;
     private final WorkLocationRepository workLocationRepository;
-    private final WeeklyTimesheetRepository timesheetRepository;
     private final CompanyRepository companyRepository;
+    private final PunchStateCache punchStateCache;
+    private final WorkCalendarService workCalendarService;
+    private final WeeklyTotalsService weeklyTotalsService;
+    private final PayrollComputePool computePool;
+    private final PayrollSnapshotService payrollSnapshotService;
+    private final WorkedMinutesService workedMinutesService;
+    private final DashboardStatsCache dashboardStatsCache;
+    private final PresenceRegistry presenceRegistry;
+    private final LiveEventBus liveEventBus;
+    private final CompanyLogoCache companyLogoCache;
 
     // --- MÉTODOS DE REPORTES ---
 
-    @Transactional(readOnly = true)
+    /**
+     * Estadísticas del panel: se sirven desde DashboardStatsCache, que ejecuta el cálculo en una
+     * transacción de solo lectura cuando no están en caché.
+     */
     public DashboardStatsDto getDashboardStats(User admin) {
+        return dashboardStatsCache.get(admin.getCompany().getId(), () -> computeDashboardStats(admin));
+    }
+
+    private DashboardStatsDto computeDashboardStats(User admin) {
         User freshAdmin = findFreshUser(admin);
         Company company = freshAdmin.getCompany();
 
         // Solo cuenta trabajadores, no incluye el admin
         long totalWorkers = userRepository.countByCompanyAndRole_RoleName(company, RoleName.ROLE_TRABAJADOR);
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().plusDays(1).atStartOfDay();
-        long activeWorkersToday = timeLogRepository.countActiveWorkersBetween(company, startOfDay, endOfDay);
+        // Trabajadores con algún registro hoy, desde el registro de presencia en memoria
+        long activeWorkersToday = presenceRegistry.punchedToday(company.getId());
 
         // Lógica de cálculo de nómina
         LocalDate today = LocalDate.now();
         LocalDate startOfWeek = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate endOfWeek = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
 
-        BigDecimal estimatedWeeklyPayroll = BigDecimal.ZERO;
+        long estimatedWeeklyPayrollCents = 0;
         double totalHoursThisWeek = 0.0;
 
         Optional<WorkWeek> currentWeekOpt = workWeekRepository.findByCompanyAndStartDateAndEndDate(company, startOfWeek, endOfWeek);
@@ -63,15 +84,19 @@ public class AdminService {
                     .filter(user -> user.getRole().getRoleName() == RoleName.ROLE_TRABAJADOR)
                     .collect(Collectors.toList());
 
-            List<TimeLog> weeklyLogs = timeLogRepository.findByCompanyAndTimestampBetween(company, startOfWeek.atStartOfDay(), endOfWeek.atTime(LocalTime.MAX));
-            Map<Long, List<TimeLog>> logsByWorkerId = weeklyLogs.stream().collect(Collectors.groupingBy(log -> log.getUser().getId()));
+            // Una fila de totales por trabajador en lugar de todos los registros de la semana; mientras
+            // la reconstrucción inicial de la compañía no ha terminado, los registros
+            Map<Long, Long> minutesByWorkerId = weeklyTotalsService.isComplete(company.getId())
+                    ? weeklyTotalsService.findByWorkWeekIds(List.of(currentWeek.getId())).stream()
+                            .collect(Collectors.toMap(WeeklyTotal::userId, WeeklyTotal::workedMinutes))
+                    : workedMinutesService.minutesByWeekAndWorker(company, startOfWeek.atStartOfDay(), endOfWeek.atTime(LocalTime.MAX))
+                            .getOrDefault(currentWeek.getId(), Map.of());
 
+            // El estado de la hoja de horas no cambia el importe: se suma en centavos sin construir DTOs
             for (User worker : workers) {
-                List<TimeLog> workerLogsForWeek = logsByWorkerId.getOrDefault(worker.getId(), List.of());
-                // Llama al servicio de cálculo correcto
-                WeeklyPaySummaryDto weeklySummary = payrollService.calculateWeeklyPay(worker, currentWeek, workerLogsForWeek);
-                totalHoursThisWeek += weeklySummary.getTotalHours();
-                estimatedWeeklyPayroll = estimatedWeeklyPayroll.add(weeklySummary.getTotalPay());
+                long workedMinutes = minutesByWorkerId.getOrDefault(worker.getId(), 0L);
+                totalHoursThisWeek += PunchHoursEngine.toHours(workedMinutes);
+                estimatedWeeklyPayrollCents += PayEngine.weeklyPayCents(PayEngine.rateCents(worker.getHourlyRate()), workedMinutes);
             }
         }
 
@@ -79,10 +104,17 @@ public class AdminService {
                 .totalWorkers(totalWorkers)
                 .activeWorkersToday(activeWorkersToday)
                 .totalHoursThisWeek(totalHoursThisWeek)
-                .estimatedWeeklyPayroll(estimatedWeeklyPayroll.setScale(2, RoundingMode.HALF_UP))
+                .estimatedWeeklyPayroll(PayEngine.toAmount(estimatedWeeklyPayrollCents))
                 .build();
     }
 
+    /**
+     * Quién está trabajando, en el almuerzo o ya ha salido hoy, sin consultar la base de datos.
+     */
+    public PresenceDto getPresence(User admin) {
+        return presenceRegistry.snapshot(admin.getCompany().getId());
+    }
+
     @Transactional(readOnly = true)
     public ConsolidatedPayrollReportDto generateConsolidatedPayrollReport(LocalDate startDate, LocalDate endDate, User admin) {
         User freshAdmin = findFreshUser(admin);
@@ -93,43 +125,61 @@ public class AdminService {
                 .filter(user -> user.getRole().getRoleName() == RoleName.ROLE_TRABAJADOR)
                 .collect(Collectors.toList());
 
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-        List<TimeLog> allLogsInRange = timeLogRepository.findByCompanyAndTimestampBetween(company, startDateTime, endDateTime);
-        Map<Long, List<TimeLog>> logsByWorkerId = allLogsInRange.stream()
-                .collect(Collectors.groupingBy(log -> log.getUser().getId()));
-
-        Map<Long, ConsolidatedPayrollEntryDto> consolidatedEntries = workers.stream()
-                .collect(Collectors.toMap(User::getId, user -> new ConsolidatedPayrollEntryDto(user.getId(), user.getFullName())));
-
-        for (User worker : workers) {
-            List<TimeLog> workerLogs = logsByWorkerId.getOrDefault(worker.getId(), List.of());
-            for (WorkWeek week : weeksInRange) {
-                List<TimeLog> logsForThisWeek = workerLogs.stream()
-                        .filter(log -> log.getWorkWeek().getId().equals(week.getId()))
-                        .collect(Collectors.toList());
+        // Minutos trabajados por semana y trabajador. Las semanas completas dentro del rango se leen
+        // de weekly_worker_totals; solo las parciales (rango que no empieza en lunes o no acaba en
+        // domingo) necesitan los registros, y se consultan solo los días de esas semanas. Si la
+        // reconstrucción inicial de la compañía está pendiente, todo el rango sale de los registros.
+        Map<Long, Map<Long, Long>> minutesByWeekAndWorker = new HashMap<>();
+        List<Long> fullWeekIds = new ArrayList<>();
+        List<WorkWeek> partialWeeks = new ArrayList<>();
+        for (WorkWeek week : weeksInRange) {
+            if (isFullyInRange(week, startDate, endDate)) {
+                fullWeekIds.add(week.getId());
+            } else {
+                partialWeeks.add(week);
+            }
+        }
 
-                if (logsForThisWeek.isEmpty()) continue;
+        // Semanas aprobadas: la nómina congelada al aprobar sustituye al cálculo
+        Map<Long, Map<Long, PayrollSnapshot>> snapshotsByWeekAndWorker = payrollSnapshotService.findByWorkWeekIds(fullWeekIds);
 
-                WeeklyPaySummaryDto weeklySummary = payrollService.calculateWeeklyPay(worker, week, logsForThisWeek);
+        if (weeklyTotalsService.isComplete(company.getId())) {
+            for (WeeklyTotal total : weeklyTotalsService.findByWorkWeekIds(fullWeekIds)) {
+                minutesByWeekAndWorker.computeIfAbsent(total.workWeekId(), id -> new HashMap<>())
+                        .put(total.userId(), total.workedMinutes());
+            }
 
-                ConsolidatedPayrollEntryDto entry = consolidatedEntries.get(worker.getId());
-                entry.setTotalRegularHours(entry.getTotalRegularHours() + weeklySummary.getRegularHours());
-                entry.setTotalOvertimeHours(entry.getTotalOvertimeHours() + weeklySummary.getOvertimeHours());
-                entry.setTotalHours(entry.getTotalHours() + weeklySummary.getTotalHours());
-                entry.setTotalPay(entry.getTotalPay().add(weeklySummary.getTotalPay()));
+            for (WorkWeek week : partialWeeks) {
+                LocalDate from = week.getStartDate().isBefore(startDate) ? startDate : week.getStartDate();
+                LocalDate to = week.getEndDate().isAfter(endDate) ? endDate : week.getEndDate();
+                Map<Long, Long> partialMinutes = workedMinutesService
+                        .minutesByWeekAndWorker(company, from.atStartOfDay(), to.atTime(LocalTime.MAX))
+                        .getOrDefault(week.getId(), Map.of());
+                minutesByWeekAndWorker.computeIfAbsent(week.getId(), id -> new HashMap<>()).putAll(partialMinutes);
             }
+        } else {
+            minutesByWeekAndWorker.putAll(workedMinutesService
+                    .minutesByWeekAndWorker(company, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)));
         }
 
-        BigDecimal grandTotalPay = consolidatedEntries.values().stream()
-                .map(ConsolidatedPayrollEntryDto::getTotalPay)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Cada trabajador se calcula de forma independiente; con muchos trabajadores x semanas
+        // se reparte en el pool de nómina. Las entradas salen ordenadas por id de trabajador.
+        List<User> sortedWorkers = new ArrayList<>(workers);
+        sortedWorkers.sort(Comparator.comparing(User::getId));
+        List<ConsolidatedPayrollEntryDto> entries = computePool.map(sortedWorkers, (long) sortedWorkers.size() * weeksInRange.size(),
+                worker -> consolidatedEntry(worker, weeksInRange, minutesByWeekAndWorker, snapshotsByWeekAndWorker));
+
+        BigDecimal grandTotalPay = BigDecimal.ZERO;
+        for (ConsolidatedPayrollEntryDto entry : entries) {
+            grandTotalPay = grandTotalPay.add(entry.getTotalPay());
+        }
 
         return ConsolidatedPayrollReportDto.builder()
                 .startDate(startDate)
                 .endDate(endDate)
-                .entries(new java.util.ArrayList<>(consolidatedEntries.values()))
+                .entries(entries)
                 .grandTotalPay(grandTotalPay)
+                .companyId(company.getId())
                 .companyName(company.getCompanyName())
                 .companyAddress(company.getAddress())
                 .companyPhoneNumber(company.getPhoneNumber())
@@ -145,33 +195,42 @@ public class AdminService {
         List<WorkWeek> weeksInRange = workWeekRepository.findOverlappingWeeks(company, startDate, endDate);
         LocalDateTime startDateTime = startDate.atStartOfDay();
         LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
-        List<TimeLog> allLogs = timeLogRepository.findByUserAndTimestampBetweenOrderByTimestampAsc(worker, startDateTime, endDateTime);
+        // Proyecciones de solo lectura: el informe no modifica registros ni necesita sus relaciones
+        List<TimeLogRow> allLogs = timeLogRepository.findRowsByUserAndTimestampBetween(worker, startDateTime, endDateTime);
 
-        Map<Long, List<TimeLog>> logsByWeekId = allLogs.stream()
-                .collect(Collectors.groupingBy(log -> log.getWorkWeek().getId()));
+        Map<Long, List<TimeLogRow>> logsByWeekId = allLogs.stream()
+                .collect(Collectors.groupingBy(TimeLogRow::workWeekId));
 
-        List<WeeklyPaySummaryDto> weeklySummaries = weeksInRange.stream()
-                .map(week -> {
-                    List<TimeLog> logsForWeek = logsByWeekId.getOrDefault(week.getId(), List.of());
-                    return payrollService.calculateWeeklyPay(worker, week, logsForWeek);
-                })
+        // Las semanas aprobadas y completas dentro del rango salen de la nómina congelada
+        List<Long> fullWeekIds = weeksInRange.stream()
+                .filter(week -> isFullyInRange(week, startDate, endDate))
+                .map(WorkWeek::getId)
                 .collect(Collectors.toList());
+        Map<Long, PayrollSnapshot> snapshotsByWeekId = payrollSnapshotService.findByWorker(worker, fullWeekIds);
+
+        TimesheetStatuses statuses = payrollService.findTimesheetStatuses(company, worker.getId(), startDate, endDate);
+        List<WeeklyPaySummaryDto> weeklySummaries = payrollService.calculateWeeklyPays(worker, weeksInRange, logsByWeekId, statuses, snapshotsByWeekId);
 
-        Map<LocalDate, List<TimeLog>> logsByDay = allLogs.stream()
-                .collect(Collectors.groupingBy(log -> log.getTimestamp().toLocalDate()));
+        Map<LocalDate, List<TimeLogRow>> logsByDay = allLogs.stream()
+                .collect(Collectors.groupingBy(log -> log.timestamp().toLocalDate()));
         Map<Long, List<DailySummaryDto>> dailySummariesByWeek = new HashMap<>();
         String currentLocationName = assignmentRepository.findByUserAndIsCurrentTrue(worker)
                 .map(assignment -> assignment.getWorkLocation().getName())
                 .orElse("N/A");
 
-        for (Map.Entry<LocalDate, List<TimeLog>> entry : logsByDay.entrySet()) {
+        long currentRateCents = PayEngine.rateCents(worker.getHourlyRate());
+
+        for (Map.Entry<LocalDate, List<TimeLogRow>> entry : logsByDay.entrySet()) {
             LocalDate day = entry.getKey();
-            List<TimeLog> dailyLogs = entry.getValue();
+            List<TimeLogRow> dailyLogs = entry.getValue();
+            Long weekId = findWeekIdForDate(day, weeksInRange);
+            // En una semana congelada el desglose usa la tarifa con la que se aprobó
+            PayrollSnapshot snapshot = weekId != null ? snapshotsByWeekId.get(weekId) : null;
+            long rateCents = snapshot != null ? PayEngine.rateCents(snapshot.getHourlyRate()) : currentRateCents;
 
-            // --- LLAMADA CORREGIDA ---
-            // Usa el servicio centralizado para el cálculo
-            double dailyHours = payrollService.calculateHoursForLogs(dailyLogs);
-            BigDecimal dailyPay = worker.getHourlyRate().multiply(BigDecimal.valueOf(dailyHours));
+            // Mismas reglas que el pago semanal: minutos enteros y tarifa en centavos (ver PayEngine)
+            long dailyMinutes = PunchHoursEngine.totalRowMinutes(dailyLogs);
+            double dailyHours = PunchHoursEngine.toHours(dailyMinutes);
 
             DailySummaryDto dailySummary = DailySummaryDto.builder()
                     .date(day)
@@ -185,11 +244,10 @@ public class AdminService {
                     .clockOutTime(findTimeForEvent(dailyLogs, EventType.SALIDA))
                     .clockOutLogId(findLogIdForEvent(dailyLogs, EventType.SALIDA))
                     .totalHours(dailyHours)
-                    .dailyRate(worker.getHourlyRate())
-                    .totalPay(dailyPay.setScale(2, RoundingMode.HALF_UP))
+                    .dailyRate(PayEngine.toAmount(rateCents))
+                    .totalPay(PayEngine.toAmount(PayEngine.payCents(rateCents, dailyMinutes)))
                     .build();
 
-            Long weekId = findWeekIdForDate(day, weeksInRange);
             if (weekId != null) {
                 dailySummariesByWeek.computeIfAbsent(weekId, k -> new ArrayList<>()).add(dailySummary);
             }
@@ -205,6 +263,7 @@ public class AdminService {
                 .workerName(worker.getFullName())
                 .startDate(startDate)
                 .endDate(endDate)
+                .companyId(company.getId())
                 .companyName(company.getCompanyName())
                 .companyAddress(company.getAddress())
                 .companyPhoneNumber(company.getPhoneNumber())
@@ -215,7 +274,7 @@ public class AdminService {
                         .collect(Collectors.toMap(
                                 Map.Entry::getKey,
                                 e -> e.getValue().stream()
-                                        .map(log -> new TimeLogDTO(log.getId(), log.getEventType(), log.getTimestamp(), log.getWorkWeek().getId()))
+                                        .map(log -> new TimeLogDTO(log.id(), log.eventType(), log.timestamp(), log.workWeekId()))
                                         .collect(Collectors.toList())
                         )))
                 .grandTotalHours(grandTotalHours)
@@ -229,20 +288,37 @@ public class AdminService {
 
     @Transactional(readOnly = true)
     public List<WorkerDto> listWorkers(User admin, String status) {
-        User freshAdmin = findFreshUser(admin);
-        Company company = freshAdmin.getCompany();
-        List<User> workers;
+        // Rol, estado y ubicación actual se resuelven en la consulta: una sola ida a la base de datos
+        return userRepository.findWorkerRows(admin.getCompany().getId(), RoleName.ROLE_TRABAJADOR, activeStatuses(status)).stream()
+                .map(this::toWorkerDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Igual que listWorkers, por páginas de hasta limit trabajadores en orden de id. El cursor es
+     * el nextCursor de la página anterior (null para la primera).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<WorkerDto> listWorkersPage(User admin, String status, String cursor, Integer limit) {
+        PageCursor after = PageCursor.decode(cursor, WORKERS_CURSOR, 1);
+        int pageSize = PageCursor.limit(limit);
+        List<UserRepository.WorkerRow> rows = userRepository.findWorkerRowsAfter(admin.getCompany().getId(),
+                RoleName.ROLE_TRABAJADOR, activeStatuses(status), after != null ? after.longAt(0) : 0L,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<UserRepository.WorkerRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? PageCursor.encode(WORKERS_CURSOR, page.get(pageSize - 1).id()) : null;
+        return new CursorPageDto<>(page.stream().map(this::toWorkerDto).collect(Collectors.toList()), nextCursor, hasMore);
+    }
+
+    private List<Boolean> activeStatuses(String status) {
         if ("INACTIVE".equalsIgnoreCase(status)) {
-            workers = userRepository.findByCompanyAndAccountActiveFalse(company);
-        } else if ("ALL".equalsIgnoreCase(status)) {
-            workers = userRepository.findByCompany(company);
-        } else {
-            workers = userRepository.findByCompanyAndAccountActiveTrue(company);
+            return List.of(false);
         }
-        return workers.stream()
-                .filter(user -> user.getRole().getRoleName() == RoleName.ROLE_TRABAJADOR) // Asumiendo ROLE_TRABAJADOR
-                .map(this::convertToWorkerDto)
-                .collect(Collectors.toList());
+        if ("ALL".equalsIgnoreCase(status)) {
+            return List.of(true, false);
+        }
+        return List.of(true);
     }
 
     @Transactional(readOnly = true)
@@ -275,6 +351,7 @@ public class AdminService {
             assignmentRepository.save(newAssignment);
         }
         User updatedWorker = userRepository.save(worker);
+        dashboardStatsCache.invalidate(worker.getCompany().getId());
         return convertToWorkerDto(updatedWorker);
     }
 
@@ -283,23 +360,27 @@ public class AdminService {
         User worker = findWorkerAndVerifyCompany(workerId, admin);
         worker.setAccountActive(false);
         userRepository.save(worker);
+        dashboardStatsCache.invalidate(worker.getCompany().getId());
+        presenceRegistry.remove(worker.getCompany().getId(), worker.getId());
     }
 
     @Transactional
     public TimeLogDTO performManualTimeCorrection(ManualTimeLogRequestDto request, User admin) {
         User worker = findWorkerAndVerifyCompany(request.getWorkerId(), admin);
-        WorkWeek workWeek = findOrCreateWorkWeekForDate(request.getTimestamp().toLocalDate(), worker.getCompany());
-        WeeklyTimesheet timesheet = findOrCreateTimesheet(worker, workWeek);
-        if (timesheet.getStatus() == TimesheetStatus.APPROVED) {
+        WorkWeek workWeek = workCalendarService.findOrCreateWorkWeek(worker.getCompany(), request.getTimestamp().toLocalDate());
+        TimesheetStatus timesheetStatus = workCalendarService.findOrCreateTimesheetStatus(worker.getId(), workWeek.getId());
+        if (timesheetStatus == TimesheetStatus.APPROVED) {
             throw new IllegalStateException("Action denied: cannot modify a record from an already approved week.");
         }
         TimeLog timeLog;
+        Long previousWorkWeekId = null;
         if (request.getTimeLogIdToEdit() != null) {
             timeLog = timeLogRepository.findById(request.getTimeLogIdToEdit())
                     .orElseThrow(() -> new EntityNotFoundException("Time log record not found."));
             if (!timeLog.getUser().getId().equals(worker.getId())) {
                 throw new SecurityException("This time log does not belong to the specified worker.");
             }
+            previousWorkWeekId = timeLog.getWorkWeek().getId();
             timeLog.setEventType(request.getEventType());
             timeLog.setTimestamp(request.getTimestamp());
         } else {
@@ -310,6 +391,15 @@ public class AdminService {
         }
         timeLog.setWorkWeek(workWeek);
         TimeLog savedLog = timeLogRepository.save(timeLog);
+        punchStateCache.invalidate(worker.getId());
+        weeklyTotalsService.recompute(worker.getId(), workWeek.getId());
+        if (previousWorkWeekId != null && !previousWorkWeekId.equals(workWeek.getId())) {
+            weeklyTotalsService.recompute(worker.getId(), previousWorkWeekId);
+        }
+        dashboardStatsCache.invalidate(worker.getCompany().getId());
+        presenceRegistry.reload(worker.getCompany().getId(), worker.getId());
+        liveEventBus.publish(worker.getCompany().getId(), LiveEventDto.timeLogCorrected(worker.getId(), worker.getFullName(),
+                workWeek.getId(), savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp()));
         return new TimeLogDTO(savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp(), savedLog.getWorkWeek().getId());
     }
 
@@ -317,12 +407,40 @@ public class AdminService {
     public void deleteTimeLog(Long timeLogId, User admin) {
         TimeLog timeLog = timeLogRepository.findById(timeLogId)
                 .orElseThrow(() -> new EntityNotFoundException("Time log record not found."));
-        findWorkerAndVerifyCompany(timeLog.getUser().getId(), admin);
-        WeeklyTimesheet timesheet = findOrCreateTimesheet(timeLog.getUser(), timeLog.getWorkWeek());
-        if (timesheet.getStatus() == TimesheetStatus.APPROVED) {
+        User worker = findWorkerAndVerifyCompany(timeLog.getUser().getId(), admin);
+        TimesheetStatus timesheetStatus = workCalendarService.findOrCreateTimesheetStatus(timeLog.getUser().getId(), timeLog.getWorkWeek().getId());
+        if (timesheetStatus == TimesheetStatus.APPROVED) {
             throw new IllegalStateException("Action denied: cannot delete a record from an already approved week.");
         }
         timeLogRepository.delete(timeLog);
+        punchStateCache.invalidate(timeLog.getUser().getId());
+        weeklyTotalsService.recompute(timeLog.getUser().getId(), timeLog.getWorkWeek().getId());
+        dashboardStatsCache.invalidate(worker.getCompany().getId());
+        presenceRegistry.reload(worker.getCompany().getId(), worker.getId());
+        liveEventBus.publish(worker.getCompany().getId(), LiveEventDto.timeLogDeleted(worker.getId(), worker.getFullName(),
+                timeLog.getWorkWeek().getId(), timeLog.getId()));
+    }
+
+    /**
+     * Reconstruye los totales semanales de la compañía a partir de sus registros.
+     *
+     * @return número de filas (trabajador y semana) generadas
+     */
+    @Transactional
+    public int rebuildWeeklyTotals(User admin) {
+        User freshAdmin = findFreshUser(admin);
+        return weeklyTotalsService.rebuildCompany(freshAdmin.getCompany().getId());
+    }
+
+    /**
+     * Congela la nómina de las hojas de la compañía aprobadas antes de existir las nóminas congeladas.
+     *
+     * @return número de nóminas congeladas
+     */
+    @Transactional
+    public int backfillPayrollSnapshots(User admin) {
+        User freshAdmin = findFreshUser(admin);
+        return payrollSnapshotService.freezeMissing(freshAdmin.getCompany().getId());
     }
 
     @Transactional
@@ -331,6 +449,7 @@ public class AdminService {
         Company company = freshAdmin.getCompany();
         company.setLogoUrl(logoUrl);
         companyRepository.save(company);
+        companyLogoCache.invalidate(company.getId());
     }
 
     @Transactional(readOnly = true)
@@ -392,30 +511,35 @@ public class AdminService {
     }
 
     private WorkerDto convertToWorkerDto(User user) {
-        Optional<UserWorkLocationAssignment> currentAssignment = assignmentRepository.findByUserAndIsCurrentTrue(user);
+        return userRepository.findWorkerRowById(user.getId())
+                .map(this::toWorkerDto)
+                .orElseThrow(() -> new EntityNotFoundException("Worker not found with ID: " + user.getId()));
+    }
+
+    private WorkerDto toWorkerDto(UserRepository.WorkerRow row) {
         return WorkerDto.builder()
-                .id(user.getId())
-                .fullName(user.getFullName())
-                .email(user.getEmail())
-                .hourlyRate(user.getHourlyRate())
-                .isActive(user.isAccountActive())
-                .workLocationId(currentAssignment.map(a -> a.getWorkLocation().getId()).orElse(null))
-                .workLocationName(currentAssignment.map(a -> a.getWorkLocation().getName()).orElse("Sin Asignar"))
+                .id(row.id())
+                .fullName(row.fullName())
+                .email(row.email())
+                .hourlyRate(row.hourlyRate())
+                .isActive(row.active())
+                .workLocationId(row.workLocationId())
+                .workLocationName(row.workLocationName() != null ? row.workLocationName() : "Sin Asignar")
                 .build();
     }
 
-    private LocalTime findTimeForEvent(List<TimeLog> logs, EventType eventType) {
+    private LocalTime findTimeForEvent(List<TimeLogRow> logs, EventType eventType) {
         return logs.stream()
-                .filter(log -> log.getEventType() == eventType)
-                .map(log -> log.getTimestamp().toLocalTime())
+                .filter(log -> log.eventType() == eventType)
+                .map(log -> log.timestamp().toLocalTime())
                 .findFirst()
                 .orElse(null);
     }
 
-    private Long findLogIdForEvent(List<TimeLog> logs, EventType eventType) {
+    private Long findLogIdForEvent(List<TimeLogRow> logs, EventType eventType) {
         return logs.stream()
-                .filter(log -> log.getEventType() == eventType)
-                .map(TimeLog::getId)
+                .filter(log -> log.eventType() == eventType)
+                .map(TimeLogRow::id)
                 .findFirst()
                 .orElse(null);
     }
@@ -429,26 +553,37 @@ public class AdminService {
         return null;
     }
 
-    private WorkWeek findOrCreateWorkWeekForDate(LocalDate date, Company company) {
-        LocalDate startOfWeek = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDate endOfWeek = date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
-        return workWeekRepository.findByCompanyAndStartDateAndEndDate(company, startOfWeek, endOfWeek)
-                .orElseGet(() -> {
-                    WorkWeek newWeek = new WorkWeek();
-                    newWeek.setCompany(company);
-                    newWeek.setStartDate(startOfWeek);
-                    newWeek.setEndDate(endOfWeek);
-                    return workWeekRepository.save(newWeek);
-                });
+    private ConsolidatedPayrollEntryDto consolidatedEntry(User worker, List<WorkWeek> weeks,
+                                                          Map<Long, Map<Long, Long>> minutesByWeekAndWorker,
+                                                          Map<Long, Map<Long, PayrollSnapshot>> snapshotsByWeekAndWorker) {
+        ConsolidatedPayrollEntryDto entry = new ConsolidatedPayrollEntryDto(worker.getId(), worker.getFullName());
+        // Centavos acumulados en un long: un solo BigDecimal por trabajador
+        long rateCents = PayEngine.rateCents(worker.getHourlyRate());
+        long totalPayCents = 0;
+        for (WorkWeek week : weeks) {
+            PayrollSnapshot snapshot = snapshotsByWeekAndWorker.getOrDefault(week.getId(), Map.of()).get(worker.getId());
+            if (snapshot != null) {
+                entry.setTotalRegularHours(entry.getTotalRegularHours() + PunchHoursEngine.toHours(snapshot.getRegularMinutes()));
+                entry.setTotalOvertimeHours(entry.getTotalOvertimeHours() + PunchHoursEngine.toHours(snapshot.getOvertimeMinutes()));
+                entry.setTotalHours(entry.getTotalHours() + PunchHoursEngine.toHours(snapshot.getWorkedMinutes()));
+                totalPayCents += PayEngine.toCents(snapshot.getTotalPay());
+                continue;
+            }
+
+            Long workedMinutes = minutesByWeekAndWorker.getOrDefault(week.getId(), Map.of()).get(worker.getId());
+            // Sin fila (ningún registro esa semana) o sin minutos trabajados la semana no suma nada al consolidado
+            if (workedMinutes == null || workedMinutes == 0) continue;
+
+            entry.setTotalRegularHours(entry.getTotalRegularHours() + PunchHoursEngine.toHours(PayEngine.regularMinutes(workedMinutes)));
+            entry.setTotalOvertimeHours(entry.getTotalOvertimeHours() + PunchHoursEngine.toHours(PayEngine.overtimeMinutes(workedMinutes)));
+            entry.setTotalHours(entry.getTotalHours() + PunchHoursEngine.toHours(workedMinutes));
+            totalPayCents += PayEngine.weeklyPayCents(rateCents, workedMinutes);
+        }
+        entry.setTotalPay(PayEngine.toAmount(totalPayCents));
+        return entry;
     }
 
-    private WeeklyTimesheet findOrCreateTimesheet(User user, WorkWeek workWeek) {
-        return timesheetRepository.findByUserAndWorkWeek(user, workWeek)
-                .orElseGet(() -> {
-                    WeeklyTimesheet newTimesheet = new WeeklyTimesheet();
-                    newTimesheet.setUser(user);
-                    newTimesheet.setWorkWeek(workWeek);
-                    return timesheetRepository.save(newTimesheet);
-                });
+    private boolean isFullyInRange(WorkWeek week, LocalDate startDate, LocalDate endDate) {
+        return !week.getStartDate().isBefore(startDate) && !week.getEndDate().isAfter(endDate);
     }
-}
\ No newline at end of file
+}
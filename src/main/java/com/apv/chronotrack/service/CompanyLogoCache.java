@@ -0,0 +1,205 @@
+package com.apv.chronotrack.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Logos de compañía para la cabecera de los PDF, por (compañía, URL). Se descargan una sola vez
+ * con timeouts cortos, se guardan ya reducidos al tamaño en que se imprimen (PNG) y se expulsan
+ * por LRU cuando el total supera reports.logo.cache.max-bytes. Una URL que falla se recuerda
+ * durante reports.logo.negative-ttl-seconds para no reintentarla en cada informe; el PDF sale
+ * entonces sin logo. Al cambiar el logo de la compañía se descartan sus entradas.
+ */
+@Component
+public class CompanyLogoCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CompanyLogoCache.class);
+
+    // Caja del logo en la cabecera (puntos) y resolución de la copia guardada (2 píxeles por punto, nítido al imprimir)
+    static final int LOGO_BOX_POINTS = 80;
+    static final int LOGO_BOX_PIXELS = LOGO_BOX_POINTS * 2;
+    // Lo que se cobra al límite por cada entrada, además de sus bytes (también las negativas)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int MAX_DOWNLOAD_BYTES = 5 * 1024 * 1024;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<byte[]>> loading = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long negativeTtlNanos;
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CompanyLogoCache(@Value("${reports.logo.cache.max-bytes:8388608}") long maxBytes,
+                            @Value("${reports.logo.connect-timeout-ms:2000}") int connectTimeoutMillis,
+                            @Value("${reports.logo.read-timeout-ms:3000}") int readTimeoutMillis,
+                            @Value("${reports.logo.negative-ttl-seconds:300}") long negativeTtlSeconds) {
+        this.maxBytes = maxBytes;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.negativeTtlNanos = Duration.ofSeconds(negativeTtlSeconds).toNanos();
+    }
+
+    public record Stats(long hits, long misses, long failures, long evictions, int entries, long bytes) {
+    }
+
+    /**
+     * PNG del logo listo para la cabecera, o null si la compañía no tiene logo o no se pudo
+     * obtener. Las peticiones simultáneas del mismo logo esperan a una única descarga.
+     */
+    public byte[] get(Long companyId, String logoUrl) {
+        if (logoUrl == null || logoUrl.isBlank()) {
+            return null;
+        }
+        Key key = new Key(companyId, logoUrl);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return entry.bytes;
+            }
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> current = loading.putIfAbsent(key, mine);
+        if (current != null) {
+            return current.join();
+        }
+        misses.increment();
+        byte[] bytes = null;
+        try {
+            bytes = fetchScaled(logoUrl);
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            log.warn("Could not load company logo {}: {}", logoUrl, e.getMessage());
+        } finally {
+            put(key, bytes);
+            loading.remove(key, mine);
+            mine.complete(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Descarta los logos de la compañía tras el commit (p. ej. al subir uno nuevo).
+     */
+    public void invalidate(Long companyId) {
+        afterCommit(() -> evict(companyId));
+    }
+
+    public synchronized void evict(Long companyId) {
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Entry> entry = iterator.next();
+            if (Objects.equals(entry.getKey().companyId(), companyId)) {
+                totalBytes -= entry.getValue().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), failures.sum(), evictions.sum(), entries.size(), totalBytes);
+    }
+
+    private synchronized void put(Key key, byte[] bytes) {
+        Entry entry = new Entry(bytes, bytes != null ? Long.MAX_VALUE : System.nanoTime() + negativeTtlNanos);
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.size();
+        }
+        totalBytes += entry.size();
+        // El más antiguo sin usar primero; la entrada recién guardada se conserva aunque supere el límite sola
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            totalBytes -= evicted.getValue().size();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private byte[] fetchScaled(String logoUrl) throws IOException {
+        URLConnection connection = URI.create(logoUrl).toURL().openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        byte[] original;
+        try (InputStream in = connection.getInputStream()) {
+            original = in.readNBytes(MAX_DOWNLOAD_BYTES + 1);
+        }
+        if (original.length > MAX_DOWNLOAD_BYTES) {
+            throw new IOException("Logo larger than " + MAX_DOWNLOAD_BYTES + " bytes");
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        return toPng(scaleToFit(image));
+    }
+
+    // Solo reduce: un logo más pequeño que la caja se guarda tal cual
+    private static BufferedImage scaleToFit(BufferedImage image) {
+        double scale = Math.min(1.0, Math.min((double) LOGO_BOX_PIXELS / image.getWidth(), (double) LOGO_BOX_PIXELS / image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private record Key(Long companyId, String logoUrl) {
+    }
+
+    // bytes == null: la URL falló y no se reintenta hasta expiresAt
+    private record Entry(byte[] bytes, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return bytes == null && now - expiresAt >= 0;
+        }
+
+        long size() {
+            return (bytes != null ? bytes.length : 0) + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+}
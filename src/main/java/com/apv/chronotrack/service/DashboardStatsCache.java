@@ -0,0 +1,163 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.DashboardStatsDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Estadísticas del panel de administración por compañía, que cada pestaña abierta consulta
+ * periódicamente. Una entrada dura dashboard.cache.ttl-seconds y se invalida antes cuando
+ * cambian los datos que resume (marcaciones, correcciones de registros y trabajadores).
+ * Si varias peticiones de la misma compañía fallan a la vez, solo una calcula: las demás
+ * esperan su resultado. El cálculo se ejecuta en su propia transacción de solo lectura,
+ * así que un acierto no abre transacción ni toma una conexión.
+ * Los contadores son globales (todas las compañías) y se publican en Micrometer como
+ * cache.gets, cache.evictions y cache.size con cache=dashboardStats, no en la API.
+ */
+@Component
+public class DashboardStatsCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "dashboardStats";
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DashboardStatsCache(@Value("${dashboard.cache.ttl-seconds:30}") long ttlSeconds,
+                               PlatformTransactionManager transactionManager) {
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public record Stats(long hits, long misses, long coalesced, long invalidations, int entries) {
+    }
+
+    /**
+     * Estadísticas en caché de la compañía, o las que calcula loader si no hay o han caducado.
+     */
+    public DashboardStatsDto get(Long companyId, Supplier<DashboardStatsDto> loader) {
+        while (true) {
+            Entry current = entries.get(companyId);
+            if (current != null && !current.isExpired(System.nanoTime())) {
+                if (current.value.isDone()) {
+                    hits.increment();
+                } else {
+                    coalesced.increment();
+                }
+                return await(current);
+            }
+
+            // La entrada se publica antes de calcular: las peticiones concurrentes esperan a esta
+            Entry loading = new Entry();
+            boolean owner = current == null
+                    ? entries.putIfAbsent(companyId, loading) == null
+                    : entries.replace(companyId, current, loading);
+            if (!owner) {
+                continue;
+            }
+            misses.increment();
+            try {
+                DashboardStatsDto stats = readOnlyTransaction.execute(status -> loader.get());
+                loading.complete(stats, System.nanoTime() + ttlNanos);
+                return stats;
+            } catch (RuntimeException | Error e) {
+                entries.remove(companyId, loading);
+                loading.value.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Descarta las estadísticas de la compañía ahora y otra vez tras el commit, para que un
+     * cálculo concurrente no deje en caché datos anteriores al cambio.
+     */
+    public void invalidate(Long companyId) {
+        evict(companyId);
+        afterCommit(() -> evict(companyId));
+    }
+
+    public void evict(Long companyId) {
+        if (entries.remove(companyId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), invalidations.sum(), entries.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindGets(registry, "hit", hits);
+        bindGets(registry, "miss", misses);
+        // Fallos que esperaron el cálculo de otra petición
+        bindGets(registry, "coalesced", coalesced);
+        FunctionCounter.builder("cache.evictions", invalidations, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .description("Invalidaciones por cambios en los datos")
+                .register(registry);
+        Gauge.builder("cache.size", entries, ConcurrentHashMap::size)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+    }
+
+    private static void bindGets(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("cache.gets", counter, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static DashboardStatsDto await(Entry entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<DashboardStatsDto> value = new CompletableFuture<>();
+        // Mientras se calcula no caduca; se fija al completar
+        volatile long expiresAt;
+        volatile boolean loaded;
+
+        void complete(DashboardStatsDto stats, long expiresAt) {
+            this.expiresAt = expiresAt;
+            this.loaded = true;
+            value.complete(stats);
+        }
+
+        boolean isExpired(long now) {
+            return loaded && now - expiresAt >= 0;
+        }
+    }
+}
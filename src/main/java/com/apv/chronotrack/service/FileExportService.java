@@ -11,44 +11,50 @@ import com.lowagie.text.pdf.PdfWriter;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.apache.poi.ss.usermodel.*;
 
 import java.awt.*;
-import java.awt.Color;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Service
+@RequiredArgsConstructor
 public class FileExportService {
 
     private static final Logger log = LoggerFactory.getLogger(FileExportService.class);
     private static final DateTimeFormatter US_DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+    private static final int EXCEL_ROW_WINDOW = 100;
+    private static final int PDF_TABLE_CHUNK_ROWS = 100;
+    private static final int EXCEL_MAX_COLUMN_CHARS = 60;
+
+    private final CompanyLogoCache logoCache;
 
     // --- SHARED METHOD: Header with logo + company info ---
-    private void addCompanyHeader(Document document, String logoUrl, String companyName, String companyAddress, String companyPhoneNumber) throws DocumentException {
+    private void addCompanyHeader(Document document, Long companyId, String logoUrl, String companyName, String companyAddress, String companyPhoneNumber) throws DocumentException {
         // Narrow logo column + left-aligned info = company info sits close to logo
         PdfPTable headerTable = new PdfPTable(2);
         headerTable.setWidthPercentage(100);
         headerTable.setWidths(new float[]{1, 6});
         headerTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
 
-        // Logo from Cloudinary URL (right-aligned in its cell so it sits next to info)
+        // Logo from Cloudinary URL, already downloaded and scaled by CompanyLogoCache (right-aligned in its cell so it sits next to info)
         try {
-            if (logoUrl != null && !logoUrl.isBlank()) {
-                Image logo = Image.getInstance(new URL(logoUrl));
-                logo.scaleToFit(80, 80);
+            byte[] logoBytes = logoCache.get(companyId, logoUrl);
+            if (logoBytes != null) {
+                Image logo = Image.getInstance(logoBytes);
+                logo.scaleToFit(CompanyLogoCache.LOGO_BOX_POINTS, CompanyLogoCache.LOGO_BOX_POINTS);
                 PdfPCell logoCell = new PdfPCell(logo);
                 logoCell.setBorder(Rectangle.NO_BORDER);
                 logoCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
@@ -74,7 +80,7 @@ public class FileExportService {
         companyInfoCell.setPaddingLeft(8f);
         companyInfoCell.addElement(new Phrase(
                 companyName != null ? companyName : "",
-                FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14)));
+                PdfRenderKit.COMPANY_NAME_FONT));
         if (companyAddress != null) {
             companyInfoCell.addElement(new Phrase(companyAddress));
         }
@@ -98,17 +104,25 @@ public class FileExportService {
 
     public ByteArrayInputStream generateConsolidatedPdf(ConsolidatedPayrollReportDto report) throws DocumentException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeConsolidatedPdf(report, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Escribe el PDF consolidado directamente en out (la respuesta HTTP): cada página sale en cuanto
+     * se completa y la tabla se vuelca por bloques, así que el documento nunca está entero en memoria.
+     */
+    public void writeConsolidatedPdf(ConsolidatedPayrollReportDto report, OutputStream out) throws DocumentException {
         Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, out);
+        openStreamingWriter(document, out);
 
         document.open();
 
         // Header with logo + company info
-        addCompanyHeader(document, report.getCompanyLogoUrl(),
+        addCompanyHeader(document, report.getCompanyId(), report.getCompanyLogoUrl(),
                 report.getCompanyName(), report.getCompanyAddress(), report.getCompanyPhoneNumber());
 
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-        Paragraph title = new Paragraph("Consolidated Payroll Report", titleFont);
+        Paragraph title = new Paragraph("Consolidated Payroll Report", PdfRenderKit.TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
 
@@ -119,77 +133,96 @@ public class FileExportService {
 
         PdfPTable table = new PdfPTable(5);
         table.setWidthPercentage(100);
-        String[] headers = {"Worker", "Regular Hrs", "Overtime Hrs", "Total Hrs", "Total Pay"};
-
-        Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setBackgroundColor(Color.LIGHT_GRAY);
-            table.addCell(cell);
-        }
+        table.setComplete(false);
+        PdfRenderKit.addConsolidatedHeader(table);
 
-        Font bodyFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+        Font bodyFont = PdfRenderKit.CONSOLIDATED_BODY_FONT;
+        int rows = 0;
         for (ConsolidatedPayrollEntryDto entry : report.getEntries()) {
             table.addCell(centeredCell(entry.getWorkerName(), bodyFont));
-            table.addCell(centeredCell(String.format("%.2f", entry.getTotalRegularHours()), bodyFont));
-            table.addCell(centeredCell(String.format("%.2f", entry.getTotalOvertimeHours()), bodyFont));
-            table.addCell(centeredCell(String.format("%.2f", entry.getTotalHours()), bodyFont));
-            table.addCell(centeredCell(String.format("$%.2f", entry.getTotalPay()), bodyFont));
+            table.addCell(centeredCell(PdfRenderKit.decimal(entry.getTotalRegularHours()), bodyFont));
+            table.addCell(centeredCell(PdfRenderKit.decimal(entry.getTotalOvertimeHours()), bodyFont));
+            table.addCell(centeredCell(PdfRenderKit.decimal(entry.getTotalHours()), bodyFont));
+            table.addCell(centeredCell(PdfRenderKit.money(entry.getTotalPay()), bodyFont));
+            flushTableChunk(document, table, ++rows);
         }
 
+        table.setComplete(true);
         document.add(table);
 
         document.add(Chunk.NEWLINE);
-        Font totalFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
-        Paragraph total = new Paragraph("Grand Total: $" + report.getGrandTotalPay(), totalFont);
+        Paragraph total = new Paragraph("Grand Total: $" + report.getGrandTotalPay(), PdfRenderKit.TOTAL_FONT);
         total.setAlignment(Element.ALIGN_CENTER);
         document.add(total);
 
         document.close();
-        return new ByteArrayInputStream(out.toByteArray());
     }
 
     public ByteArrayInputStream generateConsolidatedExcel(ConsolidatedPayrollReportDto report) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
-        XSSFSheet sheet = workbook.createSheet("Consolidated Payroll");
+        writeConsolidatedExcel(report, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
 
-        String[] headers = {"Worker", "Regular Hrs", "Overtime Hrs", "Total Hrs", "Total Pay"};
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-        }
+    /**
+     * Escribe el Excel consolidado directamente en out (la respuesta HTTP), sin armar el libro
+     * ni el archivo en memoria.
+     */
+    public void writeConsolidatedExcel(ConsolidatedPayrollReportDto report, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Consolidated Payroll");
 
-        int rowIdx = 1;
-        for (ConsolidatedPayrollEntryDto entry : report.getEntries()) {
-            Row row = sheet.createRow(rowIdx++);
-            row.createCell(0).setCellValue(entry.getWorkerName());
-            row.createCell(1).setCellValue(entry.getTotalRegularHours());
-            row.createCell(2).setCellValue(entry.getTotalOvertimeHours());
-            row.createCell(3).setCellValue(entry.getTotalHours());
-            row.createCell(4).setCellValue(entry.getTotalPay().doubleValue());
-        }
+            String[] headers = {"Worker", "Regular Hrs", "Overtime Hrs", "Total Hrs", "Total Pay"};
+            int workerChars = headers[0].length();
+            for (ConsolidatedPayrollEntryDto entry : report.getEntries()) {
+                workerChars = Math.max(workerChars, length(entry.getWorkerName()));
+            }
+            setColumnWidths(sheet, workerChars, 12, 13, 10, 12);
 
-        workbook.write(out);
-        workbook.close();
-        return new ByteArrayInputStream(out.toByteArray());
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+            }
+
+            int rowIdx = 1;
+            for (ConsolidatedPayrollEntryDto entry : report.getEntries()) {
+                Row row = sheet.createRow(rowIdx++);
+                row.createCell(0).setCellValue(entry.getWorkerName());
+                row.createCell(1).setCellValue(entry.getTotalRegularHours());
+                row.createCell(2).setCellValue(entry.getTotalOvertimeHours());
+                row.createCell(3).setCellValue(entry.getTotalHours());
+                row.createCell(4).setCellValue(entry.getTotalPay().doubleValue());
+            }
+
+            workbook.write(out);
+        } finally {
+            workbook.close();
+        }
     }
 
     public ByteArrayInputStream generateDetailedPdf(DetailedPayrollReportDto report) throws DocumentException, IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeDetailedPdf(report, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * Escribe el PDF detallado directamente en out (la respuesta HTTP). Cada semana se añade al
+     * documento en cuanto se arma, así que un informe de muchas semanas empieza a descargarse enseguida.
+     */
+    public void writeDetailedPdf(DetailedPayrollReportDto report, OutputStream out) throws DocumentException {
         Document document = new Document(PageSize.A4.rotate());
-        PdfWriter.getInstance(document, out);
+        openStreamingWriter(document, out);
         document.open();
 
         // Header with logo + company info (from Cloudinary)
-        addCompanyHeader(document, report.getCompanyLogoUrl(),
+        addCompanyHeader(document, report.getCompanyId(), report.getCompanyLogoUrl(),
                 report.getCompanyName(), report.getCompanyAddress(), report.getCompanyPhoneNumber());
 
         // Report Title
-        Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-        Paragraph title = new Paragraph("Detailed Payroll Report", titleFont);
+        Paragraph title = new Paragraph("Detailed Payroll Report", PdfRenderKit.TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
 
@@ -202,30 +235,21 @@ public class FileExportService {
 
         // Weekly hours tables
         for (WeeklyPaySummaryDto weeklySummary : report.getWeeklySummaries()) {
-            Font weekFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-            Paragraph weekHeader = new Paragraph("Week: " + weeklySummary.getWorkWeek().getStartDate().format(US_DATE_FORMAT) + " - " + weeklySummary.getWorkWeek().getEndDate().format(US_DATE_FORMAT), weekFont);
+            Paragraph weekHeader = new Paragraph("Week: " + weeklySummary.getWorkWeek().getStartDate().format(US_DATE_FORMAT) + " - " + weeklySummary.getWorkWeek().getEndDate().format(US_DATE_FORMAT), PdfRenderKit.WEEK_FONT);
             weekHeader.setAlignment(Element.ALIGN_CENTER);
             document.add(weekHeader);
 
             PdfPTable table = new PdfPTable(9);
             table.setWidthPercentage(100);
             table.setSpacingBefore(10);
-            table.setWidths(new float[]{2.5f, 2f, 1f, 1.5f, 1.5f, 1f, 1.5f, 1f, 1.5f});
-
-            String[] headers = {"Date", "Workplace", "Clock In", "Lunch Start", "Lunch End", "Clock Out", "Hours", "Rate", "Daily Total"};
-            Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8);
-            for (String header : headers) {
-                PdfPCell cell = new PdfPCell(new Phrase(header, headerFont));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-                cell.setPadding(4f);
-                cell.setBackgroundColor(Color.LIGHT_GRAY);
-                table.addCell(cell);
-            }
+            table.setWidths(PdfRenderKit.DETAILED_COLUMN_WIDTHS);
+            table.setComplete(false);
+            PdfRenderKit.addDetailedHeader(table);
 
             List<DailySummaryDto> dailySummaries = report.getDailySummariesByWeek().get(weeklySummary.getWorkWeek().getId());
             if (dailySummaries != null) {
-                Font bodyFont = FontFactory.getFont(FontFactory.HELVETICA, 8);
+                Font bodyFont = PdfRenderKit.DETAILED_BODY_FONT;
+                int rows = 0;
                 for (DailySummaryDto daily : dailySummaries) {
                     table.addCell(centeredCell(daily.getDate().format(US_DATE_FORMAT), bodyFont));
                     table.addCell(centeredCell(daily.getWorkLocationName() != null ? daily.getWorkLocationName() : "N/A", bodyFont));
@@ -233,11 +257,13 @@ public class FileExportService {
                     table.addCell(centeredCell(daily.getStartLunchTime() != null ? daily.getStartLunchTime().toString().substring(0, 5) : "-", bodyFont));
                     table.addCell(centeredCell(daily.getEndLunchTime() != null ? daily.getEndLunchTime().toString().substring(0, 5) : "-", bodyFont));
                     table.addCell(centeredCell(daily.getClockOutTime() != null ? daily.getClockOutTime().toString().substring(0, 5) : "-", bodyFont));
-                    table.addCell(centeredCell(String.format("%.2f", daily.getTotalHours()), bodyFont));
-                    table.addCell(centeredCell(String.format("$%.2f", daily.getDailyRate()), bodyFont));
-                    table.addCell(centeredCell(String.format("$%.2f", daily.getTotalPay()), bodyFont));
+                    table.addCell(centeredCell(PdfRenderKit.decimal(daily.getTotalHours()), bodyFont));
+                    table.addCell(centeredCell(PdfRenderKit.money(daily.getDailyRate()), bodyFont));
+                    table.addCell(centeredCell(PdfRenderKit.money(daily.getTotalPay()), bodyFont));
+                    flushTableChunk(document, table, ++rows);
                 }
             }
+            table.setComplete(true);
             document.add(table);
 
             // Weekly Summary
@@ -246,10 +272,10 @@ public class FileExportService {
             summaryTable.setSpacingBefore(5);
             summaryTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
             summaryTable.getDefaultCell().setHorizontalAlignment(Element.ALIGN_CENTER);
-            summaryTable.addCell(new Phrase("Regular Hrs: " + String.format("%.2f", weeklySummary.getRegularHours())));
-            summaryTable.addCell(new Phrase("Overtime Hrs: " + String.format("%.2f", weeklySummary.getOvertimeHours())));
-            summaryTable.addCell(new Phrase("Total Hrs: " + String.format("%.2f", weeklySummary.getTotalHours())));
-            summaryTable.addCell(new Phrase("Weekly Pay: " + String.format("$%.2f", weeklySummary.getTotalPay()), FontFactory.getFont(FontFactory.HELVETICA_BOLD)));
+            summaryTable.addCell(new Phrase("Regular Hrs: " + PdfRenderKit.decimal(weeklySummary.getRegularHours())));
+            summaryTable.addCell(new Phrase("Overtime Hrs: " + PdfRenderKit.decimal(weeklySummary.getOvertimeHours())));
+            summaryTable.addCell(new Phrase("Total Hrs: " + PdfRenderKit.decimal(weeklySummary.getTotalHours())));
+            summaryTable.addCell(new Phrase("Weekly Pay: " + PdfRenderKit.money(weeklySummary.getTotalPay()), PdfRenderKit.SUMMARY_BOLD_FONT));
             document.add(summaryTable);
             document.add(Chunk.NEWLINE);
         }
@@ -257,78 +283,107 @@ public class FileExportService {
         // Signature footer
         document.add(Chunk.NEWLINE);
         document.add(Chunk.NEWLINE);
+        document.add(PdfRenderKit.signatureBlock());
 
-        PdfPTable signatureTable = new PdfPTable(2);
-        signatureTable.setWidthPercentage(80);
-        signatureTable.setHorizontalAlignment(Element.ALIGN_CENTER);
-        signatureTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
-
-        PdfPCell elaboratedCell = new PdfPCell(new Paragraph("\n\n\n______________________________\nPrepared by"));
-        elaboratedCell.setBorder(Rectangle.NO_BORDER);
-        elaboratedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        signatureTable.addCell(elaboratedCell);
-
-        PdfPCell receivedCell = new PdfPCell(new Paragraph("\n\n\n______________________________\nReceived by (Worker Signature)"));
-        receivedCell.setBorder(Rectangle.NO_BORDER);
-        receivedCell.setHorizontalAlignment(Element.ALIGN_CENTER);
-        signatureTable.addCell(receivedCell);
+        document.close();
+    }
 
-        document.add(signatureTable);
+    // El cierre del documento no cierra out: el stream de la respuesta lo gestiona quien lo abrió
+    private void openStreamingWriter(Document document, OutputStream out) {
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+    }
 
-        document.close();
-        return new ByteArrayInputStream(out.toByteArray());
+    // Con la tabla incompleta, document.add maqueta las filas acumuladas y las suelta: la tabla no crece con el informe
+    private void flushTableChunk(Document document, PdfPTable table, int rows) {
+        if (rows % PDF_TABLE_CHUNK_ROWS == 0) {
+            document.add(table);
+        }
     }
 
     public ByteArrayInputStream generateDetailedExcel(DetailedPayrollReportDto report) throws IOException {
-        XSSFWorkbook workbook = new XSSFWorkbook();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
-        XSSFSheet sheet = workbook.createSheet("Detailed Report");
-
-        CellStyle headerStyle = workbook.createCellStyle();
-        XSSFFont headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-
-        String[] headers = {"Date", "Workplace", "Clock In", "Lunch Start", "Lunch End", "Clock Out", "Hours Worked", "Rate", "Daily Total"};
-        Row headerRow = sheet.createRow(0);
-        for (int i = 0; i < headers.length; i++) {
-            Cell cell = headerRow.createCell(i);
-            cell.setCellValue(headers[i]);
-            cell.setCellStyle(headerStyle);
-        }
+        writeDetailedExcel(report, out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
 
-        int rowIdx = 1;
-        for (WeeklyPaySummaryDto weeklySummary : report.getWeeklySummaries()) {
-            List<DailySummaryDto> dailySummaries = report.getDailySummariesByWeek().get(weeklySummary.getWorkWeek().getId());
-            if (dailySummaries != null) {
+    /**
+     * Escribe el Excel detallado directamente en out (la respuesta HTTP), sin armar el libro
+     * ni el archivo en memoria.
+     */
+    public void writeDetailedExcel(DetailedPayrollReportDto report, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newStreamingWorkbook();
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Detailed Report");
+
+            CellStyle headerStyle = workbook.createCellStyle();
+            org.apache.poi.ss.usermodel.Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            String[] headers = {"Date", "Workplace", "Clock In", "Lunch Start", "Lunch End", "Clock Out", "Hours Worked", "Rate", "Daily Total"};
+            int workplaceChars = headers[1].length();
+            for (List<DailySummaryDto> dailySummaries : report.getDailySummariesByWeek().values()) {
                 for (DailySummaryDto daily : dailySummaries) {
-                    Row row = sheet.createRow(rowIdx++);
-                    row.createCell(0).setCellValue(daily.getDate().format(US_DATE_FORMAT));
-                    row.createCell(1).setCellValue(daily.getWorkLocationName() != null ? daily.getWorkLocationName() : "N/A");
-                    row.createCell(2).setCellValue(daily.getClockInTime() != null ? daily.getClockInTime().toString().substring(0, 5) : "-");
-                    row.createCell(3).setCellValue(daily.getStartLunchTime() != null ? daily.getStartLunchTime().toString().substring(0, 5) : "-");
-                    row.createCell(4).setCellValue(daily.getEndLunchTime() != null ? daily.getEndLunchTime().toString().substring(0, 5) : "-");
-                    row.createCell(5).setCellValue(daily.getClockOutTime() != null ? daily.getClockOutTime().toString().substring(0, 5) : "-");
-                    row.createCell(6).setCellValue(daily.getTotalHours());
-                    row.createCell(7).setCellValue(daily.getDailyRate().doubleValue());
-                    row.createCell(8).setCellValue(daily.getTotalPay().doubleValue());
+                    workplaceChars = Math.max(workplaceChars, length(daily.getWorkLocationName()));
                 }
             }
+            setColumnWidths(sheet, 10, workplaceChars, 8, 11, 9, 15, 12, 8, 11);
 
-            Row summaryRow = sheet.createRow(rowIdx++);
-            summaryRow.createCell(5).setCellValue("Weekly Summary:");
-            summaryRow.createCell(6).setCellValue(weeklySummary.getTotalHours());
-            summaryRow.createCell(8).setCellValue(weeklySummary.getTotalPay().doubleValue());
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
 
-            sheet.createRow(rowIdx++);
+            int rowIdx = 1;
+            for (WeeklyPaySummaryDto weeklySummary : report.getWeeklySummaries()) {
+                List<DailySummaryDto> dailySummaries = report.getDailySummariesByWeek().get(weeklySummary.getWorkWeek().getId());
+                if (dailySummaries != null) {
+                    for (DailySummaryDto daily : dailySummaries) {
+                        Row row = sheet.createRow(rowIdx++);
+                        row.createCell(0).setCellValue(daily.getDate().format(US_DATE_FORMAT));
+                        row.createCell(1).setCellValue(daily.getWorkLocationName() != null ? daily.getWorkLocationName() : "N/A");
+                        row.createCell(2).setCellValue(daily.getClockInTime() != null ? daily.getClockInTime().toString().substring(0, 5) : "-");
+                        row.createCell(3).setCellValue(daily.getStartLunchTime() != null ? daily.getStartLunchTime().toString().substring(0, 5) : "-");
+                        row.createCell(4).setCellValue(daily.getEndLunchTime() != null ? daily.getEndLunchTime().toString().substring(0, 5) : "-");
+                        row.createCell(5).setCellValue(daily.getClockOutTime() != null ? daily.getClockOutTime().toString().substring(0, 5) : "-");
+                        row.createCell(6).setCellValue(daily.getTotalHours());
+                        row.createCell(7).setCellValue(daily.getDailyRate().doubleValue());
+                        row.createCell(8).setCellValue(daily.getTotalPay().doubleValue());
+                    }
+                }
+
+                Row summaryRow = sheet.createRow(rowIdx++);
+                summaryRow.createCell(5).setCellValue("Weekly Summary:");
+                summaryRow.createCell(6).setCellValue(weeklySummary.getTotalHours());
+                summaryRow.createCell(8).setCellValue(weeklySummary.getTotalPay().doubleValue());
+
+                sheet.createRow(rowIdx++);
+            }
+
+            workbook.write(out);
+        } finally {
+            workbook.close();
         }
+    }
+
+    // Libro por ventanas: solo EXCEL_ROW_WINDOW filas en memoria; las anteriores se vuelcan a un temporal comprimido
+    private SXSSFWorkbook newStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
 
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
+    // Anchos calculados a partir del texto más largo de cada columna (autoSizeColumn mide cada celda con AWT y no ve las filas ya volcadas)
+    private void setColumnWidths(SXSSFSheet sheet, int... chars) {
+        for (int i = 0; i < chars.length; i++) {
+            sheet.setColumnWidth(i, Math.min(chars[i] + 2, EXCEL_MAX_COLUMN_CHARS) * 256);
         }
+    }
 
-        workbook.write(out);
-        workbook.close();
-        return new ByteArrayInputStream(out.toByteArray());
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
     }
 }
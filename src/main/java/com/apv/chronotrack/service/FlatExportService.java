@@ -0,0 +1,135 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.*;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogExportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Exportaciones planas (CSV y NDJSON) para integradores de nómina: una fila por trabajador en el
+ * consolidado, una por día en el detallado y una por registro en los fichajes en bruto. Todo se
+ * escribe fila a fila en el stream de la respuesta; los fichajes salen de un cursor de la base de
+ * datos, así que la memoria no depende del tamaño del rango. Fechas y horas en ISO-8601.
+ */
+@Service
+@RequiredArgsConstructor
+public class FlatExportService {
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        // Segmento de la URL (csv, ndjson)
+        public static Format fromPath(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final DateTimeFormatter CLOCK_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final TimeLogRepository timeLogRepository;
+
+    public void writeConsolidated(ConsolidatedPayrollReportDto report, Format format, OutputStream out, boolean gzip) throws IOException {
+        FlatRowWriter rows = new FlatRowWriter(format, out, gzip);
+        rows.header("worker_id", "worker_name", "period_start", "period_end",
+                "regular_hours", "overtime_hours", "total_hours", "total_pay");
+        for (ConsolidatedPayrollEntryDto entry : report.getEntries()) {
+            rows.number(entry.getWorkerId())
+                    .text(entry.getWorkerName())
+                    .text(report.getStartDate())
+                    .text(report.getEndDate())
+                    .decimal(entry.getTotalRegularHours())
+                    .decimal(entry.getTotalOvertimeHours())
+                    .decimal(entry.getTotalHours())
+                    .decimal(entry.getTotalPay());
+            rows.endRow();
+        }
+        rows.finish();
+    }
+
+    public void writeDetailed(DetailedPayrollReportDto report, Format format, OutputStream out, boolean gzip) throws IOException {
+        FlatRowWriter rows = new FlatRowWriter(format, out, gzip);
+        rows.header("worker_id", "worker_name", "week_start", "week_end", "timesheet_status", "date", "workplace",
+                "clock_in", "lunch_start", "lunch_end", "clock_out", "hours", "rate", "daily_total");
+        for (WeeklyPaySummaryDto weeklySummary : report.getWeeklySummaries()) {
+            WorkWeekDto week = weeklySummary.getWorkWeek();
+            List<DailySummaryDto> dailySummaries = report.getDailySummariesByWeek().get(week.getId());
+            if (dailySummaries == null) {
+                continue;
+            }
+            for (DailySummaryDto daily : dailySummaries) {
+                rows.number(report.getWorkerId())
+                        .text(report.getWorkerName())
+                        .text(week.getStartDate())
+                        .text(week.getEndDate())
+                        .text(weeklySummary.getStatus())
+                        .text(daily.getDate())
+                        .text(daily.getWorkLocationName())
+                        .text(clock(daily.getClockInTime()))
+                        .text(clock(daily.getStartLunchTime()))
+                        .text(clock(daily.getEndLunchTime()))
+                        .text(clock(daily.getClockOutTime()))
+                        .decimal(daily.getTotalHours())
+                        .decimal(daily.getDailyRate())
+                        .decimal(daily.getTotalPay());
+                rows.endRow();
+            }
+        }
+        rows.finish();
+    }
+
+    /**
+     * Fichajes de la compañía entre start y end, ordenados por trabajador y hora. La transacción
+     * de solo lectura mantiene abierto el cursor mientras se escribe la respuesta.
+     */
+    @Transactional(readOnly = true)
+    public void writeTimeLogs(Long companyId, LocalDateTime start, LocalDateTime end, Format format, OutputStream out, boolean gzip) throws IOException {
+        FlatRowWriter rows = new FlatRowWriter(format, out, gzip);
+        rows.header("id", "worker_id", "worker_name", "work_week_id", "event_type", "timestamp");
+        try (Stream<TimeLogExportRow> logs = timeLogRepository.streamExportRowsByCompanyAndTimestampBetween(companyId, start, end)) {
+            Iterator<TimeLogExportRow> iterator = logs.iterator();
+            while (iterator.hasNext()) {
+                TimeLogExportRow log = iterator.next();
+                rows.number(log.id())
+                        .number(log.userId())
+                        .text(log.fullName())
+                        .number(log.workWeekId())
+                        .text(log.eventType())
+                        .text(TIMESTAMP_FORMAT.format(log.timestamp()));
+                rows.endRow();
+            }
+        }
+        rows.finish();
+    }
+
+    private static String clock(LocalTime time) {
+        return time != null ? CLOCK_FORMAT.format(time) : null;
+    }
+}
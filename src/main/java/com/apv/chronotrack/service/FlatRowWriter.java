@@ -0,0 +1,197 @@
+package com.apv.chronotrack.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escribe filas planas en CSV (RFC 4180, con cabecera) o NDJSON (un objeto por línea) según el
+ * formato, campo a campo y sin guardar filas: lo escrito pasa por un búfer fijo al stream de
+ * salida, opcionalmente comprimido con gzip. finish() vacía el búfer y cierra el gzip, pero nunca
+ * cierra el stream de salida, que pertenece a quien lo abrió (la respuesta HTTP).
+ */
+final class FlatRowWriter {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+            .build();
+
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+    private final JsonGenerator json;
+    private SerializableString[] keys;
+    private int column;
+
+    FlatRowWriter(FlatExportService.Format format, OutputStream out, boolean gzip) throws IOException {
+        this.gzip = gzip ? fastGzip(out) : null;
+        this.writer = new BufferedWriter(new OutputStreamWriter(gzip ? this.gzip : out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        if (format == FlatExportService.Format.NDJSON) {
+            this.json = JSON_FACTORY.createGenerator(writer);
+            this.json.setRootValueSeparator(null);
+        } else {
+            this.json = null;
+        }
+    }
+
+    /**
+     * Columnas de las filas siguientes: la cabecera en CSV y las claves de cada objeto en NDJSON.
+     */
+    void header(String... columns) throws IOException {
+        if (json != null) {
+            keys = new SerializableString[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                keys[i] = new SerializedString(columns[i]);
+            }
+            return;
+        }
+        for (String name : columns) {
+            text(name);
+        }
+        endRow();
+    }
+
+    FlatRowWriter text(String value) throws IOException {
+        if (json != null) {
+            nextKey();
+            json.writeString(value);
+        } else {
+            nextCsvField();
+            if (value != null) {
+                writeCsvText(value);
+            }
+        }
+        return this;
+    }
+
+    // Valores que ya son texto de un campo (fechas, horas, tipos de evento): van entre comillas en NDJSON
+    FlatRowWriter text(Object value) throws IOException {
+        return text(value != null ? value.toString() : null);
+    }
+
+    FlatRowWriter number(Long value) throws IOException {
+        if (json != null) {
+            nextKey();
+            if (value != null) {
+                json.writeNumber(value);
+            } else {
+                json.writeNull();
+            }
+        } else {
+            nextCsvField();
+            if (value != null) {
+                writer.write(Long.toString(value));
+            }
+        }
+        return this;
+    }
+
+    // Horas con dos decimales (HALF_UP), igual que en los informes
+    FlatRowWriter decimal(double value) throws IOException {
+        return decimal(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    FlatRowWriter decimal(BigDecimal value) throws IOException {
+        if (json != null) {
+            nextKey();
+            json.writeNumber(value);
+        } else {
+            nextCsvField();
+            if (value != null) {
+                writer.write(value.toPlainString());
+            }
+        }
+        return this;
+    }
+
+    void endRow() throws IOException {
+        if (json != null) {
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } else {
+            writer.write("\r\n");
+        }
+        column = 0;
+    }
+
+    void finish() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    // Nivel de compresión más rápido: el archivo sale algo mayor, pero la exportación deja de estar limitada por el deflate
+    private static GZIPOutputStream fastGzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_CHARS) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+    }
+
+    private void nextKey() throws IOException {
+        if (column == 0) {
+            json.writeStartObject();
+        }
+        json.writeFieldName(keys[column++]);
+    }
+
+    private void nextCsvField() throws IOException {
+        if (column++ > 0) {
+            writer.write(',');
+        }
+    }
+
+    // Entre comillas solo si hace falta (separador, comillas o salto de línea), duplicando las comillas internas.
+    // Un texto que una hoja de cálculo tomaría por fórmula (=, +, -, @, tabulador o retorno al inicio)
+    // lleva delante un apóstrofo para que se muestre como texto y no se ejecute
+    private void writeCsvText(String value) throws IOException {
+        boolean formula = !value.isEmpty() && isFormulaStart(value.charAt(0));
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean isFormulaStart(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+}
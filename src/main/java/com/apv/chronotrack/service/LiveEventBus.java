@@ -0,0 +1,199 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.LiveEventDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Bus de eventos en proceso para los paneles de administración conectados por SSE
+ * (GET /api/admin/events). Los servicios publican tras el commit; cada conexión tiene una
+ * cola acotada (live.events.buffer-size) que vacía un pool pequeño de hilos de envío, así que
+ * publicar nunca espera a un navegador lento. Si la cola de una conexión se llena, sus eventos
+ * pendientes se sustituyen por un único RESYNC: el cliente vuelve a pedir los datos en lugar
+ * de recibir un historial incompleto.
+ */
+@Component
+public class LiveEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveEventBus.class);
+
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribersByCompany = new ConcurrentHashMap<>();
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService sender;
+
+    public LiveEventBus(@Value("${live.events.buffer-size:256}") int bufferSize,
+                        @Value("${live.events.timeout-ms:1800000}") long timeoutMillis,
+                        @Value("${live.events.sender-threads:2}") int senderThreads) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Abre una conexión SSE que recibe los eventos de la compañía hasta que se cierra o caduca.
+     */
+    public SseEmitter subscribe(Long companyId) {
+        return subscribe(companyId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long companyId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(companyId, emitter);
+        subscribersByCompany.computeIfAbsent(companyId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Entrega el evento a las conexiones de la compañía cuando la transacción actual confirma.
+     */
+    public void publish(Long companyId, LiveEventDto event) {
+        afterCommit(() -> deliver(companyId, event));
+    }
+
+    public int subscriberCount(Long companyId) {
+        Set<Subscriber> subscribers = subscribersByCompany.get(companyId);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    // Comentario SSE periódico: mantiene abiertas las conexiones a través de proxies y detecta las cerradas
+    @Scheduled(fixedRateString = "${live.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subscribers : subscribersByCompany.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.heartbeat();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (Set<Subscriber> subscribers : subscribersByCompany.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        subscribersByCompany.clear();
+    }
+
+    private void deliver(Long companyId, LiveEventDto event) {
+        Set<Subscriber> subscribers = subscribersByCompany.get(companyId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByCompany.computeIfPresent(subscriber.companyId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private final class Subscriber {
+
+        private final Long companyId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<LiveEventDto> pending = new ArrayDeque<>();
+        private boolean heartbeatDue;
+        private boolean scheduled;
+        private int dropped;
+
+        Subscriber(Long companyId, SseEmitter emitter) {
+            this.companyId = companyId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(LiveEventDto event) {
+            if (pending.size() >= bufferSize) {
+                dropped += pending.size();
+                pending.clear();
+                pending.add(LiveEventDto.resync());
+            }
+            pending.add(event);
+            schedule();
+        }
+
+        synchronized void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled = false;
+            }
+        }
+
+        // Envía lo pendiente fuera del cerrojo: mientras tanto se puede seguir encolando
+        private void drain() {
+            while (true) {
+                List<LiveEventDto> batch;
+                boolean sendHeartbeat;
+                synchronized (this) {
+                    if (pending.isEmpty() && !heartbeatDue) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending);
+                    pending.clear();
+                    sendHeartbeat = heartbeatDue && batch.isEmpty();
+                    heartbeatDue = false;
+                }
+                try {
+                    if (sendHeartbeat) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    }
+                    for (LiveEventDto event : batch) {
+                        emitter.send(SseEmitter.event().name(event.type().name()).data(event));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Conexión cerrada por el cliente: se da de baja y se descartan sus eventos
+                    log.debug("Conexión SSE cerrada para la compañía {} ({} eventos descartados antes).", companyId, dropped);
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    synchronized (this) {
+                        pending.clear();
+                        scheduled = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
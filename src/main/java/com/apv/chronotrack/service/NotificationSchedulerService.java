@@ -8,6 +8,7 @@ import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +31,11 @@ public class NotificationSchedulerService {
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final AdminService adminService;
+    private final PayrollComputePool computePool;
+
+    // Conexiones de Hikari: los informes en paralelo usan como mucho la mitad y dejan el resto a las peticiones
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
 
     /**
      * Envía un recordatorio a los trabajadores cuya hoja de horas de la semana
@@ -42,9 +49,10 @@ public class NotificationSchedulerService {
 
         List<Company> companies = companyRepository.findAll();
         for (Company company : companies) {
-            // Buscamos las hojas de horas de la semana pasada que siguen abiertas
+            // Buscamos las hojas de horas con registros que siguen abiertas
+            // (las creadas por adelantado en semanas sin actividad no generan recordatorio)
             List<WeeklyTimesheet> openTimesheets = timesheetRepository
-                    .findByUser_CompanyAndStatus(company, TimesheetStatus.OPEN);
+                    .findWithTimeLogsByCompanyAndStatus(company, TimesheetStatus.OPEN);
 
             for (WeeklyTimesheet ts : openTimesheets) {
                 // Verificamos si la semana de la hoja de horas ya terminó
@@ -59,33 +67,42 @@ public class NotificationSchedulerService {
     /**
      * Envía un resumen de la nómina de la semana anterior a todos los administradores.
      * Se ejecuta todos los lunes a las 9 AM.
+     * Sin transacción propia: cada consulta de administradores y cada informe abren y cierran
+     * la suya, así que esta tarea no retiene una conexión mientras esperan los informes.
      */
     @Scheduled(cron = "0 0 9 * * MON") // 09:00 cada lunes
-    @Transactional(readOnly = true)
     public void sendAdminSummaries() {
         log.info("Ejecutando tarea: Enviando resumenes a administradores...");
         LocalDate today = LocalDate.now();
         LocalDate startOfLastWeek = today.minusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate endOfLastWeek = today.minusWeeks(1).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
 
-        List<Company> companies = companyRepository.findAll();
-        for (Company company : companies) {
-            // Buscamos a todos los administradores de esta compañía
+        // Buscamos a los administradores de cada compañía
+        List<List<User>> adminsByCompany = new ArrayList<>();
+        for (Company company : companyRepository.findAll()) {
             List<User> admins = userRepository.findByCompany(company).stream()
                     .filter(user -> user.getRole().getRoleName() == RoleName.ROLE_ADMINISTRADOR)
                     .collect(Collectors.toList());
-
             if (!admins.isEmpty()) {
-                // Usamos el primer admin para generar el reporte (todos los admins de la misma compañía verán lo mismo)
-                User representativeAdmin = admins.get(0);
+                adminsByCompany.add(admins);
+            }
+        }
 
-                // Reutilizamos nuestro servicio de reportes para generar el consolidado de la semana pasada
-                ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(startOfLastWeek, endOfLastWeek, representativeAdmin);
+        // Los informes de las compañías son independientes: se generan en el pool de nómina, cada uno
+        // en su propia transacción y por tandas, para no tener más informes (conexiones) a la vez que
+        // maxConcurrentReports. Usamos el primer admin (todos los de la compañía ven lo mismo).
+        int maxConcurrentReports = Math.max(1, connectionPoolSize / 2);
+        List<ConsolidatedPayrollReportDto> reports = new ArrayList<>(adminsByCompany.size());
+        for (int from = 0; from < adminsByCompany.size(); from += maxConcurrentReports) {
+            List<List<User>> batch = adminsByCompany.subList(from, Math.min(from + maxConcurrentReports, adminsByCompany.size()));
+            reports.addAll(computePool.map(batch,
+                    admins -> adminService.generateConsolidatedPayrollReport(startOfLastWeek, endOfLastWeek, admins.get(0))));
+        }
 
-                // Enviamos el resumen a cada administrador
-                for (User admin : admins) {
-                    emailService.sendAdminWeeklySummary(admin, report);
-                }
+        // Enviamos el resumen a cada administrador
+        for (int i = 0; i < adminsByCompany.size(); i++) {
+            for (User admin : adminsByCompany.get(i)) {
+                emailService.sendAdminWeeklySummary(admin, reports.get(i));
             }
         }
         log.info("Tarea de resumenes finalizada.");
@@ -0,0 +1,78 @@
+package com.apv.chronotrack.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Motor de pago en aritmética entera: minutos trabajados y tarifa en centavos, sin pasar por
+ * horas en double ni por BigDecimal. Cada importe se redondea una sola vez (HALF_UP al centavo)
+ * a partir de la fracción exacta tarifa x minutos / 60, así que el pago semanal y el desglose
+ * diario usan exactamente la misma regla. Las horas extra (más de 40 a la semana) se pagan
+ * a 1,5x: tarifa x 3 x minutos / 120.
+ * Los importes se convierten a BigDecimal solo al construir los DTO (toAmount).
+ */
+public final class PayEngine {
+
+    public static final long WEEKLY_REGULAR_MINUTES = 40 * 60;
+
+    private PayEngine() {
+    }
+
+    /**
+     * Tarifa por hora en centavos (hourly_rate tiene 2 decimales; si tuviera más se redondea).
+     */
+    public static long rateCents(BigDecimal hourlyRate) {
+        return toCents(hourlyRate);
+    }
+
+    /**
+     * Importe en centavos, redondeado HALF_UP si tiene más de 2 decimales.
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static long regularMinutes(long weeklyMinutes) {
+        return Math.min(weeklyMinutes, WEEKLY_REGULAR_MINUTES);
+    }
+
+    public static long overtimeMinutes(long weeklyMinutes) {
+        return Math.max(0, weeklyMinutes - WEEKLY_REGULAR_MINUTES);
+    }
+
+    /**
+     * Pago a tarifa normal de unos minutos (p. ej. un día del desglose).
+     */
+    public static long payCents(long rateCents, long minutes) {
+        return divideHalfUp(rateCents * minutes, 60);
+    }
+
+    public static long regularPayCents(long rateCents, long weeklyMinutes) {
+        return payCents(rateCents, regularMinutes(weeklyMinutes));
+    }
+
+    public static long overtimePayCents(long rateCents, long weeklyMinutes) {
+        return divideHalfUp(rateCents * 3 * overtimeMinutes(weeklyMinutes), 120);
+    }
+
+    /**
+     * Pago de la semana: parte normal más horas extra, cada una redondeada al centavo.
+     */
+    public static long weeklyPayCents(long rateCents, long weeklyMinutes) {
+        return regularPayCents(rateCents, weeklyMinutes) + overtimePayCents(rateCents, weeklyMinutes);
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Redondeo HALF_UP de numerator / denominator (denominador positivo), también para negativos
+    private static long divideHalfUp(long numerator, long denominator) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (Math.abs(remainder) * 2 >= denominator) {
+            quotient += Long.signum(numerator);
+        }
+        return quotient;
+    }
+}
@@ -2,23 +2,22 @@ package com.apv.chronotrack.service;
 
 import com.apv.chronotrack.DTO.WeeklyPaySummaryDto;
 import com.apv.chronotrack.DTO.WorkWeekDto;
-import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.Company;
+import com.apv.chronotrack.models.PayrollSnapshot;
 import com.apv.chronotrack.models.TimeLog;
 import com.apv.chronotrack.models.User;
 import com.apv.chronotrack.models.WorkWeek;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
 import com.apv.chronotrack.repository.WeeklyTimesheetRepository; // Necesitarás este
 import com.apv.chronotrack.models.WeeklyTimesheet; // Y este
 import com.apv.chronotrack.models.TimesheetStatus; // Y este
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator; // <-- Importante
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -26,8 +25,6 @@ public class PayrollCalculationService {
 
     // Asegúrate de tener este repositorio inyectado
     private final WeeklyTimesheetRepository timesheetRepository;
-    private static final double WEEKLY_HOURS_THRESHOLD = 40.0;
-    private static final BigDecimal OVERTIME_RATE_MULTIPLIER = new BigDecimal("1.5");
 
     /**
      * MÉTODO 1: CALCULAR PAGO SEMANAL
@@ -36,47 +33,88 @@ public class PayrollCalculationService {
      */
     public WeeklyPaySummaryDto calculateWeeklyPay(User user, WorkWeek week, List<TimeLog> logs) {
 
-        // 1. Llama al método robusto para calcular el total de horas
-        double totalHours = calculateHoursForLogs(logs);
-
-        double regularHours = 0;
-        double overtimeHours = 0;
-
-        if (totalHours > WEEKLY_HOURS_THRESHOLD) {
-            regularHours = WEEKLY_HOURS_THRESHOLD;
-            overtimeHours = totalHours - WEEKLY_HOURS_THRESHOLD;
-        } else {
-            regularHours = totalHours;
-        }
-
-        BigDecimal hourlyRate = user.getHourlyRate();
-        BigDecimal overtimeRate = hourlyRate.multiply(OVERTIME_RATE_MULTIPLIER);
-
-        BigDecimal regularPay = hourlyRate.multiply(BigDecimal.valueOf(regularHours));
-        BigDecimal overtimePay = overtimeRate.multiply(BigDecimal.valueOf(overtimeHours));
-        BigDecimal totalPay = regularPay.add(overtimePay).setScale(2, RoundingMode.HALF_UP);
+        // 1. Minutos trabajados según los registros
+        long workedMinutes = PunchHoursEngine.totalMinutes(logs);
 
         // 2. Buscamos el estado de la hoja de horas
         WeeklyTimesheet timesheet = timesheetRepository.findByUserAndWorkWeek(user, week).orElse(null);
         TimesheetStatus status = (timesheet != null) ? timesheet.getStatus() : TimesheetStatus.OPEN;
 
-        // 3. Construimos el DTO de la semana
-        WorkWeekDto weekDto = WorkWeekDto.builder()
-                .id(week.getId())
-                .startDate(week.getStartDate())
-                .endDate(week.getEndDate())
+        return calculateWeeklyPay(user, week, workedMinutes, status);
+    }
+
+    /**
+     * Estados de las hojas de horas de la compañía (o de un solo trabajador si userId no es null)
+     * para las semanas que se solapan con el rango, con una sola consulta.
+     */
+    public TimesheetStatuses findTimesheetStatuses(Company company, Long userId, LocalDate startDate, LocalDate endDate) {
+        return TimesheetStatuses.of(timesheetRepository.findStatusesInRange(company, userId, startDate, endDate));
+    }
+
+    /**
+     * Pago de varias semanas de un trabajador con los estados ya cargados: no consulta la base de datos.
+     * Las semanas con nómina congelada (aprobadas) se toman del snapshot; el resto se calcula con sus registros.
+     * Devuelve un resumen por semana, en el orden de weeks; las semanas sin registros salen a cero.
+     */
+    public List<WeeklyPaySummaryDto> calculateWeeklyPays(User user, List<WorkWeek> weeks,
+                                                         Map<Long, List<TimeLogRow>> logsByWeekId,
+                                                         TimesheetStatuses statuses,
+                                                         Map<Long, PayrollSnapshot> snapshotsByWeekId) {
+        List<WeeklyPaySummaryDto> summaries = new ArrayList<>(weeks.size());
+        for (WorkWeek week : weeks) {
+            PayrollSnapshot snapshot = snapshotsByWeekId.get(week.getId());
+            if (snapshot != null) {
+                summaries.add(weeklyPayFromSnapshot(user, week, snapshot));
+                continue;
+            }
+            long workedMinutes = PunchHoursEngine.totalRowMinutes(logsByWeekId.getOrDefault(week.getId(), List.of()));
+            summaries.add(calculateWeeklyPay(user, week, workedMinutes, statuses.statusOf(user.getId(), week.getId())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Resumen de una semana aprobada tal como se congeló al aprobarla.
+     */
+    public WeeklyPaySummaryDto weeklyPayFromSnapshot(User user, WorkWeek week, PayrollSnapshot snapshot) {
+        return WeeklyPaySummaryDto.builder()
+                .workWeek(toWorkWeekDto(week))
+                .workerId(user.getId())
+                .workerName(user.getFullName())
+                .totalHours(PunchHoursEngine.toHours(snapshot.getWorkedMinutes()))
+                .regularHours(PunchHoursEngine.toHours(snapshot.getRegularMinutes()))
+                .overtimeHours(PunchHoursEngine.toHours(snapshot.getOvertimeMinutes()))
+                .regularPay(snapshot.getRegularPay())
+                .overtimePay(snapshot.getOvertimePay())
+                .totalPay(snapshot.getTotalPay())
+                .status(TimesheetStatus.APPROVED)
                 .build();
+    }
+
+    /**
+     * Pago semanal a partir de minutos ya acumulados (p. ej. de weekly_worker_totals) y del estado
+     * de la hoja de horas, sin leer registros ni consultar la base de datos.
+     */
+    public WeeklyPaySummaryDto calculateWeeklyPay(User user, WorkWeek week, long workedMinutes, TimesheetStatus status) {
+        // Importes en centavos enteros (ver PayEngine); las horas solo se redondean para mostrarlas
+        long rateCents = PayEngine.rateCents(user.getHourlyRate());
+        long regularPayCents = PayEngine.regularPayCents(rateCents, workedMinutes);
+        long overtimePayCents = PayEngine.overtimePayCents(rateCents, workedMinutes);
+
+        double totalHours = PunchHoursEngine.toHours(workedMinutes);
+        double regularHours = PunchHoursEngine.toHours(PayEngine.regularMinutes(workedMinutes));
+        double overtimeHours = PunchHoursEngine.toHours(PayEngine.overtimeMinutes(workedMinutes));
 
         return WeeklyPaySummaryDto.builder()
-                .workWeek(weekDto)
+                .workWeek(toWorkWeekDto(week))
                 .workerId(user.getId())
                 .workerName(user.getFullName())
                 .totalHours(totalHours)
                 .regularHours(regularHours)
                 .overtimeHours(overtimeHours)
-                .regularPay(regularPay)
-                .overtimePay(overtimePay)
-                .totalPay(totalPay)
+                .regularPay(PayEngine.toAmount(regularPayCents))
+                .overtimePay(PayEngine.toAmount(overtimePayCents))
+                .totalPay(PayEngine.toAmount(regularPayCents + overtimePayCents))
                 .status(status) // <-- Asegúrate de que el DTO incluya el estado
                 .build();
     }
@@ -86,33 +124,15 @@ public class PayrollCalculationService {
      * Este es el método robusto y centralizado para calcular el total de horas.
      */
     public double calculateHoursForLogs(List<TimeLog> logs) {
-        double totalMinutes = 0;
-        LocalDateTime startTime = null;
-
-        // 1. Creamos una copia de la lista para poder ordenarla de forma segura.
-        List<TimeLog> sortedLogs = new ArrayList<>(logs);
-        sortedLogs.sort(Comparator.comparing(TimeLog::getTimestamp));
-
-        for (TimeLog log : sortedLogs) {
-            EventType event = log.getEventType();
-
-            // Lógica de "Inicio de Conteo" (Solo si no estamos ya contando)
-            if ( (event.name().equals("INGRESO") || event.name().equals("FINAL_ALMUERZO"))
-                    && startTime == null ) { // <-- ESTA ES LA CORRECCIÓN CLAVE
-
-                startTime = log.getTimestamp();
-            }
-            // Lógica de "Fin de Conteo" (Solo si SÍ estamos contando)
-            else if ( (event.name().equals("SALIDA") || event.name().equals("INICIO_ALMUERZO"))
-                    && startTime != null ) {
-
-                totalMinutes += Duration.between(startTime, log.getTimestamp()).toMinutes();
-                startTime = null; // Reseteamos el contador para el siguiente intervalo
-            }
-            // Si es un INGRESO y ya estábamos contando, o una SALIDA y no estábamos contando,
-            // esta lógica los ignora, previniendo errores de cálculo.
-        }
+        // Cálculo sobre arrays primitivos reutilizados (ver PunchHoursEngine); mismas reglas de intervalos
+        return PunchHoursEngine.toHours(PunchHoursEngine.totalMinutes(logs));
+    }
 
-        return Math.round((totalMinutes / 60.0) * 100.0) / 100.0;
+    private WorkWeekDto toWorkWeekDto(WorkWeek week) {
+        return WorkWeekDto.builder()
+                .id(week.getId())
+                .startDate(week.getStartDate())
+                .endDate(week.getEndDate())
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,127 @@
+package com.apv.chronotrack.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * ForkJoinPool propio y acotado para los cálculos de nómina que pueden repartirse (un
+ * trabajador o una compañía por tarea). No usa el pool común, así que un informe grande no
+ * compite con los parallel streams del resto de la aplicación, y nunca crea más hilos que
+ * payroll.parallel.parallelism.
+ * Los resultados se devuelven en el orden de la lista de entrada, igual que en modo secuencial.
+ */
+@Component
+public class PayrollComputePool {
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    public PayrollComputePool(@Value("${payroll.parallel.parallelism:0}") int parallelism,
+                              @Value("${payroll.parallel.threshold:5000}") long threshold) {
+        // Por defecto, un núcleo libre para Tomcat y como mucho 8 hilos: los informes por compañía
+        // consultan la base de datos y no deben agotar el pool de conexiones (10 en Hikari)
+        int size = parallelism > 0 ? parallelism : Math.min(8, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger threadCount = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("payroll-compute-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // maximumPoolSize = parallelism: sin hilos de compensación; si todos esperan, se espera
+        this.pool = new ForkJoinPool(size, factory, null, false, 0, size, 1, p -> true, 60, TimeUnit.SECONDS);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Aplica function a cada elemento. Si workUnits (p. ej. trabajadores x semanas) no llega
+     * al umbral configurado se ejecuta en el hilo actual.
+     */
+    public <T, R> List<R> map(List<T> items, long workUnits, Function<? super T, ? extends R> function) {
+        if (workUnits < threshold) {
+            return sequential(items, function);
+        }
+        return map(items, function);
+    }
+
+    /**
+     * Aplica function a cada elemento en el pool (tareas gruesas, como el informe de una compañía).
+     */
+    public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> function) {
+        if (items.size() < 2 || pool.getParallelism() < 2) {
+            return sequential(items, function);
+        }
+        Object[] results = new Object[items.size()];
+        int grain = Math.max(1, items.size() / (pool.getParallelism() * 4));
+        MapTask<T, R> task = new MapTask<>(items, function, results, 0, items.size(), grain);
+        // Una tarea que ya corre en este pool reparte el trabajo sin volver a encolarse
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+        return toList(results);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static <T, R> List<R> sequential(List<T> items, Function<? super T, ? extends R> function) {
+        List<R> results = new ArrayList<>(items.size());
+        for (T item : items) {
+            results.add(function.apply(item));
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> toList(Object[] results) {
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private static final class MapTask<T, R> extends RecursiveAction {
+
+        private final List<T> items;
+        private final Function<? super T, ? extends R> function;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        MapTask(List<T> items, Function<? super T, ? extends R> function, Object[] results, int from, int to, int grain) {
+            this.items = items;
+            this.function = function;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    results[i] = function.apply(items.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MapTask<>(items, function, results, from, mid, grain),
+                    new MapTask<>(items, function, results, mid, to, grain));
+        }
+    }
+}
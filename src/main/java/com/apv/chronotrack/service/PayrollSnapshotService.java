@@ -0,0 +1,105 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.PayrollSnapshot;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.models.WeeklyTimesheet;
+import com.apv.chronotrack.repository.PayrollSnapshotRepository;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Congela la nómina de una hoja de horas al aprobarla (ver PayrollSnapshot) y la sirve a los
+ * informes, que solo calculan en vivo las semanas sin aprobar.
+ */
+@Service
+@RequiredArgsConstructor
+public class PayrollSnapshotService {
+
+    private final PayrollSnapshotRepository snapshotRepository;
+    private final TimeLogRepository timeLogRepository;
+
+    /**
+     * Calcula desde time_logs y guarda la nómina de la hoja de horas. Si ya existe no se toca.
+     */
+    @Transactional
+    public void freeze(WeeklyTimesheet timesheet) {
+        if (snapshotRepository.existsByTimesheet(timesheet)) {
+            return;
+        }
+        User worker = timesheet.getUser();
+        long workedMinutes = PunchHoursEngine.totalRowMinutes(
+                timeLogRepository.findRowsByUserAndWorkWeek(worker, timesheet.getWorkWeek()));
+        long rateCents = PayEngine.rateCents(worker.getHourlyRate());
+        long regularPayCents = PayEngine.regularPayCents(rateCents, workedMinutes);
+        long overtimePayCents = PayEngine.overtimePayCents(rateCents, workedMinutes);
+
+        PayrollSnapshot snapshot = new PayrollSnapshot();
+        snapshot.setTimesheet(timesheet);
+        snapshot.setUser(worker);
+        snapshot.setWorkWeek(timesheet.getWorkWeek());
+        snapshot.setWorkedMinutes(workedMinutes);
+        snapshot.setRegularMinutes(PayEngine.regularMinutes(workedMinutes));
+        snapshot.setOvertimeMinutes(PayEngine.overtimeMinutes(workedMinutes));
+        snapshot.setHourlyRate(PayEngine.toAmount(rateCents));
+        snapshot.setRegularPay(PayEngine.toAmount(regularPayCents));
+        snapshot.setOvertimePay(PayEngine.toAmount(overtimePayCents));
+        snapshot.setTotalPay(PayEngine.toAmount(regularPayCents + overtimePayCents));
+        snapshot.setCreatedAt(LocalDateTime.now());
+        snapshotRepository.save(snapshot);
+    }
+
+    /**
+     * Congela las hojas aprobadas de la compañía que no tienen nómina (las aprobadas antes de
+     * existir PayrollSnapshot). No se conoce la tarifa del momento de la aprobación, así que se
+     * usa la actual del trabajador.
+     *
+     * @return número de nóminas congeladas
+     */
+    @Transactional
+    public int freezeMissing(Long companyId) {
+        List<WeeklyTimesheet> timesheets = snapshotRepository.findTimesheetsWithoutSnapshot(companyId, TimesheetStatus.APPROVED);
+        for (WeeklyTimesheet timesheet : timesheets) {
+            freeze(timesheet);
+        }
+        return timesheets.size();
+    }
+
+    /**
+     * Nóminas congeladas de las semanas, indexadas por semana y trabajador.
+     */
+    public Map<Long, Map<Long, PayrollSnapshot>> findByWorkWeekIds(Collection<Long> workWeekIds) {
+        Map<Long, Map<Long, PayrollSnapshot>> snapshots = new HashMap<>();
+        if (workWeekIds.isEmpty()) {
+            return snapshots;
+        }
+        for (PayrollSnapshot snapshot : snapshotRepository.findByWorkWeekIds(workWeekIds)) {
+            snapshots.computeIfAbsent(snapshot.getWorkWeek().getId(), id -> new HashMap<>())
+                    .put(snapshot.getUser().getId(), snapshot);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Nóminas congeladas de un trabajador, indexadas por semana.
+     */
+    public Map<Long, PayrollSnapshot> findByWorker(User worker, Collection<Long> workWeekIds) {
+        Map<Long, PayrollSnapshot> snapshots = new HashMap<>();
+        if (workWeekIds.isEmpty()) {
+            return snapshots;
+        }
+        List<PayrollSnapshot> rows = snapshotRepository.findByUserAndWorkWeekIds(worker, workWeekIds);
+        for (PayrollSnapshot snapshot : rows) {
+            snapshots.put(snapshot.getWorkWeek().getId(), snapshot);
+        }
+        return snapshots;
+    }
+}
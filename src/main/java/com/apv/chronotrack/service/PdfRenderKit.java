@@ -0,0 +1,119 @@
+package com.apv.chronotrack.service;
+
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+
+import java.awt.Color;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Piezas de los PDF de nómina que no dependen del informe: fuentes, celdas de cabecera de las
+ * tablas y el bloque de firmas se construyen una sola vez y se comparten entre renders e hilos.
+ * Nada de esto se modifica después de crearse: PdfPTable.addCell copia la celda que recibe y el
+ * bloque de firmas se copia con new PdfPTable(prototipo) antes de añadirlo a cada documento.
+ */
+final class PdfRenderKit {
+
+    static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    static final Font COMPANY_NAME_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
+    static final Font TOTAL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14);
+    static final Font WEEK_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+    static final Font CONSOLIDATED_BODY_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    static final Font DETAILED_BODY_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8);
+    static final Font SUMMARY_BOLD_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
+
+    static final float[] DETAILED_COLUMN_WIDTHS = {2.5f, 2f, 1f, 1.5f, 1.5f, 1f, 1.5f, 1f, 1.5f};
+
+    private static final Font CONSOLIDATED_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+    private static final Font DETAILED_HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 8);
+
+    private static final PdfPCell[] CONSOLIDATED_HEADER = consolidatedHeader(
+            "Worker", "Regular Hrs", "Overtime Hrs", "Total Hrs", "Total Pay");
+    private static final PdfPCell[] DETAILED_HEADER = detailedHeader(
+            "Date", "Workplace", "Clock In", "Lunch Start", "Lunch End", "Clock Out", "Hours", "Rate", "Daily Total");
+    private static final PdfPTable SIGNATURE_BLOCK = buildSignatureBlock();
+
+    private PdfRenderKit() {
+    }
+
+    static void addConsolidatedHeader(PdfPTable table) {
+        for (PdfPCell cell : CONSOLIDATED_HEADER) {
+            table.addCell(cell);
+        }
+    }
+
+    static void addDetailedHeader(PdfPTable table) {
+        for (PdfPCell cell : DETAILED_HEADER) {
+            table.addCell(cell);
+        }
+    }
+
+    // Copia propia para cada documento: la tabla guarda estado de maquetación al añadirse
+    static PdfPTable signatureBlock() {
+        return new PdfPTable(SIGNATURE_BLOCK);
+    }
+
+    /**
+     * Igual que String.format("%.2f", value) en un locale con punto decimal (redondeo HALF_UP sobre
+     * el decimal más corto del double), sin pasar por Formatter.
+     */
+    static String decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    static String decimal(BigDecimal value) {
+        return value != null ? value.setScale(2, RoundingMode.HALF_UP).toPlainString() : "-";
+    }
+
+    static String money(BigDecimal value) {
+        return value != null ? "$" + decimal(value) : "-";
+    }
+
+    private static PdfPTable buildSignatureBlock() {
+        PdfPTable signatureTable = new PdfPTable(2);
+        signatureTable.setWidthPercentage(80);
+        signatureTable.setHorizontalAlignment(Element.ALIGN_CENTER);
+        signatureTable.getDefaultCell().setBorder(Rectangle.NO_BORDER);
+        signatureTable.addCell(signatureCell("Prepared by"));
+        signatureTable.addCell(signatureCell("Received by (Worker Signature)"));
+        return signatureTable;
+    }
+
+    private static PdfPCell[] consolidatedHeader(String... headers) {
+        PdfPCell[] cells = new PdfPCell[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            PdfPCell cell = new PdfPCell(new Phrase(headers[i], CONSOLIDATED_HEADER_FONT));
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setBackgroundColor(Color.LIGHT_GRAY);
+            cells[i] = cell;
+        }
+        return cells;
+    }
+
+    private static PdfPCell[] detailedHeader(String... headers) {
+        PdfPCell[] cells = new PdfPCell[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            PdfPCell cell = new PdfPCell(new Phrase(headers[i], DETAILED_HEADER_FONT));
+            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+            cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+            cell.setPadding(4f);
+            cell.setBackgroundColor(Color.LIGHT_GRAY);
+            cells[i] = cell;
+        }
+        return cells;
+    }
+
+    private static PdfPCell signatureCell(String label) {
+        PdfPCell cell = new PdfPCell(new Paragraph("\n\n\n______________________________\n" + label));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        return cell;
+    }
+}
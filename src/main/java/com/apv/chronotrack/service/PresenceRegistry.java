@@ -0,0 +1,219 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.PresenceDto;
+import com.apv.chronotrack.DTO.PresenceWorkerDto;
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.PresenceState;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.PresenceRow;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Quién está trabajando, en el almuerzo o ya ha salido, por compañía, sin consultar time_logs.
+ * Cada trabajador guarda su situación (según su último registro) y si ha fichado hoy; los
+ * contadores se mantienen al aplicar cada registro, así que leerlos es O(1) y listar a los
+ * trabajadores es O(trabajadores presentes).
+ * Se reconstruye al arrancar con los registros desde ayer (un turno que cruza la medianoche sigue
+ * dentro), se actualiza tras el commit de cada marcación y recarga al trabajador cuando se corrige
+ * o elimina uno de sus registros. Al cambiar de día se olvida a quien terminó fuera y a quien
+ * lleva desde antes de ayer sin marcar (un INGRESO o almuerzo sin cerrar no queda presente para
+ * siempre): es la misma ventana que la reconstrucción.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private final TimeLogRepository timeLogRepository;
+
+    private final ConcurrentHashMap<Long, CompanyPresence> companies = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<PresenceRow> rows = timeLogRepository.findPresenceRowsSince(today.minusDays(1).atStartOfDay());
+        for (PresenceRow row : rows) {
+            company(row.companyId()).apply(row.userId(), row.fullName(), row.eventType(), row.timestamp(), today);
+        }
+        for (CompanyPresence presence : companies.values()) {
+            presence.prune(today);
+        }
+        log.info("Registro de presencia reconstruido: {} registros de {} compañías.", rows.size(), companies.size());
+    }
+
+    /**
+     * Aplica una marcación recién guardada una vez que la transacción confirma.
+     */
+    public void recordPunch(Long companyId, Long userId, String fullName, EventType eventType, LocalDateTime timestamp) {
+        afterCommit(() -> company(companyId).apply(userId, fullName, eventType, timestamp, LocalDate.now()));
+    }
+
+    /**
+     * Vuelve a calcular la situación del trabajador desde sus registros tras el commit
+     * (correcciones y borrados pueden cambiar cuál es su último registro).
+     */
+    public void reload(Long companyId, Long userId) {
+        afterCommit(() -> {
+            LocalDate today = LocalDate.now();
+            List<PresenceRow> rows = timeLogRepository.findPresenceRowsByUserSince(userId, today.minusDays(1).atStartOfDay());
+            company(companyId).replace(userId, rows, today);
+        });
+    }
+
+    public void remove(Long companyId, Long userId) {
+        afterCommit(() -> company(companyId).replace(userId, List.of(), LocalDate.now()));
+    }
+
+    /**
+     * Trabajadores distintos con algún registro hoy.
+     */
+    public int punchedToday(Long companyId) {
+        CompanyPresence presence = companies.get(companyId);
+        return presence != null ? presence.punchedToday(LocalDate.now()) : 0;
+    }
+
+    public PresenceDto snapshot(Long companyId) {
+        return snapshot(companyId, LocalDate.now());
+    }
+
+    PresenceDto snapshot(Long companyId, LocalDate today) {
+        CompanyPresence presence = companies.get(companyId);
+        if (presence == null) {
+            return PresenceDto.builder()
+                    .clockedInWorkers(List.of())
+                    .onLunchWorkers(List.of())
+                    .clockedOutWorkers(List.of())
+                    .build();
+        }
+        return presence.snapshot(today);
+    }
+
+    private CompanyPresence company(Long companyId) {
+        return companies.computeIfAbsent(companyId, id -> new CompanyPresence());
+    }
+
+    private record WorkerPresence(String fullName, PresenceState state, LocalDateTime since) {
+    }
+
+    private static final class CompanyPresence {
+
+        private final Map<Long, WorkerPresence> workers = new HashMap<>();
+        private final int[] counts = new int[PresenceState.values().length];
+        private final Set<Long> punchedToday = new HashSet<>();
+        private LocalDate day;
+
+        synchronized void apply(Long userId, String fullName, EventType eventType, LocalDateTime timestamp, LocalDate today) {
+            rollOver(today);
+            WorkerPresence current = workers.get(userId);
+            // Una marcación que confirma tarde no pisa otra posterior, y las anteriores a ayer no cuentan
+            if ((current != null && timestamp.isBefore(current.since())) || timestamp.isBefore(windowStart(today))) {
+                return;
+            }
+            if (current != null) {
+                counts[current.state().ordinal()]--;
+            }
+            String name = fullName != null ? fullName : current != null ? current.fullName() : null;
+            WorkerPresence next = new WorkerPresence(name, PresenceState.of(eventType), timestamp);
+            workers.put(userId, next);
+            counts[next.state().ordinal()]++;
+            if (timestamp.toLocalDate().equals(today)) {
+                punchedToday.add(userId);
+            }
+        }
+
+        synchronized void replace(Long userId, List<PresenceRow> rows, LocalDate today) {
+            rollOver(today);
+            WorkerPresence current = workers.remove(userId);
+            if (current != null) {
+                counts[current.state().ordinal()]--;
+            }
+            punchedToday.remove(userId);
+            for (PresenceRow row : rows) {
+                apply(userId, row.fullName(), row.eventType(), row.timestamp(), today);
+            }
+            forgetIfOut(userId);
+        }
+
+        synchronized int punchedToday(LocalDate today) {
+            rollOver(today);
+            return punchedToday.size();
+        }
+
+        synchronized PresenceDto snapshot(LocalDate today) {
+            rollOver(today);
+            Map<PresenceState, List<PresenceWorkerDto>> byState = new HashMap<>();
+            for (PresenceState state : PresenceState.values()) {
+                byState.put(state, new ArrayList<>(counts[state.ordinal()]));
+            }
+            for (Map.Entry<Long, WorkerPresence> entry : workers.entrySet()) {
+                WorkerPresence worker = entry.getValue();
+                byState.get(worker.state()).add(new PresenceWorkerDto(entry.getKey(), worker.fullName(), worker.since()));
+            }
+            byState.values().forEach(list -> list.sort(Comparator.comparing(PresenceWorkerDto::since)));
+            return PresenceDto.builder()
+                    .clockedIn(counts[PresenceState.IN.ordinal()])
+                    .onLunch(counts[PresenceState.LUNCH.ordinal()])
+                    .clockedOut(counts[PresenceState.OUT.ordinal()])
+                    .punchedToday(punchedToday.size())
+                    .clockedInWorkers(byState.get(PresenceState.IN))
+                    .onLunchWorkers(byState.get(PresenceState.LUNCH))
+                    .clockedOutWorkers(byState.get(PresenceState.OUT))
+                    .build();
+        }
+
+        // Al empezar un día nuevo se reinicia quién ha fichado y se olvida a quien ya estaba fuera
+        synchronized void rollOver(LocalDate today) {
+            if (today.equals(day)) {
+                return;
+            }
+            day = today;
+            punchedToday.clear();
+            prune(today);
+        }
+
+        synchronized void prune(LocalDate today) {
+            LocalDateTime windowStart = windowStart(today);
+            for (Long userId : new ArrayList<>(workers.keySet())) {
+                WorkerPresence worker = workers.get(userId);
+                if (worker.since().isBefore(windowStart)) {
+                    workers.remove(userId);
+                    counts[worker.state().ordinal()]--;
+                } else {
+                    forgetIfOut(userId);
+                }
+            }
+        }
+
+        // Primer instante que cubre la reconstrucción: un turno que cruza la medianoche sigue dentro
+        private static LocalDateTime windowStart(LocalDate today) {
+            return today.minusDays(1).atStartOfDay();
+        }
+
+        private void forgetIfOut(Long userId) {
+            WorkerPresence worker = workers.get(userId);
+            if (worker != null && worker.state() == PresenceState.OUT && !punchedToday.contains(userId)) {
+                workers.remove(userId);
+                counts[PresenceState.OUT.ordinal()]--;
+            }
+        }
+    }
+}
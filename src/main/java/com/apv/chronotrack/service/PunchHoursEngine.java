@@ -0,0 +1,265 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimeLog;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Motor de cálculo de horas sobre arrays primitivos (segundos epoch, nanos y código de evento).
+ * Aplica exactamente las reglas de PayrollCalculationService: un INGRESO o FINAL_ALMUERZO abre
+ * un intervalo si no hay uno abierto, una SALIDA o INICIO_ALMUERZO lo cierra si lo hay, y cada
+ * intervalo suma sus minutos completos (igual que Duration.toMinutes).
+ * Los arrays de trabajo son por hilo y se reutilizan, así que una llamada no reserva memoria;
+ * si los registros ya vienen ordenados por fecha (como devuelven los repositorios) no se ordenan.
+ * Tras una llamada con más de MAX_RETAINED_CAPACITY eventos el hilo vuelve a arrays pequeños:
+ * un informe grande no deja memoria retenida en cada hilo del pool que lo calculó.
+ */
+public final class PunchHoursEngine {
+
+    public static final byte OTHER = 0;
+    public static final byte START = 1;
+    public static final byte STOP = 2;
+
+    private static final byte[] CODE_BY_EVENT = new byte[EventType.values().length];
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    private static final int INITIAL_CAPACITY = 64;
+    static final int MAX_RETAINED_CAPACITY = 4_096;
+
+    static {
+        CODE_BY_EVENT[EventType.INGRESO.ordinal()] = START;
+        CODE_BY_EVENT[EventType.FINAL_ALMUERZO.ordinal()] = START;
+        CODE_BY_EVENT[EventType.SALIDA.ordinal()] = STOP;
+        CODE_BY_EVENT[EventType.INICIO_ALMUERZO.ordinal()] = STOP;
+    }
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private PunchHoursEngine() {
+    }
+
+    public static byte eventCode(EventType eventType) {
+        return CODE_BY_EVENT[eventType.ordinal()];
+    }
+
+    /**
+     * Minutos trabajados en los registros, en cualquier orden.
+     */
+    public static long totalMinutes(List<TimeLog> logs) {
+        int length = logs.size();
+        Buffer buffer = BUFFERS.get();
+        buffer.ensureCapacity(length);
+        try {
+            long[] seconds = buffer.seconds;
+            int[] nanos = buffer.nanos;
+            byte[] codes = buffer.codes;
+            if (logs instanceof RandomAccess) {
+                for (int i = 0; i < length; i++) {
+                    put(logs.get(i), i, seconds, nanos, codes);
+                }
+            } else {
+                int i = 0;
+                for (TimeLog log : logs) {
+                    put(log, i++, seconds, nanos, codes);
+                }
+            }
+            return totalMinutes(seconds, nanos, codes, length, buffer);
+        } finally {
+            buffer.shrink();
+        }
+    }
+
+    /**
+     * Igual que totalMinutes sobre las proyecciones de solo lectura de TimeLogRepository.
+     */
+    public static long totalRowMinutes(List<TimeLogRow> rows) {
+        int length = rows.size();
+        Buffer buffer = BUFFERS.get();
+        buffer.ensureCapacity(length);
+        try {
+            long[] seconds = buffer.seconds;
+            int[] nanos = buffer.nanos;
+            byte[] codes = buffer.codes;
+            int i = 0;
+            for (TimeLogRow row : rows) {
+                put(row.timestamp(), row.eventType(), i++, seconds, nanos, codes);
+            }
+            return totalMinutes(seconds, nanos, codes, length, buffer);
+        } finally {
+            buffer.shrink();
+        }
+    }
+
+    /**
+     * Minutos trabajados en los primeros length eventos de los arrays, en cualquier orden.
+     * Los arrays no se modifican.
+     */
+    public static long totalMinutes(long[] epochSeconds, int[] nanos, byte[] eventCodes, int length) {
+        Buffer buffer = BUFFERS.get();
+        buffer.ensureCapacity(length);
+        try {
+            return totalMinutes(epochSeconds, nanos, eventCodes, length, buffer);
+        } finally {
+            buffer.shrink();
+        }
+    }
+
+    /**
+     * Minutos a horas redondeadas a 2 decimales, como las muestra la nómina.
+     */
+    public static double toHours(long minutes) {
+        return Math.round((minutes / 60.0) * 100.0) / 100.0;
+    }
+
+    // Capacidad que conserva el hilo actual entre llamadas (para pruebas)
+    static int retainedCapacity() {
+        return BUFFERS.get().order.length;
+    }
+
+    private static void put(TimeLog log, int i, long[] seconds, int[] nanos, byte[] codes) {
+        put(log.getTimestamp(), log.getEventType(), i, seconds, nanos, codes);
+    }
+
+    private static void put(LocalDateTime timestamp, EventType eventType, int i, long[] seconds, int[] nanos, byte[] codes) {
+        seconds[i] = timestamp.toEpochSecond(ZoneOffset.UTC);
+        nanos[i] = timestamp.getNano();
+        codes[i] = CODE_BY_EVENT[eventType.ordinal()];
+    }
+
+    private static long totalMinutes(long[] seconds, int[] nanos, byte[] codes, int length, Buffer buffer) {
+        if (isSorted(seconds, nanos, length)) {
+            long totalMinutes = 0;
+            int open = -1;
+            for (int i = 0; i < length; i++) {
+                if (codes[i] == START && open < 0) {
+                    open = i;
+                } else if (codes[i] == STOP && open >= 0) {
+                    totalMinutes += minutesBetween(seconds, nanos, open, i);
+                    open = -1;
+                }
+            }
+            return totalMinutes;
+        }
+
+        int[] order = buffer.order;
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        stableSort(order, buffer.scratch, seconds, nanos, length);
+
+        long totalMinutes = 0;
+        int open = -1;
+        for (int k = 0; k < length; k++) {
+            int i = order[k];
+            if (codes[i] == START && open < 0) {
+                open = i;
+            } else if (codes[i] == STOP && open >= 0) {
+                totalMinutes += minutesBetween(seconds, nanos, open, i);
+                open = -1;
+            }
+        }
+        return totalMinutes;
+    }
+
+    // Minutos completos entre dos eventos ordenados: mismo truncado que Duration.between(...).toMinutes()
+    private static long minutesBetween(long[] seconds, int[] nanos, int from, int to) {
+        long elapsedSeconds = seconds[to] - seconds[from];
+        if (nanos[to] < nanos[from]) {
+            elapsedSeconds--;
+        }
+        return elapsedSeconds / 60;
+    }
+
+    private static boolean isSorted(long[] seconds, int[] nanos, int length) {
+        for (int i = 1; i < length; i++) {
+            if (compare(seconds, nanos, i - 1, i) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(long[] seconds, int[] nanos, int a, int b) {
+        int bySeconds = Long.compare(seconds[a], seconds[b]);
+        return bySeconds != 0 ? bySeconds : Integer.compare(nanos[a], nanos[b]);
+    }
+
+    // Ordenación estable de índices (los eventos con la misma fecha conservan su orden, como List.sort)
+    private static void stableSort(int[] order, int[] scratch, long[] seconds, int[] nanos, int length) {
+        for (int from = 0; from < length; from += INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, seconds, nanos, from, Math.min(from + INSERTION_SORT_THRESHOLD, length));
+        }
+        int[] src = order;
+        int[] dst = scratch;
+        for (int width = INSERTION_SORT_THRESHOLD; width < length; width *= 2) {
+            for (int lo = 0; lo < length; lo += 2 * width) {
+                int mid = Math.min(lo + width, length);
+                int hi = Math.min(lo + 2 * width, length);
+                merge(src, dst, seconds, nanos, lo, mid, hi);
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != order) {
+            System.arraycopy(src, 0, order, 0, length);
+        }
+    }
+
+    private static void insertionSort(int[] order, long[] seconds, int[] nanos, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= from && compare(seconds, nanos, order[j], current) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private static void merge(int[] src, int[] dst, long[] seconds, int[] nanos, int lo, int mid, int hi) {
+        int left = lo;
+        int right = mid;
+        for (int k = lo; k < hi; k++) {
+            if (left < mid && (right >= hi || compare(seconds, nanos, src[left], src[right]) <= 0)) {
+                dst[k] = src[left++];
+            } else {
+                dst[k] = src[right++];
+            }
+        }
+    }
+
+    private static final class Buffer {
+        long[] seconds = new long[0];
+        int[] nanos = new int[0];
+        byte[] codes = new byte[0];
+        int[] order = new int[0];
+        int[] scratch = new int[0];
+
+        void ensureCapacity(int length) {
+            if (order.length >= length) {
+                return;
+            }
+            allocate(Math.max(length, Math.max(INITIAL_CAPACITY, order.length * 2)));
+        }
+
+        void shrink() {
+            if (order.length > MAX_RETAINED_CAPACITY) {
+                allocate(INITIAL_CAPACITY);
+            }
+        }
+
+        private void allocate(int capacity) {
+            seconds = new long[capacity];
+            nanos = new int[capacity];
+            codes = new byte[capacity];
+            order = new int[capacity];
+            scratch = new int[capacity];
+        }
+    }
+}
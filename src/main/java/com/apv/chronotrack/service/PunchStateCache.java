@@ -0,0 +1,113 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimeLog;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Estado de marcación actual de cada trabajador (último evento, primer INGRESO del día
+ * y semana abierta), para que validar un fichaje no requiera consultar time_logs.
+ * Se carga de forma perezosa, se actualiza tras el commit de cada marcación y se
+ * invalida cuando un registro se corrige o elimina.
+ * <p>
+ * La carga se hace fuera de cualquier bloqueo, así que una marcación puede confirmar mientras
+ * otra petición del mismo trabajador está leyendo time_logs. Cada carga deja una marca en
+ * loads y cualquier cambio confirmado del trabajador la retira: la carga solo se guarda si su
+ * marca sigue ahí, de modo que nunca sustituye ni adelanta a un estado más reciente.
+ */
+@Component
+public class PunchStateCache {
+
+    private static final int MAX_ENTRIES = 20_000;
+
+    private final ConcurrentHashMap<Long, PunchState> states = new ConcurrentHashMap<>();
+    // Cargas en curso por trabajador; la marca es el objeto de cada carga
+    private final ConcurrentHashMap<Long, Object> loads = new ConcurrentHashMap<>();
+
+    public record PunchState(EventType lastEventType,
+                             LocalDateTime firstClockInToday,
+                             Long workWeekId,
+                             LocalDate workWeekStartDate) {
+
+        public boolean hasClockedInOn(LocalDate date) {
+            return firstClockInToday != null && firstClockInToday.toLocalDate().equals(date);
+        }
+    }
+
+    public PunchState get(Long userId, Supplier<PunchState> loader) {
+        PunchState state = states.get(userId);
+        if (state != null) {
+            return state;
+        }
+        Object load = new Object();
+        loads.put(userId, load);
+        try {
+            PunchState loaded = loader.get();
+            makeRoom(userId);
+            // Comprobar la marca y publicar bajo el mismo bloqueo de la entrada: un cambio
+            // confirmado después de la comprobación espera y se aplica sobre lo publicado
+            states.compute(userId, (id, current) -> loads.remove(userId, load) ? loaded : current);
+            return loaded;
+        } finally {
+            loads.remove(userId, load);
+        }
+    }
+
+    /**
+     * Aplica una marcación recién guardada al estado del trabajador una vez que la
+     * transacción confirma; si la transacción se revierte el estado no cambia. Sin estado
+     * en caché, descarta la carga que esté en curso, que puede no incluir esta marcación.
+     */
+    public void recordPunch(Long userId, EventType eventType, LocalDateTime timestamp, Long workWeekId, LocalDate workWeekStartDate) {
+        afterCommit(() -> {
+            loads.remove(userId);
+            states.computeIfPresent(userId, (id, current) -> next(current, eventType, timestamp, workWeekId, workWeekStartDate));
+        });
+    }
+
+    public void recordPunch(Long userId, TimeLog savedLog, LocalDate workWeekStartDate) {
+        recordPunch(userId, savedLog.getEventType(), savedLog.getTimestamp(), savedLog.getWorkWeek().getId(), workWeekStartDate);
+    }
+
+    /**
+     * Descarta el estado del trabajador ahora y otra vez tras el commit, para que una
+     * lectura concurrente no vuelva a cargar datos anteriores a la corrección.
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        afterCommit(() -> evict(userId));
+    }
+
+    public void evict(Long userId) {
+        loads.remove(userId);
+        states.remove(userId);
+    }
+
+    private PunchState next(PunchState current, EventType eventType, LocalDateTime timestamp,
+                            Long workWeekId, LocalDate workWeekStartDate) {
+        LocalDateTime firstClockIn = current.firstClockInToday();
+        if (eventType == EventType.INGRESO && !current.hasClockedInOn(timestamp.toLocalDate())) {
+            firstClockIn = timestamp;
+        }
+        return new PunchState(eventType, firstClockIn, workWeekId, workWeekStartDate);
+    }
+
+    private void makeRoom(Long userId) {
+        if (states.size() >= MAX_ENTRIES && !states.containsKey(userId)) {
+            // Desalojo aproximado: basta con mantener el mapa acotado
+            Iterator<Long> it = states.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+}
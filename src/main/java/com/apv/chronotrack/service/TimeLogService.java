@@ -1,12 +1,19 @@
 package com.apv.chronotrack.service;
 
 import com.apv.chronotrack.DTO.ClockInRequestDto;
+import com.apv.chronotrack.DTO.CursorPageDto;
+import com.apv.chronotrack.DTO.LiveEventDto;
 import com.apv.chronotrack.DTO.TimeLogDTO;
 import com.apv.chronotrack.DTO.WorkerCorrectionRequestDto;
 import com.apv.chronotrack.models.*;
 import com.apv.chronotrack.repository.*;
+import com.apv.chronotrack.repository.ClockInCommandRepository.ClockInResult;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+import com.apv.chronotrack.service.PunchStateCache.PunchState;
+import com.apv.chronotrack.utils.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +21,6 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -23,34 +29,68 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TimeLogService {
 
+    private static final String TIME_LOGS_CURSOR = "timelogs";
+
     private final TimeLogRepository timeLogRepository;
     private final UserRepository userRepository;
     private final UserWorkAssignmentRepository assignmentRepository;
     private final WorkWeekRepository workWeekRepository;
-    private final WeeklyTimesheetRepository timesheetRepository;
+    private final PunchStateCache punchStateCache;
+    private final WorkCalendarService workCalendarService;
+    private final ClockInCommandRepository clockInCommandRepository;
+    private final WeeklyTotalsService weeklyTotalsService;
+    private final DashboardStatsCache dashboardStatsCache;
+    private final PresenceRegistry presenceRegistry;
+    private final LiveEventBus liveEventBus;
 
     // --- Acciones del Trabajador ---
     @Transactional
     public TimeLogDTO recordClockIn(User user, ClockInRequestDto request) {
+        LocalDateTime now = LocalDateTime.now();
+        PunchState punchState = punchStateCache.get(user.getId(), () -> loadPunchState(user));
+
+        if (punchState.hasClockedInOn(now.toLocalDate())) {
+            throw new IllegalStateException("You have already clocked in today. You cannot clock in more than once per day.");
+        }
+
+        // Camino rápido: una sola sentencia valida hoja de horas, último evento y geocerca, e inserta el registro
+        Optional<ClockInResult> result = clockInCommandRepository.clockIn(user.getId(), now, request.getLatitude(), request.getLongitude());
+        if (result.isPresent()) {
+            ClockInResult clockIn = result.get();
+            punchStateCache.recordPunch(user.getId(), EventType.INGRESO, clockIn.timestamp(), clockIn.workWeekId(), startOfWeek(now.toLocalDate()));
+            weeklyTotalsService.recordPunch(user.getId(), clockIn.workWeekId(), EventType.INGRESO, clockIn.timestamp());
+            dashboardStatsCache.invalidate(user.getCompany().getId());
+            presenceRegistry.recordPunch(user.getCompany().getId(), user.getId(), user.getFullName(), EventType.INGRESO, clockIn.timestamp());
+            liveEventBus.publish(user.getCompany().getId(), LiveEventDto.punch(user.getId(), user.getFullName(),
+                    clockIn.workWeekId(), clockIn.timeLogId(), EventType.INGRESO, clockIn.timestamp()));
+            return new TimeLogDTO(clockIn.timeLogId(), EventType.INGRESO, clockIn.timestamp(), clockIn.workWeekId());
+        }
+
+        // Alguna regla no se cumple (o aún no existen la semana / hoja de horas): la validación completa
+        // lanza el mismo error de siempre, o crea lo que falta y registra el fichaje.
+        return recordClockInWithFullValidation(user, request);
+    }
 
+    private TimeLogDTO recordClockInWithFullValidation(User user, ClockInRequestDto request) {
         User freshUser = userRepository.findById(user.getId())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = LocalDate.now().atTime(LocalTime.MAX);
-        boolean alreadyClockedInToday = timeLogRepository.existsByUserAndEventTypeAndTimestampBetween(freshUser, EventType.INGRESO, startOfDay, endOfDay);
+        LocalDate today = LocalDate.now();
+        // El estado en caché pudo no coincidir con la base de datos; se vuelve a cargar
+        punchStateCache.evict(freshUser.getId());
+        PunchState punchState = punchStateCache.get(freshUser.getId(), () -> loadPunchState(freshUser));
 
-        if (alreadyClockedInToday) {
+        if (punchState.hasClockedInOn(today)) {
             throw new IllegalStateException("You have already clocked in today. You cannot clock in more than once per day.");
         }
         // --- LÓGICA DE VALIDACIÓN DE HOJA DE HORAS ---
-        WorkWeek workWeek = findOrCreateWorkWeekForDate(LocalDate.now(), freshUser.getCompany());
-        WeeklyTimesheet timesheet = findOrCreateTimesheet(freshUser, workWeek);
+        WorkWeek workWeek = resolveWorkWeek(punchState, today, freshUser.getCompany());
+        TimesheetStatus timesheetStatus = workCalendarService.findOrCreateTimesheetStatus(freshUser.getId(), workWeek.getId());
 
-        if (timesheet.getStatus() != TimesheetStatus.OPEN) {
+        if (timesheetStatus != TimesheetStatus.OPEN) {
             throw new IllegalStateException("Cannot record time. This week's timesheet has already been submitted or processed.");
         }
         // 1. Validar que la acción sea permitida (no hacer clock-in dos veces)
-        validateAction(freshUser, EventType.INGRESO);
+        validateAction(punchState.lastEventType(), EventType.INGRESO);
 
         // 2. ¡NUEVA VALIDACIÓN! Verificar si el usuario está dentro de la zona de trabajo.
         if (!isWithinGeofence(freshUser, request.getLatitude(), request.getLongitude())) {
@@ -66,6 +106,13 @@ public class TimeLogService {
         newLog.setWorkWeek(workWeek);
 
         TimeLog savedLog = timeLogRepository.save(newLog);
+        punchStateCache.recordPunch(freshUser.getId(), savedLog, startOfWeek(today));
+        weeklyTotalsService.recordPunch(freshUser.getId(), workWeek.getId(), savedLog.getEventType(), savedLog.getTimestamp());
+        dashboardStatsCache.invalidate(freshUser.getCompany().getId());
+        presenceRegistry.recordPunch(freshUser.getCompany().getId(), freshUser.getId(), freshUser.getFullName(),
+                savedLog.getEventType(), savedLog.getTimestamp());
+        liveEventBus.publish(freshUser.getCompany().getId(), LiveEventDto.punch(freshUser.getId(), freshUser.getFullName(),
+                workWeek.getId(), savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp()));
         return new TimeLogDTO(savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp(), savedLog.getWorkWeek().getId());
     }
 
@@ -111,12 +158,14 @@ public class TimeLogService {
         // Lógica de validación para asegurar un flujo correcto (ej. no marcar salida sin haber entrado)
         User freshUser = userRepository.findById(user.getId())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        LocalDate today = LocalDate.now();
+        PunchState punchState = punchStateCache.get(freshUser.getId(), () -> loadPunchState(freshUser));
 
-        validateAction(user, eventType);
-        WorkWeek workWeek = findOrCreateWorkWeekForDate(LocalDate.now(), freshUser.getCompany());
-        WeeklyTimesheet timesheet = findOrCreateTimesheet(freshUser, workWeek);
+        validateAction(punchState.lastEventType(), eventType);
+        WorkWeek workWeek = resolveWorkWeek(punchState, today, freshUser.getCompany());
+        TimesheetStatus timesheetStatus = workCalendarService.findOrCreateTimesheetStatus(freshUser.getId(), workWeek.getId());
 
-        if (timesheet.getStatus() != TimesheetStatus.OPEN) {
+        if (timesheetStatus != TimesheetStatus.OPEN) {
             throw new IllegalStateException("Cannot record time. This week's timesheet has already been submitted or processed.");
         }
 
@@ -125,8 +174,15 @@ public class TimeLogService {
         newLog.setUser(freshUser);
         newLog.setEventType(eventType);
         newLog.setTimestamp(LocalDateTime.now());
-        newLog.setWorkWeek(findOrCreateWorkWeekForDate(newLog.getTimestamp().toLocalDate(), freshUser.getCompany()));
+        newLog.setWorkWeek(workWeek);
         TimeLog savedLog = timeLogRepository.save(newLog);
+        punchStateCache.recordPunch(freshUser.getId(), savedLog, startOfWeek(today));
+        weeklyTotalsService.recordPunch(freshUser.getId(), workWeek.getId(), savedLog.getEventType(), savedLog.getTimestamp());
+        dashboardStatsCache.invalidate(freshUser.getCompany().getId());
+        presenceRegistry.recordPunch(freshUser.getCompany().getId(), freshUser.getId(), freshUser.getFullName(),
+                savedLog.getEventType(), savedLog.getTimestamp());
+        liveEventBus.publish(freshUser.getCompany().getId(), LiveEventDto.punch(freshUser.getId(), freshUser.getFullName(),
+                workWeek.getId(), savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp()));
         return new TimeLogDTO(savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp(), savedLog.getWorkWeek().getId());
     }
 
@@ -146,12 +202,7 @@ public class TimeLogService {
 
     // --- Métodos Privados Auxiliares ---
 
-    private void validateAction(User user, EventType newAction) {
-        // Busca el último evento registrado por el usuario.
-        EventType lastEventType = timeLogRepository.findTopByUserOrderByTimestampDesc(user)
-                .map(TimeLog::getEventType)
-                .orElse(null);
-
+    private void validateAction(EventType lastEventType, EventType newAction) {
         boolean isInvalid = switch (newAction) {
             case INGRESO -> lastEventType != null && lastEventType != EventType.SALIDA;
             case INICIO_ALMUERZO, SALIDA -> lastEventType != EventType.INGRESO && lastEventType != EventType.FINAL_ALMUERZO;
@@ -163,10 +214,36 @@ public class TimeLogService {
         }
     }
 
+    // Carga el estado de marcación desde la base de datos (solo cuando no está en caché)
+    private PunchState loadPunchState(User user) {
+        LocalDate today = LocalDate.now();
+        Optional<TimeLogRow> lastLog = timeLogRepository.findLatestRowsByUser(user, PageRequest.of(0, 1)).stream().findFirst();
+        LocalDateTime firstClockInToday = timeLogRepository
+                .findFirstTimestamp(user, EventType.INGRESO, today.atStartOfDay(), today.atTime(LocalTime.MAX))
+                .orElse(null);
+        return new PunchState(
+                lastLog.map(TimeLogRow::eventType).orElse(null),
+                firstClockInToday,
+                lastLog.map(TimeLogRow::workWeekId).orElse(null),
+                lastLog.map(log -> startOfWeek(log.timestamp().toLocalDate())).orElse(null));
+    }
+
+    // Reutiliza la semana abierta del estado en caché si corresponde a la fecha; si no, la busca o crea
+    private WorkWeek resolveWorkWeek(PunchState punchState, LocalDate date, Company company) {
+        if (punchState.workWeekId() != null && startOfWeek(date).equals(punchState.workWeekStartDate())) {
+            return workWeekRepository.getReferenceById(punchState.workWeekId());
+        }
+        return workCalendarService.findOrCreateWorkWeek(company, date);
+    }
+
+    private LocalDate startOfWeek(LocalDate date) {
+        return workCalendarService.startOfWeek(date);
+    }
+
     private List<TimeLogDTO> findLogsAndConvertToDto(User user, LocalDateTime start, LocalDateTime end) {
-        return timeLogRepository.findByUserAndTimestampBetweenOrderByTimestampAsc(user, start, end)
+        return timeLogRepository.findRowsByUserAndTimestampBetween(user, start, end)
                 .stream()
-                .map(log -> new TimeLogDTO(log.getId(), log.getEventType(), log.getTimestamp(), log.getWorkWeek().getId()))
+                .map(log -> new TimeLogDTO(log.id(), log.eventType(), log.timestamp(), log.workWeekId()))
                 .collect(Collectors.toList());
     }
 
@@ -177,41 +254,46 @@ public class TimeLogService {
         return findLogsAndConvertToDto(user, startDateTime, endDateTime);
     }
 
-    private WorkWeek findOrCreateWorkWeekForDate(LocalDate date, Company company) {
-        LocalDate startOfWeek = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-        LocalDate endOfWeek = date.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
-
-        return workWeekRepository.findByCompanyAndStartDateAndEndDate(company, startOfWeek, endOfWeek)
-                .orElseGet(() -> {
-                    WorkWeek newWeek = new WorkWeek();
-                    newWeek.setCompany(company);
-                    newWeek.setStartDate(startOfWeek);
-                    newWeek.setEndDate(endOfWeek);
-                    return workWeekRepository.save(newWeek);
-                });
-    }
-
-    private WeeklyTimesheet findOrCreateTimesheet(User user, WorkWeek workWeek) {
-        return timesheetRepository.findByUserAndWorkWeek(user, workWeek)
-                .orElseGet(() -> {
-                    WeeklyTimesheet newTimesheet = new WeeklyTimesheet();
-                    newTimesheet.setUser(user);
-                    newTimesheet.setWorkWeek(workWeek);
-                    return timesheetRepository.save(newTimesheet);
-                });
+    /**
+     * Registros del rango por páginas de hasta limit, en orden cronológico. Cada página continúa
+     * desde la clave (timestamp, id) del último registro de la anterior (índice user_id, timestamp).
+     */
+    public CursorPageDto<TimeLogDTO> getLogsByDateRangePage(User user, LocalDate startDate, LocalDate endDate,
+                                                            String cursor, Integer limit) {
+        LocalDateTime startDateTime = startDate.atStartOfDay();
+        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
+        PageCursor after = PageCursor.decode(cursor, TIME_LOGS_CURSOR, 2);
+        int pageSize = PageCursor.limit(limit);
+        List<TimeLogRow> rows = timeLogRepository.findRowsByUserAndTimestampBetweenAfter(user, startDateTime, endDateTime,
+                after != null ? after.dateTimeAt(0) : startDateTime,
+                after != null ? after.longAt(1) : 0L,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<TimeLogRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TimeLogRow last = page.get(pageSize - 1);
+            nextCursor = PageCursor.encode(TIME_LOGS_CURSOR, last.timestamp(), last.id());
+        }
+        List<TimeLogDTO> items = page.stream()
+                .map(log -> new TimeLogDTO(log.id(), log.eventType(), log.timestamp(), log.workWeekId()))
+                .collect(Collectors.toList());
+        return new CursorPageDto<>(items, nextCursor, hasMore);
     }
 
     @Transactional
     public TimeLogDTO correctWorkerTimeLog(WorkerCorrectionRequestDto request, User worker) {
         // 1. Validar que la hoja de horas esté abierta para edición por el trabajador
-        WorkWeek workWeek = findOrCreateWorkWeekForDate(request.getTimestamp().toLocalDate(), worker.getCompany());
-        WeeklyTimesheet timesheet = findOrCreateTimesheet(worker, workWeek);
+        WorkWeek workWeek = workCalendarService.findOrCreateWorkWeek(worker.getCompany(), request.getTimestamp().toLocalDate());
+        TimesheetStatus timesheetStatus = workCalendarService.findOrCreateTimesheetStatus(worker.getId(), workWeek.getId());
 
-        if (timesheet.getStatus() != TimesheetStatus.OPEN && timesheet.getStatus() != TimesheetStatus.REJECTED) {
+        if (timesheetStatus != TimesheetStatus.OPEN && timesheetStatus != TimesheetStatus.REJECTED) {
             throw new IllegalStateException("Action denied: you cannot modify a week that has already been submitted or is under review.");
         }
 
         TimeLog timeLog;
+        Long previousWorkWeekId = null;
 
         if (request.getTimeLogIdToEdit() != null) {
             // --- Edit flow ---
@@ -222,6 +304,7 @@ public class TimeLogService {
             if (!timeLog.getUser().getId().equals(worker.getId())) {
                 throw new SecurityException("You do not have permission to edit this record.");
             }
+            previousWorkWeekId = timeLog.getWorkWeek().getId();
             timeLog.setEventType(request.getEventType());
             timeLog.setTimestamp(request.getTimestamp());
 
@@ -236,6 +319,15 @@ public class TimeLogService {
         // 2. Asignar la semana de trabajo correcta
         timeLog.setWorkWeek(workWeek);
         TimeLog savedLog = timeLogRepository.save(timeLog);
+        punchStateCache.invalidate(worker.getId());
+        weeklyTotalsService.recompute(worker.getId(), workWeek.getId());
+        if (previousWorkWeekId != null && !previousWorkWeekId.equals(workWeek.getId())) {
+            weeklyTotalsService.recompute(worker.getId(), previousWorkWeekId);
+        }
+        dashboardStatsCache.invalidate(worker.getCompany().getId());
+        presenceRegistry.reload(worker.getCompany().getId(), worker.getId());
+        liveEventBus.publish(worker.getCompany().getId(), LiveEventDto.timeLogCorrected(worker.getId(), worker.getFullName(),
+                workWeek.getId(), savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp()));
 
         // 3. Devolver el DTO del registro guardado
         return new TimeLogDTO(savedLog.getId(), savedLog.getEventType(), savedLog.getTimestamp(), savedLog.getWorkWeek().getId());
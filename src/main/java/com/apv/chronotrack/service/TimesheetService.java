@@ -1,18 +1,23 @@
 package com.apv.chronotrack.service;
 
+import com.apv.chronotrack.DTO.CursorPageDto;
+import com.apv.chronotrack.DTO.LiveEventDto;
 import com.apv.chronotrack.DTO.TimesheetSummaryDto;
 import com.apv.chronotrack.models.*;
 import com.apv.chronotrack.repository.UserRepository;
 import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
 import com.apv.chronotrack.repository.WorkWeekRepository;
+import com.apv.chronotrack.utils.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,11 +26,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TimesheetService {
 
+    private static final String TIMESHEETS_CURSOR = "timesheets";
+    // Primera página: antes de cualquier semana real (y dentro del rango de fechas de PostgreSQL)
+    private static final LocalDate FIRST_PAGE_START = LocalDate.of(9999, 12, 31);
+
     private final WeeklyTimesheetRepository timesheetRepository;
     private final WorkWeekRepository workWeekRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
     private final AuditService auditService;
+    private final WorkCalendarService workCalendarService;
+    private final WeeklyTotalsService weeklyTotalsService;
+    private final PayrollSnapshotService payrollSnapshotService;
+    private final LiveEventBus liveEventBus;
 
     /**
      * El trabajador envía su hoja de horas para aprobación.
@@ -44,6 +57,9 @@ public class TimesheetService {
         }
         timesheet.setStatus(TimesheetStatus.SUBMITTED);
         timesheet.setSubmittedAt(LocalDateTime.now());
+        workCalendarService.timesheetStatusChanged(freshUser.getId(), workWeek.getId(), TimesheetStatus.SUBMITTED);
+        weeklyTotalsService.timesheetStatusChanged(freshUser.getId(), workWeek.getId(), TimesheetStatus.SUBMITTED);
+        publishStatus(timesheet);
 
         auditService.logAction(
                 user,
@@ -78,6 +94,11 @@ public class TimesheetService {
         );
         timesheet.setStatus(TimesheetStatus.APPROVED);
         timesheet.setApprovedAt(LocalDateTime.now());
+        workCalendarService.timesheetStatusChanged(timesheet.getUser().getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.APPROVED);
+        weeklyTotalsService.timesheetStatusChanged(timesheet.getUser().getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.APPROVED);
+        publishStatus(timesheet);
+        // La nómina de la semana queda congelada con la tarifa actual
+        payrollSnapshotService.freeze(timesheet);
         emailService.sendApprovalNotification(savedTimesheet);
         timesheetRepository.save(timesheet);
     }
@@ -99,6 +120,9 @@ public class TimesheetService {
         }
 
         timesheet.setStatus(TimesheetStatus.REJECTED);
+        workCalendarService.timesheetStatusChanged(timesheet.getUser().getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.REJECTED);
+        weeklyTotalsService.timesheetStatusChanged(timesheet.getUser().getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.REJECTED);
+        publishStatus(timesheet);
         WeeklyTimesheet savedTimesheet = timesheetRepository.save(timesheet);
         timesheet.setRejectionReason(reason);
 
@@ -116,6 +140,26 @@ public class TimesheetService {
 
     // --- Métodos Auxiliares ---
 
+    // Aviso a los paneles de administración conectados, tras el commit
+    private void publishStatus(WeeklyTimesheet timesheet) {
+        User worker = timesheet.getUser();
+        liveEventBus.publish(worker.getCompany().getId(), LiveEventDto.timesheetStatus(worker.getId(), worker.getFullName(),
+                timesheet.getWorkWeek().getId(), timesheet.getStatus()));
+    }
+
+    private TimesheetSummaryDto toSummaryDto(WeeklyTimesheet ts) {
+        return TimesheetSummaryDto.builder()
+                .timesheetId(ts.getId())
+                .workerId(ts.getUser().getId())
+                .workerName(ts.getUser().getFullName())
+                .workWeekId(ts.getWorkWeek().getId())
+                .weekStartDate(ts.getWorkWeek().getStartDate())
+                .weekEndDate(ts.getWorkWeek().getEndDate())
+                .status(ts.getStatus())
+                .rejectionReason(ts.getRejectionReason())
+                .build();
+    }
+
     private User findFreshUser(User user) {
         return userRepository.findById(user.getId())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found."));
@@ -162,17 +206,7 @@ public class TimesheetService {
         List<WeeklyTimesheet> timesheets = timesheetRepository
                 .findFilteredTimesheets(freshUser.getCompany(), status, workerId);
 
-        return timesheets.stream().map(ts -> TimesheetSummaryDto.builder()
-                        .timesheetId(ts.getId())
-                        .workerId(ts.getUser().getId())
-                        .workerName(ts.getUser().getFullName())
-                        .workWeekId(ts.getWorkWeek().getId())
-                        .weekStartDate(ts.getWorkWeek().getStartDate())
-                        .weekEndDate(ts.getWorkWeek().getEndDate())
-                        .status(ts.getStatus())
-                        .rejectionReason(ts.getRejectionReason())
-                        .build())
-                .collect(Collectors.toList());
+        return timesheets.stream().map(this::toSummaryDto).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
@@ -186,16 +220,39 @@ public class TimesheetService {
         Page<WeeklyTimesheet> timesheets = timesheetRepository
                 .findFilteredTimesheetsPaged(freshUser.getCompany(), status, workerId, pageable);
 
-        return timesheets.map(ts -> TimesheetSummaryDto.builder()
-                .timesheetId(ts.getId())
-                .workerId(ts.getUser().getId())
-                .workerName(ts.getUser().getFullName())
-                .workWeekId(ts.getWorkWeek().getId())
-                .weekStartDate(ts.getWorkWeek().getStartDate())
-                .weekEndDate(ts.getWorkWeek().getEndDate())
-                .status(ts.getStatus())
-                .rejectionReason(ts.getRejectionReason())
-                .build());
+        return timesheets.map(this::toSummaryDto);
+    }
+
+    /**
+     * Hojas de horas filtradas por páginas de hasta limit, de la semana más reciente a la más
+     * antigua. A diferencia de getFilteredTimesheetsPaged no usa OFFSET ni COUNT: cada página
+     * continúa desde la clave (inicio de semana, id) de la anterior, así que una página profunda
+     * cuesta lo mismo que la primera.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<TimesheetSummaryDto> getFilteredTimesheetsAfter(User currentUser, TimesheetStatus status, Long workerId,
+                                                                         String cursor, Integer limit) {
+        User freshUser = findFreshUser(currentUser);
+
+        if (freshUser.getRole().getRoleName() == RoleName.ROLE_TRABAJADOR) {
+            workerId = freshUser.getId();
+        }
+
+        PageCursor after = PageCursor.decode(cursor, TIMESHEETS_CURSOR, 2);
+        int pageSize = PageCursor.limit(limit);
+        List<WeeklyTimesheet> timesheets = timesheetRepository.findFilteredTimesheetsAfter(freshUser.getCompany(), status, workerId,
+                after != null ? after.dateAt(0) : FIRST_PAGE_START,
+                after != null ? after.longAt(1) : Long.MAX_VALUE,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = timesheets.size() > pageSize;
+        List<WeeklyTimesheet> page = hasMore ? timesheets.subList(0, pageSize) : timesheets;
+        String nextCursor = null;
+        if (hasMore) {
+            WeeklyTimesheet last = page.get(pageSize - 1);
+            nextCursor = PageCursor.encode(TIMESHEETS_CURSOR, last.getWorkWeek().getStartDate(), last.getId());
+        }
+        return new CursorPageDto<>(page.stream().map(this::toSummaryDto).collect(Collectors.toList()), nextCursor, hasMore);
     }
 
     // --- MÉTODO NUEVO PARA REENVIAR ---
@@ -218,6 +275,9 @@ public class TimesheetService {
         // y se limpia el motivo del rechazo.
         timesheet.setStatus(TimesheetStatus.OPEN);
         timesheet.setRejectionReason(null);
+        workCalendarService.timesheetStatusChanged(freshUser.getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.OPEN);
+        weeklyTotalsService.timesheetStatusChanged(freshUser.getId(), timesheet.getWorkWeek().getId(), TimesheetStatus.OPEN);
+        publishStatus(timesheet);
 
         auditService.logAction(
                 user,
@@ -0,0 +1,37 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.repository.WeeklyTimesheetRepository.TimesheetStatusRow;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estados de las hojas de horas de un rango, leídos de una vez con
+ * WeeklyTimesheetRepository.findStatusesInRange. Sin hoja de horas el estado es OPEN,
+ * igual que en PayrollCalculationService.calculateWeeklyPay.
+ */
+public final class TimesheetStatuses {
+
+    // workWeekId -> userId -> estado
+    private final Map<Long, Map<Long, TimesheetStatus>> statusesByWeek;
+
+    private TimesheetStatuses(Map<Long, Map<Long, TimesheetStatus>> statusesByWeek) {
+        this.statusesByWeek = statusesByWeek;
+    }
+
+    public static TimesheetStatuses of(List<TimesheetStatusRow> rows) {
+        Map<Long, Map<Long, TimesheetStatus>> statusesByWeek = new HashMap<>();
+        for (TimesheetStatusRow row : rows) {
+            statusesByWeek.computeIfAbsent(row.getWorkWeekId(), id -> new HashMap<>()).put(row.getUserId(), row.getStatus());
+        }
+        return new TimesheetStatuses(statusesByWeek);
+    }
+
+    public TimesheetStatus statusOf(Long userId, Long workWeekId) {
+        Map<Long, TimesheetStatus> weekStatuses = statusesByWeek.get(workWeekId);
+        TimesheetStatus status = weekStatuses != null ? weekStatuses.get(userId) : null;
+        return status != null ? status : TimesheetStatus.OPEN;
+    }
+}
@@ -0,0 +1,236 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.repository.CompanyRepository;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.Punch;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Mantiene weekly_worker_totals: cada marcación suma su intervalo a la fila del trabajador
+ * y semana, y las correcciones o borrados recalculan solo esa semana. Las reglas de los
+ * intervalos son las de PunchHoursEngine, así que los minutos coinciden con los que
+ * calcularía PayrollCalculationService a partir de los registros.
+ * <p>
+ * Las marcaciones se aplican en la misma transacción que las guarda: si el total no se puede
+ * actualizar, el fichaje tampoco se confirma, y la fila nunca se queda atrás de time_logs.
+ * Solo la reconstrucción inicial (tabla vacía) se ejecuta en segundo plano; hasta que confirma
+ * la de una compañía, isComplete devuelve false y los informes leen time_logs.
+ */
+@Service
+public class WeeklyTotalsService {
+
+    private static final Logger log = LoggerFactory.getLogger(WeeklyTotalsService.class);
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final WeeklyTotalsRepository totalsRepository;
+    private final TimeLogRepository timeLogRepository;
+    private final CompanyRepository companyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardStatsCache dashboardStatsCache;
+    private final ExecutorService rebuilder;
+    // Compañías con la reconstrucción inicial pendiente (o fallida): a sus filas les pueden faltar semanas
+    private final Set<Long> pendingCompanies = ConcurrentHashMap.newKeySet();
+
+    public WeeklyTotalsService(WeeklyTotalsRepository totalsRepository,
+                               TimeLogRepository timeLogRepository,
+                               CompanyRepository companyRepository,
+                               TransactionTemplate transactionTemplate,
+                               DashboardStatsCache dashboardStatsCache) {
+        this.totalsRepository = totalsRepository;
+        this.timeLogRepository = timeLogRepository;
+        this.companyRepository = companyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dashboardStatsCache = dashboardStatsCache;
+        this.rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "weekly-totals-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Aplica una marcación recién guardada, dentro de su transacción. Si no es posterior al
+     * último registro aplicado (o es la primera de la semana) se recalcula la semana completa.
+     */
+    public void recordPunch(Long userId, Long workWeekId, EventType eventType, LocalDateTime timestamp) {
+        if (totalsRepository.ensureRow(userId, workWeekId)) {
+            recompute(userId, workWeekId);
+            return;
+        }
+        WeeklyTotal current = totalsRepository.lockRow(userId, workWeekId);
+        if (current.lastEventAt() != null && !timestamp.isAfter(current.lastEventAt())) {
+            recompute(userId, workWeekId);
+            return;
+        }
+        totalsRepository.update(apply(current, eventType, timestamp));
+    }
+
+    /**
+     * Recalcula la semana del trabajador a partir de sus registros (tras una corrección o un borrado).
+     */
+    public void recompute(Long userId, Long workWeekId) {
+        // Los cambios pendientes de JPA deben estar en la base de datos antes de leer time_logs
+        timeLogRepository.flush();
+        totalsRepository.ensureRow(userId, workWeekId);
+        WeeklyTotal total = totalsRepository.lockRow(userId, workWeekId).withProgress(0, null, null);
+        for (Punch punch : totalsRepository.findPunches(userId, workWeekId)) {
+            total = apply(total, punch.eventType(), punch.timestamp());
+        }
+        totalsRepository.update(total);
+    }
+
+    public void timesheetStatusChanged(Long userId, Long workWeekId, TimesheetStatus status) {
+        totalsRepository.updateStatus(userId, workWeekId, status);
+    }
+
+    /**
+     * Si las filas de la compañía están completas: una semana sin fila es una semana sin registros.
+     */
+    public boolean isComplete(Long companyId) {
+        return !pendingCompanies.contains(companyId);
+    }
+
+    public List<WeeklyTotal> findByWorkWeekIds(Collection<Long> workWeekIds) {
+        return totalsRepository.findByWorkWeekIds(workWeekIds);
+    }
+
+    /**
+     * Reconstruye desde time_logs todas las filas de la compañía y, tras el commit, descarta sus
+     * estadísticas del panel.
+     *
+     * @return número de filas (trabajador y semana) generadas
+     */
+    @Transactional
+    public int rebuildCompany(Long companyId) {
+        totalsRepository.deleteByCompany(companyId);
+        List<WeeklyTotal> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        int[] rows = {0};
+        WeeklyTotal[] current = {null};
+        totalsRepository.forEachCompanyPunch(companyId, rs -> {
+            long userId = rs.getLong("user_id");
+            long workWeekId = rs.getLong("work_week_id");
+            WeeklyTotal total = current[0];
+            if (total == null || total.userId() != userId || total.workWeekId() != workWeekId) {
+                if (total != null) {
+                    addToBatch(batch, total);
+                    rows[0]++;
+                }
+                String status = rs.getString("status");
+                total = new WeeklyTotal(userId, workWeekId, 0, null, null,
+                        status != null ? TimesheetStatus.valueOf(status) : TimesheetStatus.OPEN);
+            }
+            current[0] = apply(total, EventType.valueOf(rs.getString("event_type")), rs.getTimestamp("timestamp").toLocalDateTime());
+        });
+        if (current[0] != null) {
+            batch.add(current[0]);
+            rows[0]++;
+        }
+        totalsRepository.insertAll(batch);
+        // Las estadísticas del panel calculadas antes de confirmar no reflejan las filas nuevas
+        afterCommit(() -> {
+            pendingCompanies.remove(companyId);
+            dashboardStatsCache.evict(companyId);
+        });
+        return rows[0];
+    }
+
+    /**
+     * Primera puesta en marcha (tabla vacía): genera en segundo plano los totales de todas las
+     * compañías, sin retrasar el arranque. Mientras tanto los fichajes crean y recalculan sus
+     * propias filas, la reconstrucción no sobrescribe las que ya existan y los informes de cada
+     * compañía se calculan desde time_logs hasta que su reconstrucción confirma.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        // La comprobación va antes de aceptar fichajes: una fila creada por uno no debe evitar la reconstrucción
+        if (!totalsRepository.isEmpty()) {
+            return;
+        }
+        List<Long> companyIds = companyRepository.findAllIds();
+        if (companyIds.isEmpty()) {
+            return;
+        }
+        pendingCompanies.addAll(companyIds);
+        rebuilder.execute(() -> {
+            try {
+                rebuildAll(companyIds);
+            } catch (RuntimeException e) {
+                log.error("Falló la reconstrucción inicial de totales semanales", e);
+            }
+        });
+    }
+
+    private void rebuildAll(List<Long> companyIds) {
+        log.info("Tabla weekly_worker_totals vacía: reconstruyendo desde time_logs...");
+        int rows = 0;
+        for (Long companyId : companyIds) {
+            Integer companyRows = transactionTemplate.execute(status -> rebuildCompany(companyId));
+            rows += companyRows != null ? companyRows : 0;
+        }
+        log.info("Reconstrucción de totales semanales finalizada: {} filas.", rows);
+    }
+
+    /**
+     * Espera a que termine la reconstrucción en curso; si no acaba a tiempo se interrumpe y su
+     * transacción se revierte (la compañía a medias no queda con totales parciales).
+     */
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdown();
+        try {
+            if (!rebuilder.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                rebuilder.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            rebuilder.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Mismas reglas que PunchHoursEngine: un intervalo se abre si no hay otro abierto y se cierra si lo hay
+    static WeeklyTotal apply(WeeklyTotal total, EventType eventType, LocalDateTime timestamp) {
+        byte code = PunchHoursEngine.eventCode(eventType);
+        long workedMinutes = total.workedMinutes();
+        LocalDateTime openIntervalStart = total.openIntervalStart();
+        if (code == PunchHoursEngine.START && openIntervalStart == null) {
+            openIntervalStart = timestamp;
+        } else if (code == PunchHoursEngine.STOP && openIntervalStart != null) {
+            workedMinutes += Duration.between(openIntervalStart, timestamp).toMinutes();
+            openIntervalStart = null;
+        }
+        return total.withProgress(workedMinutes, openIntervalStart, timestamp);
+    }
+
+    private void addToBatch(List<WeeklyTotal> batch, WeeklyTotal total) {
+        batch.add(total);
+        if (batch.size() >= INSERT_BATCH_SIZE) {
+            totalsRepository.insertAll(batch);
+            batch.clear();
+        }
+    }
+}
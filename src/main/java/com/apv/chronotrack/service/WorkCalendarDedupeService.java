@@ -0,0 +1,136 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.repository.WorkCalendarDedupeRepository;
+import com.apv.chronotrack.repository.WorkCalendarDedupeRepository.TimesheetRow;
+import com.apv.chronotrack.repository.WorkCalendarDedupeRepository.WeekRow;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static com.apv.chronotrack.repository.WorkCalendarDedupeRepository.TIMESHEETS_UNIQUE;
+import static com.apv.chronotrack.repository.WorkCalendarDedupeRepository.WORK_WEEKS_UNIQUE;
+
+/**
+ * Limpieza única de work_weeks y weekly_timesheets anteriores a las restricciones únicas: con
+ * duplicados en la tabla, ddl-auto=update no puede crear uk_work_weeks_company_start ni
+ * uk_weekly_timesheets_user_week (solo lo deja en el log) y los INSERT ... ON CONFLICT de
+ * WorkCalendarRepository fallarían. Se ejecuta al arrancar, antes de aceptar peticiones, y
+ * solo hace algo si falta alguna de las dos restricciones:
+ * <ul>
+ *   <li>de cada grupo de semanas duplicadas se conserva la de menor id y se le pasan los
+ *   registros, las hojas de horas y las nóminas congeladas de las demás;</li>
+ *   <li>de las hojas de horas de un mismo trabajador y semana se conserva la más avanzada
+ *   (aprobada con nómina congelada, aprobada, enviada, rechazada, abierta; a igualdad, la de
+ *   menor id) y las demás se borran;</li>
+ *   <li>los totales semanales de las compañías afectadas se reconstruyen y se crean las restricciones.</li>
+ * </ul>
+ * Todo va en una transacción: si algo falla, la aplicación no arranca y la base de datos queda como estaba.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkCalendarDedupeService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkCalendarDedupeService.class);
+
+    private static final Comparator<TimesheetRow> SURVIVOR_FIRST = Comparator
+            .comparing(TimesheetRow::hasSnapshot).reversed()
+            .thenComparingInt(WorkCalendarDedupeService::statusRank)
+            .thenComparingLong(TimesheetRow::id);
+
+    private final WorkCalendarDedupeRepository dedupeRepository;
+    private final WeeklyTotalsService weeklyTotalsService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Tras crear todos los beans (el esquema ya está actualizado) y antes de arrancar el servidor web
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean weeksUnique = dedupeRepository.workWeeksUniqueExists();
+        boolean timesheetsUnique = dedupeRepository.timesheetsUniqueExists();
+        if (weeksUnique && timesheetsUnique) {
+            return;
+        }
+        log.warn("Faltan restricciones únicas del calendario ({}: {}, {}: {}); eliminando duplicados...",
+                WORK_WEEKS_UNIQUE, weeksUnique, TIMESHEETS_UNIQUE, timesheetsUnique);
+        transactionTemplate.executeWithoutResult(status -> dedupe(weeksUnique, timesheetsUnique));
+    }
+
+    void dedupe(boolean weeksUnique, boolean timesheetsUnique) {
+        Set<Long> affectedCompanies = new TreeSet<>();
+        int mergedWeeks = 0;
+
+        Map<String, List<WeekRow>> weekGroups = dedupeRepository.findDuplicateWeeks().stream()
+                .collect(Collectors.groupingBy(w -> w.companyId() + "|" + w.startDate(), LinkedHashMap::new, Collectors.toList()));
+        for (List<WeekRow> group : weekGroups.values()) {
+            long keepWeekId = group.get(0).id();
+            List<Long> duplicateWeekIds = group.subList(1, group.size()).stream().map(WeekRow::id).toList();
+            List<Long> groupWeekIds = group.stream().map(WeekRow::id).toList();
+            mergeTimesheets(dedupeRepository.findTimesheetsByWeekIds(groupWeekIds), keepWeekId);
+            dedupeRepository.mergeWeeks(keepWeekId, duplicateWeekIds);
+            affectedCompanies.add(group.get(0).companyId());
+            mergedWeeks += duplicateWeekIds.size();
+        }
+
+        // Duplicados dentro de una misma semana (los de semanas distintas ya se resolvieron arriba)
+        Map<Long, List<TimesheetRow>> sameWeek = dedupeRepository.findDuplicateTimesheets().stream()
+                .collect(Collectors.groupingBy(TimesheetRow::workWeekId, LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<Long, List<TimesheetRow>> week : sameWeek.entrySet()) {
+            mergeTimesheets(week.getValue(), week.getKey());
+        }
+
+        for (Long companyId : affectedCompanies) {
+            weeklyTotalsService.rebuildCompany(companyId);
+        }
+        if (!weeksUnique) {
+            dedupeRepository.addWorkWeeksUnique();
+        }
+        if (!timesheetsUnique) {
+            dedupeRepository.addTimesheetsUnique();
+        }
+        log.warn("Calendario depurado: {} semanas duplicadas fusionadas, {} semanas con hojas de horas repetidas, {} compañías afectadas.",
+                mergedWeeks, sameWeek.size(), affectedCompanies.size());
+    }
+
+    // Deja una hoja por trabajador, en keepWeekId, con la nómina congelada si alguna la tenía
+    private void mergeTimesheets(List<TimesheetRow> timesheets, long keepWeekId) {
+        Map<Long, List<TimesheetRow>> byUser = timesheets.stream()
+                .collect(Collectors.groupingBy(TimesheetRow::userId, LinkedHashMap::new, Collectors.toList()));
+        for (List<TimesheetRow> userTimesheets : byUser.values()) {
+            List<TimesheetRow> ordered = new ArrayList<>(userTimesheets);
+            ordered.sort(SURVIVOR_FIRST);
+            TimesheetRow survivor = ordered.get(0);
+            List<TimesheetRow> losers = ordered.subList(1, ordered.size());
+            if (!losers.isEmpty()) {
+                List<Long> loserIds = losers.stream().map(TimesheetRow::id).toList();
+                // Las hojas con nómina congelada ordenan primero: si alguna la tenía, es la que se conserva
+                dedupeRepository.deleteSnapshotsOfTimesheets(loserIds);
+                dedupeRepository.deleteTimesheets(loserIds);
+                weeklyTotalsService.timesheetStatusChanged(survivor.userId(), keepWeekId, TimesheetStatus.valueOf(survivor.status()));
+            }
+            if (survivor.workWeekId() != keepWeekId) {
+                dedupeRepository.moveTimesheet(survivor.id(), keepWeekId);
+            }
+        }
+    }
+
+    private static int statusRank(TimesheetRow timesheet) {
+        return switch (TimesheetStatus.valueOf(timesheet.status())) {
+            case APPROVED -> 0;
+            case SUBMITTED -> 1;
+            case REJECTED -> 2;
+            case OPEN -> 3;
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.Company;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.models.WorkWeek;
+import com.apv.chronotrack.repository.WorkCalendarRepository;
+import com.apv.chronotrack.repository.WorkWeekRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.apv.chronotrack.utils.TransactionCallbacks.afterCommit;
+
+/**
+ * Calendario de trabajo compartido: resuelve la semana (WorkWeek) de una compañía para
+ * una fecha y el estado de la hoja de horas de un trabajador en esa semana.
+ * Ambos se guardan en memoria, así que en régimen normal un fichaje no consulta
+ * work_weeks ni weekly_timesheets. La creación se delega en WorkCalendarRepository
+ * (INSERT ... ON CONFLICT), sin carreras entre fichajes simultáneos.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkCalendarService {
+
+    private static final int MAX_ENTRIES = 50_000;
+
+    private final WorkCalendarRepository calendarRepository;
+    private final WorkWeekRepository workWeekRepository;
+
+    private final ConcurrentHashMap<WeekKey, Long> workWeekIds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TimesheetKey, TimesheetStatus> timesheetStatuses = new ConcurrentHashMap<>();
+
+    private record WeekKey(Long companyId, LocalDate startDate) {
+    }
+
+    private record TimesheetKey(Long userId, Long workWeekId) {
+    }
+
+    /**
+     * Semana de trabajo (lunes a domingo) que contiene la fecha, creada si no existe.
+     * Devuelve una referencia perezosa: no se consulta la tabla para obtenerla.
+     */
+    public WorkWeek findOrCreateWorkWeek(Company company, LocalDate date) {
+        return workWeekRepository.getReferenceById(findOrCreateWorkWeekId(company.getId(), date));
+    }
+
+    public Long findOrCreateWorkWeekId(Long companyId, LocalDate date) {
+        WeekKey key = new WeekKey(companyId, startOfWeek(date));
+        Long workWeekId = workWeekIds.get(key);
+        if (workWeekId == null) {
+            workWeekId = calendarRepository.findOrCreateWorkWeekId(companyId, key.startDate());
+            cacheLoadedAfterCommit(workWeekIds, key, workWeekId);
+        }
+        return workWeekId;
+    }
+
+    /**
+     * Estado de la hoja de horas del trabajador para la semana; si no existe se crea en OPEN.
+     */
+    public TimesheetStatus findOrCreateTimesheetStatus(Long userId, Long workWeekId) {
+        TimesheetKey key = new TimesheetKey(userId, workWeekId);
+        TimesheetStatus status = timesheetStatuses.get(key);
+        if (status == null) {
+            status = calendarRepository.findOrCreateTimesheetStatus(userId, workWeekId);
+            cacheLoadedAfterCommit(timesheetStatuses, key, status);
+        }
+        return status;
+    }
+
+    /**
+     * Registra un cambio de estado de una hoja de horas. Se descarta ya el valor en memoria
+     * y el nuevo solo se publica si la transacción confirma.
+     */
+    public void timesheetStatusChanged(Long userId, Long workWeekId, TimesheetStatus status) {
+        TimesheetKey key = new TimesheetKey(userId, workWeekId);
+        timesheetStatuses.remove(key);
+        afterCommit(() -> {
+            evictIfFull(timesheetStatuses, key);
+            timesheetStatuses.put(key, status);
+        });
+    }
+
+    /**
+     * Precarga en memoria las semanas y hojas de horas ya existentes de la semana que empieza en startDate.
+     */
+    public void preloadWeek(List<Long> companyIds, LocalDate startDate) {
+        calendarRepository.forEachWeekTimesheet(companyIds, startDate, (companyId, workWeekId, userId, status) -> {
+            cacheLoadedAfterCommit(workWeekIds, new WeekKey(companyId, startDate), workWeekId);
+            if (userId != null) {
+                cacheLoadedAfterCommit(timesheetStatuses, new TimesheetKey(userId, workWeekId), status);
+            }
+        });
+    }
+
+    public LocalDate startOfWeek(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Las filas creadas dentro de una transacción que se revierte no deben quedar en memoria.
+    // putIfAbsent: una lectura que confirma tarde no pisa un cambio de estado más reciente.
+    private <K, V> void cacheLoadedAfterCommit(ConcurrentHashMap<K, V> map, K key, V value) {
+        afterCommit(() -> {
+            evictIfFull(map, key);
+            map.putIfAbsent(key, value);
+        });
+    }
+
+    private <K> void evictIfFull(Map<K, ?> map, K key) {
+        if (map.size() >= MAX_ENTRIES && !map.containsKey(key)) {
+            Iterator<K> it = map.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+}
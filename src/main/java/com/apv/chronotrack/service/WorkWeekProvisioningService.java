@@ -0,0 +1,66 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.repository.CompanyRepository;
+import com.apv.chronotrack.repository.WorkCalendarRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Crea por adelantado la semana de trabajo de cada compañía y una hoja de horas OPEN
+ * para cada trabajador activo, para que el primer fichaje del lunes no tenga que insertarlas.
+ * Todas las inserciones son idempotentes, así que la tarea puede repetirse sin efectos.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkWeekProvisioningService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkWeekProvisioningService.class);
+
+    // Compañías por sentencia: mantiene cortas las transacciones y los bloqueos
+    private static final int COMPANY_BATCH_SIZE = 200;
+
+    private final CompanyRepository companyRepository;
+    private final WorkCalendarRepository calendarRepository;
+    private final WorkCalendarService workCalendarService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Prepara la semana que empieza el lunes siguiente.
+     * Se ejecuta todos los domingos a las 23:30.
+     */
+    @Scheduled(cron = "0 30 23 * * SUN") // 23:30 cada domingo
+    public void provisionNextWeek() {
+        log.info("Ejecutando tarea: Creando semanas y hojas de horas de la próxima semana...");
+        provisionWeek(workCalendarService.startOfWeek(LocalDate.now()).plusWeeks(1));
+        log.info("Tarea de creación de semanas finalizada.");
+    }
+
+    /**
+     * Crea (si faltan) la semana que empieza en weekStart para todas las compañías y las
+     * hojas de horas OPEN de sus trabajadores activos, y las deja precargadas en memoria.
+     */
+    public void provisionWeek(LocalDate weekStart) {
+        List<Long> companyIds = companyRepository.findAllIds();
+        int weeks = 0;
+        int timesheets = 0;
+        for (int from = 0; from < companyIds.size(); from += COMPANY_BATCH_SIZE) {
+            List<Long> batch = companyIds.subList(from, Math.min(from + COMPANY_BATCH_SIZE, companyIds.size()));
+            int[] created = transactionTemplate.execute(status -> new int[]{
+                    calendarRepository.provisionWorkWeeks(batch, weekStart),
+                    calendarRepository.provisionOpenTimesheets(batch, weekStart)
+            });
+            weeks += created[0];
+            timesheets += created[1];
+            workCalendarService.preloadWeek(batch, weekStart);
+        }
+        log.info("Semana {}: {} semanas y {} hojas de horas creadas para {} compañías.",
+                weekStart, weeks, timesheets, companyIds.size());
+    }
+}
@@ -0,0 +1,110 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.Company;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Minutos trabajados por semana y trabajador a partir de time_logs, con tres estrategias
+ * equivalentes: JVM carga los registros del rango y los pasa a PunchHoursEngine; STREAM recorre
+ * los mismos registros con un cursor, ordenados por trabajador, y resume cada trabajador antes de
+ * leer el siguiente (memoria proporcional a los trabajadores, no a los registros); DATABASE suma
+ * los intervalos en la propia base de datos (TimeLogRepository.sumWorkedMinutesByUserAndWeek)
+ * y solo devuelve una fila por trabajador y semana. Se elige con payroll.hours.strategy.
+ */
+@Service
+public class WorkedMinutesService {
+
+    public enum Strategy { JVM, STREAM, DATABASE }
+
+    private final TimeLogRepository timeLogRepository;
+    private final Strategy strategy;
+
+    public WorkedMinutesService(TimeLogRepository timeLogRepository,
+                                @Value("${payroll.hours.strategy:JVM}") Strategy strategy) {
+        this.timeLogRepository = timeLogRepository;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Minutos de los registros de la compañía entre start y end, indexados por semana y trabajador.
+     * Los trabajadores sin intervalos cerrados pueden faltar o tener 0.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<Long, Long>> minutesByWeekAndWorker(Company company, LocalDateTime start, LocalDateTime end) {
+        return minutesByWeekAndWorker(company, start, end, strategy);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Map<Long, Long>> minutesByWeekAndWorker(Company company, LocalDateTime start, LocalDateTime end,
+                                                             Strategy strategy) {
+        if (strategy == Strategy.STREAM) {
+            return streamMinutes(company, start, end);
+        }
+        Map<Long, Map<Long, Long>> minutes = new HashMap<>();
+        if (strategy == Strategy.DATABASE) {
+            for (Object[] row : timeLogRepository.sumWorkedMinutesByUserAndWeek(company.getId(), start, end)) {
+                minutes.computeIfAbsent(((Number) row[1]).longValue(), id -> new HashMap<>())
+                        .put(((Number) row[0]).longValue(), ((Number) row[2]).longValue());
+            }
+            return minutes;
+        }
+
+        // Una pasada sobre los registros: se agrupan por semana y trabajador y cada grupo pasa
+        // directamente al motor de horas
+        Map<Long, Map<Long, List<TimeLogRow>>> logsByWeekAndWorker = new HashMap<>();
+        for (TimeLogRow log : timeLogRepository.findRowsByCompanyAndTimestampBetween(company, start, end)) {
+            logsByWeekAndWorker.computeIfAbsent(log.workWeekId(), id -> new HashMap<>())
+                    .computeIfAbsent(log.userId(), id -> new ArrayList<>())
+                    .add(log);
+        }
+        for (Map.Entry<Long, Map<Long, List<TimeLogRow>>> week : logsByWeekAndWorker.entrySet()) {
+            Map<Long, Long> weekMinutes = new HashMap<>(week.getValue().size() * 2);
+            for (Map.Entry<Long, List<TimeLogRow>> worker : week.getValue().entrySet()) {
+                weekMinutes.put(worker.getKey(), PunchHoursEngine.totalRowMinutes(worker.getValue()));
+            }
+            minutes.put(week.getKey(), weekMinutes);
+        }
+        return minutes;
+    }
+
+    // Los registros llegan ordenados por trabajador y fecha: se acumulan los del trabajador en curso
+    // y, al pasar al siguiente, se convierten en minutos por semana y se descartan
+    private Map<Long, Map<Long, Long>> streamMinutes(Company company, LocalDateTime start, LocalDateTime end) {
+        Map<Long, Map<Long, Long>> minutes = new HashMap<>();
+        Map<Long, List<TimeLogRow>> workerLogsByWeek = new HashMap<>();
+        Long currentWorker = null;
+        try (Stream<TimeLogRow> rows = timeLogRepository.streamRowsByCompanyAndTimestampBetween(company, start, end)) {
+            Iterator<TimeLogRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                TimeLogRow log = iterator.next();
+                if (!log.userId().equals(currentWorker)) {
+                    foldWorker(currentWorker, workerLogsByWeek, minutes);
+                    currentWorker = log.userId();
+                }
+                workerLogsByWeek.computeIfAbsent(log.workWeekId(), id -> new ArrayList<>()).add(log);
+            }
+        }
+        foldWorker(currentWorker, workerLogsByWeek, minutes);
+        return minutes;
+    }
+
+    private static void foldWorker(Long workerId, Map<Long, List<TimeLogRow>> logsByWeek, Map<Long, Map<Long, Long>> minutes) {
+        for (Map.Entry<Long, List<TimeLogRow>> week : logsByWeek.entrySet()) {
+            minutes.computeIfAbsent(week.getKey(), id -> new HashMap<>())
+                    .put(workerId, PunchHoursEngine.totalRowMinutes(week.getValue()));
+        }
+        logsByWeek.clear();
+    }
+}
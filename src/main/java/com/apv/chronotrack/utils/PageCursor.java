@@ -0,0 +1,93 @@
+package com.apv.chronotrack.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Token opaco de paginación por clave (keyset): guarda los valores de orden del último elemento
+ * devuelto para que la página siguiente empiece justo después con un WHERE sobre el índice,
+ * sin OFFSET ni COUNT. El tipo de listado va dentro del token, así que no se puede reutilizar
+ * el cursor de un listado en otro.
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] keys;
+
+    private PageCursor(String[] keys) {
+        this.keys = keys;
+    }
+
+    public static String encode(String kind, Object... keys) {
+        StringBuilder raw = new StringBuilder(kind);
+        for (Object key : keys) {
+            raw.append(SEPARATOR).append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token de este tipo de listado, o null si no hay token (primera página).
+     */
+    public static PageCursor decode(String token, String kind, int keyCount) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+        String[] parts = raw.split("\\" + SEPARATOR, -1);
+        if (parts.length != keyCount + 1 || !parts[0].equals(kind)) {
+            throw invalid();
+        }
+        String[] keys = new String[keyCount];
+        System.arraycopy(parts, 1, keys, 0, keyCount);
+        return new PageCursor(keys);
+    }
+
+    // Tamaño de página pedido, acotado a [1, MAX_LIMIT]
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    public long longAt(int index) {
+        try {
+            return Long.parseLong(keys[index]);
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    public LocalDate dateAt(int index) {
+        try {
+            return LocalDate.parse(keys[index]);
+        } catch (DateTimeParseException e) {
+            throw invalid();
+        }
+    }
+
+    public LocalDateTime dateTimeAt(int index) {
+        try {
+            return LocalDateTime.parse(keys[index]);
+        } catch (DateTimeParseException e) {
+            throw invalid();
+        }
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid page cursor.");
+    }
+}
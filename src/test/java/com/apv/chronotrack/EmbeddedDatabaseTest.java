@@ -0,0 +1,114 @@
+package com.apv.chronotrack;
+
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Base de las pruebas contra la base de datos embebida (perfil embedded, H2 en modo PostgreSQL).
+ * Cada prueba confirma sus propias transacciones con tx, así que antes de cada una se vacían todas
+ * las tablas, hijas antes que padres: ninguna prueba depende de lo que dejó otra en el mismo contexto.
+ */
+@DataJpaTest
+@ActiveProfiles("embedded")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public abstract class EmbeddedDatabaseTest {
+
+    protected static final LocalDate MONDAY = LocalDate.of(2026, 4, 6);
+
+    private static final String[] TABLES = {
+            "audit_logs", "payroll_snapshots", "weekly_worker_totals", "time_logs", "weekly_timesheets",
+            "work_weeks", "user_work_assignments", "work_locations", "payments", "registration_invitations",
+            "users", "roles", "companies"};
+
+    @Autowired protected CompanyRepository companyRepository;
+    @Autowired protected RoleRepository roleRepository;
+    @Autowired protected UserRepository userRepository;
+    @Autowired protected WorkWeekRepository workWeekRepository;
+    @Autowired protected WeeklyTimesheetRepository timesheetRepository;
+    @Autowired protected TimeLogRepository timeLogRepository;
+    @Autowired protected JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    protected TransactionTemplate tx;
+
+    @BeforeEach
+    void cleanDatabase() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (String table : TABLES) {
+                jdbcTemplate.update("DELETE FROM " + table);
+            }
+        });
+    }
+
+    // --- Datos de prueba (llamar dentro de tx) ---
+
+    protected Company createCompany(String name) {
+        Company company = new Company();
+        company.setCompanyName(name);
+        return companyRepository.save(company);
+    }
+
+    protected Role createRole(RoleName roleName) {
+        Role role = new Role();
+        role.setRoleName(roleName);
+        return roleRepository.save(role);
+    }
+
+    protected User createUser(Company company, Role role, String email) {
+        User user = new User();
+        user.setFullName(email);
+        user.setEmail(email);
+        user.setPasswordHash("x");
+        user.setHourlyRate(new BigDecimal("15.00"));
+        user.setRole(role);
+        user.setCompany(company);
+        return userRepository.save(user);
+    }
+
+    // "Test Company" con un trabajador "worker@test.com" a 15.00 la hora
+    protected User createDefaultWorker() {
+        return createUser(createCompany("Test Company"), createRole(RoleName.ROLE_TRABAJADOR), "worker@test.com");
+    }
+
+    protected WorkWeek createWeek(Company company, LocalDate monday) {
+        WorkWeek week = new WorkWeek();
+        week.setCompany(company);
+        week.setStartDate(monday);
+        week.setEndDate(monday.plusDays(6));
+        return workWeekRepository.save(week);
+    }
+
+    protected WeeklyTimesheet createTimesheet(User user, WorkWeek week, TimesheetStatus status) {
+        WeeklyTimesheet timesheet = new WeeklyTimesheet();
+        timesheet.setUser(user);
+        timesheet.setWorkWeek(week);
+        timesheet.setStatus(status);
+        return timesheetRepository.save(timesheet);
+    }
+
+    // Sin guardar: unas pruebas los guardan de uno en uno y otras en bloque
+    protected static TimeLog log(User user, WorkWeek week, EventType type, LocalDateTime timestamp) {
+        TimeLog log = new TimeLog();
+        log.setUser(user);
+        log.setWorkWeek(week);
+        log.setEventType(type);
+        log.setTimestamp(timestamp);
+        return log;
+    }
+}
@@ -0,0 +1,170 @@
+package com.apv.chronotrack.benchmark;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latencia p50/p99 del fichaje de entrada contra H2 embebido: la secuencia anterior de
+ * consultas de recordClockIn (findById, exists, semana, hoja de horas, último evento,
+ * asignación e INSERT) frente al comando de una sola sentencia.
+ * Ejecutar con: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Import(ClockInCommandRepository.class)
+class ClockInLatencyBenchmarkTest extends EmbeddedDatabaseTest {
+
+    private static final int WORKERS_PER_PATH = 1_000;
+    private static final int WARMUP = 100;
+    private static final int HISTORY_DAYS = 60;
+    private static final double LAT = 40.4168;
+    private static final double LON = -3.7038;
+
+    @Autowired private ClockInCommandRepository clockInCommandRepository;
+    @Autowired private WorkLocationRepository workLocationRepository;
+    @Autowired private UserWorkAssignmentRepository assignmentRepository;
+
+    private List<Long> legacyWorkerIds;
+    private List<Long> commandWorkerIds;
+
+    @BeforeEach
+    void seed() {
+        List<Long> ids = tx.execute(status -> seedCompany(2 * WORKERS_PER_PATH));
+        legacyWorkerIds = ids.subList(0, WORKERS_PER_PATH);
+        commandWorkerIds = ids.subList(WORKERS_PER_PATH, ids.size());
+    }
+
+    @Test
+    @DisplayName("Clock-in: secuencia de 7 consultas vs comando de una sentencia")
+    void clockInLatency() {
+        long[] legacy = measure(legacyWorkerIds, this::legacyClockIn);
+        long[] command = measure(commandWorkerIds, this::commandClockIn);
+
+        System.out.printf("%nClock-in latency over %d workers (H2 embedded)%n", WORKERS_PER_PATH - WARMUP);
+        System.out.printf("  legacy query sequence : p50 = %8.1f us   p99 = %8.1f us%n", percentile(legacy, 50), percentile(legacy, 99));
+        System.out.printf("  single-statement cmd  : p50 = %8.1f us   p99 = %8.1f us%n%n", percentile(command, 50), percentile(command, 99));
+
+        LocalDate today = LocalDate.now();
+        for (Long workerId : commandWorkerIds) {
+            User worker = userRepository.findById(workerId).orElseThrow();
+            assertTrue(timeLogRepository.existsByUserAndEventTypeAndTimestampBetween(
+                    worker, EventType.INGRESO, today.atStartOfDay(), today.atTime(LocalTime.MAX)));
+        }
+    }
+
+    private long[] measure(List<Long> workerIds, Function<Long, Long> clockIn) {
+        long[] samples = new long[workerIds.size() - WARMUP];
+        for (int i = 0; i < workerIds.size(); i++) {
+            Long workerId = workerIds.get(i);
+            long start = System.nanoTime();
+            Long timeLogId = tx.execute(status -> clockIn.apply(workerId));
+            long elapsed = System.nanoTime() - start;
+            assertNotNull(timeLogId);
+            if (i >= WARMUP) {
+                samples[i - WARMUP] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    // Réplica de la secuencia de consultas que hacía recordClockIn antes del comando
+    private Long legacyClockIn(Long workerId) {
+        User worker = userRepository.findById(workerId).orElseThrow();
+        LocalDate today = LocalDate.now();
+        if (timeLogRepository.existsByUserAndEventTypeAndTimestampBetween(worker, EventType.INGRESO, today.atStartOfDay(), today.atTime(LocalTime.MAX))) {
+            return null;
+        }
+        LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        WorkWeek week = workWeekRepository.findByCompanyAndStartDateAndEndDate(worker.getCompany(), monday, monday.plusDays(6)).orElseThrow();
+        WeeklyTimesheet timesheet = timesheetRepository.findByUserAndWorkWeek(worker, week).orElseThrow();
+        if (timesheet.getStatus() != TimesheetStatus.OPEN) {
+            return null;
+        }
+        EventType last = timeLogRepository.findTopByUserOrderByTimestampDesc(worker).map(TimeLog::getEventType).orElse(null);
+        if (last != null && last != EventType.SALIDA) {
+            return null;
+        }
+        WorkLocation location = assignmentRepository.findByUserAndIsCurrentTrue(worker).orElseThrow().getWorkLocation();
+        if (location.getLatitude() == null) {
+            return null;
+        }
+        TimeLog log = new TimeLog();
+        log.setUser(worker);
+        log.setEventType(EventType.INGRESO);
+        log.setTimestamp(LocalDateTime.now());
+        log.setWorkWeek(week);
+        return timeLogRepository.save(log).getId();
+    }
+
+    private Long commandClockIn(Long workerId) {
+        return clockInCommandRepository.clockIn(workerId, LocalDateTime.now(), LAT, LON)
+                .map(ClockInCommandRepository.ClockInResult::timeLogId)
+                .orElse(null);
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000.0;
+    }
+
+    // --- Datos sintéticos ---
+
+    private List<Long> seedCompany(int workers) {
+        Role role = createRole(RoleName.ROLE_TRABAJADOR);
+        Company company = createCompany("Benchmark Co");
+
+        WorkLocation location = new WorkLocation();
+        location.setName("HQ");
+        location.setLatitude(LAT);
+        location.setLongitude(LON);
+        location.setGeofenceRadiusMeters(200.0);
+        location.setCompany(company);
+        location = workLocationRepository.save(location);
+
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        WorkWeek currentWeek = createWeek(company, monday);
+        WorkWeek pastWeek = createWeek(company, monday.minusWeeks(HISTORY_DAYS / 7 + 1));
+
+        List<Long> ids = new ArrayList<>();
+        List<TimeLog> history = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            User worker = createUser(company, role, "worker" + i + "@bench.test");
+            ids.add(worker.getId());
+            createTimesheet(worker, currentWeek, TimesheetStatus.OPEN);
+
+            UserWorkLocationAssignment assignment = new UserWorkLocationAssignment();
+            assignment.setUser(worker);
+            assignment.setWorkLocation(location);
+            assignment.setCurrent(true);
+            assignmentRepository.save(assignment);
+
+            // Historial previo: un día completo por jornada pasada
+            for (int d = HISTORY_DAYS; d > 0; d--) {
+                LocalDateTime day = LocalDate.now().minusDays(d).atTime(8, 0);
+                history.add(log(worker, pastWeek, EventType.INGRESO, day));
+                history.add(log(worker, pastWeek, EventType.SALIDA, day.plusHours(8)));
+            }
+        }
+        timeLogRepository.saveAll(history);
+        return ids;
+    }
+}
@@ -0,0 +1,167 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.DTO.ClockInRequestDto;
+import com.apv.chronotrack.DTO.TimeLogDTO;
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cada regla que hace fallar el comando de una sentencia, y el servicio que en ese caso
+ * recurre a la validación completa: mismo error de siempre, o el fichaje si lo único que
+ * faltaba era la semana o la hoja de horas.
+ */
+@Import({ClockInCommandRepository.class, TimeLogService.class, PunchStateCache.class,
+        WorkCalendarService.class, WorkCalendarRepository.class, WeeklyTotalsService.class, WeeklyTotalsRepository.class,
+        DashboardStatsCache.class, PresenceRegistry.class, LiveEventBus.class})
+class ClockInCommandRepositoryTest extends EmbeddedDatabaseTest {
+
+    private static final double LAT = 40.4168;
+    private static final double LON = -3.7038;
+    // Unos 1,1 km al norte del lugar de trabajo, fuera de la geocerca de 200 m
+    private static final double FAR_LAT = LAT + 0.01;
+
+    @Autowired private ClockInCommandRepository clockInCommandRepository;
+    @Autowired private TimeLogService timeLogService;
+    @Autowired private WorkLocationRepository workLocationRepository;
+    @Autowired private UserWorkAssignmentRepository assignmentRepository;
+
+    private User worker;
+    private WorkWeek week;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.now();
+        tx.executeWithoutResult(status -> {
+            worker = createDefaultWorker();
+
+            WorkLocation location = new WorkLocation();
+            location.setName("Oficina Central");
+            location.setLatitude(LAT);
+            location.setLongitude(LON);
+            location.setGeofenceRadiusMeters(200.0);
+            location.setCompany(worker.getCompany());
+            location = workLocationRepository.save(location);
+
+            UserWorkLocationAssignment assignment = new UserWorkLocationAssignment();
+            assignment.setUser(worker);
+            assignment.setWorkLocation(location);
+            assignment.setCurrent(true);
+            assignmentRepository.save(assignment);
+        });
+    }
+
+    @Test
+    @DisplayName("clockIn - Con hoja abierta, sin fichajes y dentro de la geocerca inserta el INGRESO")
+    void clockIn_insertsWhenAllRulesPass() {
+        openCurrentWeek(TimesheetStatus.OPEN);
+
+        LocalDateTime now = LocalDateTime.now();
+        ClockInCommandRepository.ClockInResult result = tx.execute(status ->
+                clockInCommandRepository.clockIn(worker.getId(), now, LAT, LON)).orElseThrow();
+
+        assertEquals(week.getId(), result.workWeekId());
+        TimeLog saved = timeLogRepository.findById(result.timeLogId()).orElseThrow();
+        assertEquals(EventType.INGRESO, saved.getEventType());
+    }
+
+    @Test
+    @DisplayName("clockIn - Fuera de la geocerca no inserta y el servicio rechaza la zona de trabajo")
+    void clockIn_rejectsOutsideGeofence() {
+        openCurrentWeek(TimesheetStatus.OPEN);
+
+        assertRejected(FAR_LAT, "Cannot clock in. You are not within the allowed work area.");
+    }
+
+    @Test
+    @DisplayName("clockIn - Un segundo INGRESO el mismo día no inserta y el servicio lo rechaza")
+    void clockIn_rejectsSecondClockInSameDay() {
+        openCurrentWeek(TimesheetStatus.OPEN);
+        tx.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            timeLogRepository.save(log(worker, week, EventType.INGRESO, now.minusSeconds(2)));
+            timeLogRepository.save(log(worker, week, EventType.SALIDA, now.minusSeconds(1)));
+        });
+
+        assertRejected(LAT, "You have already clocked in today. You cannot clock in more than once per day.");
+    }
+
+    @Test
+    @DisplayName("clockIn - Si el último evento no es SALIDA no inserta y el servicio rechaza la acción")
+    void clockIn_rejectsWhenLastEventIsNotClockOut() {
+        openCurrentWeek(TimesheetStatus.OPEN);
+        // Jornada anterior sin cerrar
+        tx.executeWithoutResult(status ->
+                timeLogRepository.save(log(worker, week, EventType.INGRESO, today.minusDays(1).atTime(8, 0))));
+
+        assertRejected(LAT, "Action not allowed. Last event was: INGRESO");
+    }
+
+    @Test
+    @DisplayName("clockIn - Sin hoja OPEN no inserta y el servicio rechaza la semana ya enviada")
+    void clockIn_rejectsWhenTimesheetNotOpen() {
+        openCurrentWeek(TimesheetStatus.SUBMITTED);
+
+        assertRejected(LAT, "Cannot record time. This week's timesheet has already been submitted or processed.");
+    }
+
+    @Test
+    @DisplayName("recordClockIn - Sin semana ni hoja de horas la validación completa las crea y registra el fichaje")
+    void recordClockIn_fallsBackAndCreatesWeekAndTimesheet() {
+        assertTrue(tx.execute(status -> clockInCommandRepository.clockIn(worker.getId(), LocalDateTime.now(), LAT, LON)).isEmpty());
+
+        TimeLogDTO dto = timeLogService.recordClockIn(worker, request(LAT));
+
+        assertEquals(EventType.INGRESO, dto.getEventType());
+        WorkWeek created = workWeekRepository.findById(dto.getWorkWeekId()).orElseThrow();
+        assertEquals(monday(), created.getStartDate());
+        WeeklyTimesheet timesheet = timesheetRepository.findAll().get(0);
+        assertEquals(TimesheetStatus.OPEN, timesheet.getStatus());
+        assertEquals(1, timeLogRepository.count());
+    }
+
+    // --- Helpers ---
+
+    private void openCurrentWeek(TimesheetStatus timesheetStatus) {
+        tx.executeWithoutResult(status -> {
+            week = createWeek(worker.getCompany(), monday());
+            createTimesheet(worker, week, timesheetStatus);
+        });
+    }
+
+    // El comando no inserta nada y el servicio, tras la validación completa, lanza el error esperado
+    private void assertRejected(double latitude, String message) {
+        long before = timeLogRepository.count();
+        assertTrue(tx.execute(status -> clockInCommandRepository.clockIn(worker.getId(), LocalDateTime.now(), latitude, LON)).isEmpty());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> timeLogService.recordClockIn(worker, request(latitude)));
+
+        assertEquals(message, error.getMessage());
+        assertEquals(before, timeLogRepository.count());
+    }
+
+    private LocalDate monday() {
+        return today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static ClockInRequestDto request(double latitude) {
+        ClockInRequestDto request = new ClockInRequestDto();
+        request.setLatitude(latitude);
+        request.setLongitude(LON);
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.UserRepository.WorkerRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRepositoryTest extends EmbeddedDatabaseTest {
+
+    @Autowired private WorkLocationRepository workLocationRepository;
+    @Autowired private UserWorkAssignmentRepository assignmentRepository;
+
+    private Company company;
+    private User assigned;
+    private User unassigned;
+    private User inactive;
+    private WorkLocation currentLocation;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            company = createCompany("Test Company");
+            Company otherCompany = createCompany("Other Company");
+
+            Role workerRole = createRole(RoleName.ROLE_TRABAJADOR);
+            Role adminRole = createRole(RoleName.ROLE_ADMINISTRADOR);
+
+            assigned = user("assigned@test.com", workerRole, company, true);
+            unassigned = user("unassigned@test.com", workerRole, company, true);
+            inactive = user("inactive@test.com", workerRole, company, false);
+            user("admin@test.com", adminRole, company, true);
+            user("other@test.com", workerRole, otherCompany, true);
+
+            // Una asignación anterior ya no vigente y la actual: solo cuenta la actual
+            WorkLocation oldLocation = location("Bodega Sur");
+            currentLocation = location("Oficina Central");
+            assign(assigned, oldLocation, false);
+            assign(assigned, currentLocation, true);
+        });
+    }
+
+    @Test
+    @DisplayName("findWorkerRows - Filtra por compañía, rol y estado, con la ubicación actual o ninguna")
+    void findWorkerRows_filtersAndJoinsCurrentLocation() {
+        List<WorkerRow> active = userRepository.findWorkerRows(company.getId(), RoleName.ROLE_TRABAJADOR, List.of(true));
+
+        assertEquals(List.of(assigned.getId(), unassigned.getId()), active.stream().map(WorkerRow::id).toList());
+        assertEquals(currentLocation.getId(), active.get(0).workLocationId());
+        assertEquals("Oficina Central", active.get(0).workLocationName());
+        assertNull(active.get(1).workLocationId());
+        assertNull(active.get(1).workLocationName());
+
+        List<WorkerRow> inactiveRows = userRepository.findWorkerRows(company.getId(), RoleName.ROLE_TRABAJADOR, List.of(false));
+        assertEquals(List.of(inactive.getId()), inactiveRows.stream().map(WorkerRow::id).toList());
+        assertFalse(inactiveRows.get(0).active());
+
+        assertEquals(3, userRepository.findWorkerRows(company.getId(), RoleName.ROLE_TRABAJADOR, List.of(true, false)).size());
+    }
+
+    @Test
+    @DisplayName("findWorkerRowsAfter - Recorre la lista por páginas sin repetir ni saltar trabajadores")
+    void findWorkerRowsAfter_pagesByKey() {
+        List<Boolean> all = List.of(true, false);
+
+        List<WorkerRow> first = userRepository.findWorkerRowsAfter(company.getId(), RoleName.ROLE_TRABAJADOR, all, 0L, PageRequest.of(0, 2));
+        List<WorkerRow> second = userRepository.findWorkerRowsAfter(company.getId(), RoleName.ROLE_TRABAJADOR, all,
+                first.get(1).id(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(assigned.getId(), unassigned.getId()), first.stream().map(WorkerRow::id).toList());
+        assertEquals(List.of(inactive.getId()), second.stream().map(WorkerRow::id).toList());
+        assertEquals("Oficina Central", first.get(0).workLocationName());
+    }
+
+    @Test
+    @DisplayName("findWorkerRowById - Devuelve al trabajador con su ubicación actual")
+    void findWorkerRowById_returnsCurrentLocation() {
+        WorkerRow row = userRepository.findWorkerRowById(assigned.getId()).orElseThrow();
+
+        assertEquals("assigned@test.com", row.email());
+        assertEquals(0, new BigDecimal("15.00").compareTo(row.hourlyRate()));
+        assertEquals("Oficina Central", row.workLocationName());
+        assertTrue(userRepository.findWorkerRowById(-1L).isEmpty());
+    }
+
+    // --- Helpers ---
+
+    private User user(String email, Role role, Company company, boolean active) {
+        User user = createUser(company, role, email);
+        user.setAccountActive(active);
+        return user;
+    }
+
+    private WorkLocation location(String name) {
+        WorkLocation location = new WorkLocation();
+        location.setName(name);
+        location.setLatitude(0.0);
+        location.setLongitude(0.0);
+        location.setGeofenceRadiusMeters(100.0);
+        location.setCompany(company);
+        return workLocationRepository.save(location);
+    }
+
+    private void assign(User user, WorkLocation location, boolean current) {
+        UserWorkLocationAssignment assignment = new UserWorkLocationAssignment();
+        assignment.setUser(user);
+        assignment.setWorkLocation(location);
+        assignment.setCurrent(current);
+        assignmentRepository.save(assignment);
+    }
+}
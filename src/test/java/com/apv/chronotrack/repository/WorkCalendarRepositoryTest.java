@@ -0,0 +1,115 @@
+package com.apv.chronotrack.repository;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(WorkCalendarRepository.class)
+class WorkCalendarRepositoryTest extends EmbeddedDatabaseTest {
+
+    @Autowired private WorkCalendarRepository calendarRepository;
+
+    private Company company;
+    private User worker;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            company = createCompany("Test Company");
+            worker = createUser(company, createRole(RoleName.ROLE_TRABAJADOR), "worker@test.com");
+        });
+    }
+
+    @Test
+    @DisplayName("findOrCreateWorkWeekId - Idempotente: la segunda llamada devuelve la misma semana")
+    void findOrCreateWorkWeekId_isIdempotent() {
+        Long first = tx.execute(status -> calendarRepository.findOrCreateWorkWeekId(company.getId(), MONDAY));
+        Long second = tx.execute(status -> calendarRepository.findOrCreateWorkWeekId(company.getId(), MONDAY));
+
+        assertEquals(first, second);
+        assertEquals(1, workWeekRepository.count());
+        WorkWeek week = workWeekRepository.findById(first).orElseThrow();
+        assertEquals(MONDAY.plusDays(6), week.getEndDate());
+    }
+
+    @Test
+    @DisplayName("findOrCreateWorkWeekId - Fichajes simultáneos no crean semanas duplicadas")
+    void findOrCreateWorkWeekId_concurrentCallsCreateOneRow() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return tx.execute(status -> calendarRepository.findOrCreateWorkWeekId(company.getId(), MONDAY));
+            }));
+        }
+        start.countDown();
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<Long> result : results) {
+            ids.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, ids.size());
+        assertEquals(1, workWeekRepository.count());
+    }
+
+    @Test
+    @DisplayName("findOrCreateTimesheetStatus - Crea la hoja en OPEN y respeta el estado existente")
+    void findOrCreateTimesheetStatus_createsOpenAndKeepsExisting() {
+        Long weekId = tx.execute(status -> calendarRepository.findOrCreateWorkWeekId(company.getId(), MONDAY));
+
+        assertEquals(TimesheetStatus.OPEN, tx.execute(status -> calendarRepository.findOrCreateTimesheetStatus(worker.getId(), weekId)));
+
+        tx.executeWithoutResult(status -> {
+            WeeklyTimesheet timesheet = timesheetRepository.findAll().get(0);
+            timesheet.setStatus(TimesheetStatus.APPROVED);
+            timesheetRepository.save(timesheet);
+        });
+
+        assertEquals(TimesheetStatus.APPROVED, tx.execute(status -> calendarRepository.findOrCreateTimesheetStatus(worker.getId(), weekId)));
+        assertEquals(1, timesheetRepository.count());
+    }
+
+    @Test
+    @DisplayName("provisionWeek - Crea semana y hojas OPEN solo para trabajadores activos; repetir no duplica")
+    void provisionWeek_createsWeekAndOpenTimesheetsIdempotently() {
+        tx.executeWithoutResult(status -> {
+            createUser(company, createRole(RoleName.ROLE_ADMINISTRADOR), "admin@test.com");
+            User inactive = createUser(company, worker.getRole(), "inactive@test.com");
+            inactive.setAccountActive(false);
+        });
+        List<Long> companyIds = List.of(company.getId());
+
+        int[] first = tx.execute(status -> new int[]{
+                calendarRepository.provisionWorkWeeks(companyIds, MONDAY),
+                calendarRepository.provisionOpenTimesheets(companyIds, MONDAY)});
+        int[] second = tx.execute(status -> new int[]{
+                calendarRepository.provisionWorkWeeks(companyIds, MONDAY),
+                calendarRepository.provisionOpenTimesheets(companyIds, MONDAY)});
+
+        assertArrayEquals(new int[]{1, 1}, first);
+        assertArrayEquals(new int[]{0, 0}, second);
+        Long weekId = tx.execute(status -> calendarRepository.findOrCreateWorkWeekId(company.getId(), MONDAY));
+        assertEquals(1, workWeekRepository.count());
+        WeeklyTimesheet timesheet = timesheetRepository.findAll().get(0);
+        assertEquals(TimesheetStatus.OPEN, timesheet.getStatus());
+        assertEquals(worker.getId(), timesheet.getUser().getId());
+        assertEquals(weekId, timesheet.getWorkWeek().getId());
+    }
+}
@@ -0,0 +1,147 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.ConsolidatedPayrollReportDto;
+import com.apv.chronotrack.DTO.DashboardStatsDto;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.UserRepository;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import com.apv.chronotrack.repository.WorkWeekRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Origen de los minutos de la nómina: weekly_worker_totals cuando las filas de la compañía están
+ * completas, time_logs mientras su reconstrucción inicial está pendiente.
+ */
+class AdminServiceTest {
+
+    private static final Long COMPANY_ID = 1L;
+    private static final Long WEEK_ID = 10L;
+    private static final Long WORKER_ID = 7L;
+    // 45 horas a 15.00: 40 normales y 5 extra
+    private static final long WORKED_MINUTES = 45 * 60;
+    private static final BigDecimal WEEKLY_PAY = new BigDecimal("712.50");
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final WorkWeekRepository workWeekRepository = mock(WorkWeekRepository.class);
+    private final WeeklyTotalsService weeklyTotalsService = mock(WeeklyTotalsService.class);
+    private final PayrollSnapshotService payrollSnapshotService = mock(PayrollSnapshotService.class);
+    private final WorkedMinutesService workedMinutesService = mock(WorkedMinutesService.class);
+    private final PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+    private final PayrollComputePool computePool = new PayrollComputePool(1, Long.MAX_VALUE);
+
+    private AdminService adminService;
+    private Company company;
+    private User admin;
+    private User worker;
+    private WorkWeek week;
+
+    @BeforeEach
+    void setUp() {
+        adminService = new AdminService(userRepository, null, null, workWeekRepository, null, null, null, null, null,
+                weeklyTotalsService, computePool, payrollSnapshotService, workedMinutesService,
+                new DashboardStatsCache(30, mock(PlatformTransactionManager.class)), presenceRegistry, null, null);
+
+        company = new Company();
+        company.setId(COMPANY_ID);
+        admin = user(1L, RoleName.ROLE_ADMINISTRADOR);
+        worker = user(WORKER_ID, RoleName.ROLE_TRABAJADOR);
+        worker.setHourlyRate(new BigDecimal("15.00"));
+        when(userRepository.findById(admin.getId())).thenReturn(Optional.of(admin));
+        when(userRepository.findByCompany(company)).thenReturn(List.of(admin, worker));
+        when(userRepository.findByCompanyAndAccountActiveTrue(company)).thenReturn(List.of(admin, worker));
+    }
+
+    @AfterEach
+    void tearDown() {
+        computePool.shutdown();
+    }
+
+    @Test
+    @DisplayName("generateConsolidatedPayrollReport - Con la reconstrucción inicial pendiente las semanas completas salen de los registros")
+    void consolidated_readsLogsWhileRebuildPending() {
+        LocalDate monday = LocalDate.of(2026, 4, 6);
+        givenWeek(monday);
+        when(weeklyTotalsService.isComplete(COMPANY_ID)).thenReturn(false);
+        when(workedMinutesService.minutesByWeekAndWorker(company, monday.atStartOfDay(), monday.plusDays(6).atTime(LocalTime.MAX)))
+                .thenReturn(Map.of(WEEK_ID, Map.of(WORKER_ID, WORKED_MINUTES)));
+
+        ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(monday, monday.plusDays(6), admin);
+
+        assertEquals(0, WEEKLY_PAY.compareTo(report.getGrandTotalPay()));
+        verify(weeklyTotalsService, never()).findByWorkWeekIds(any());
+    }
+
+    @Test
+    @DisplayName("generateConsolidatedPayrollReport - Con las filas completas las semanas completas salen de los totales")
+    void consolidated_readsTotalsWhenComplete() {
+        LocalDate monday = LocalDate.of(2026, 4, 6);
+        givenWeek(monday);
+        when(weeklyTotalsService.isComplete(COMPANY_ID)).thenReturn(true);
+        when(weeklyTotalsService.findByWorkWeekIds(List.of(WEEK_ID))).thenReturn(List.of(total()));
+
+        ConsolidatedPayrollReportDto report = adminService.generateConsolidatedPayrollReport(monday, monday.plusDays(6), admin);
+
+        assertEquals(0, WEEKLY_PAY.compareTo(report.getGrandTotalPay()));
+        verifyNoInteractions(workedMinutesService);
+    }
+
+    @Test
+    @DisplayName("getDashboardStats - Con la reconstrucción inicial pendiente la semana actual sale de los registros")
+    void dashboard_readsLogsWhileRebuildPending() {
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate sunday = LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        givenWeek(monday);
+        when(workWeekRepository.findByCompanyAndStartDateAndEndDate(company, monday, sunday)).thenReturn(Optional.of(week));
+        when(weeklyTotalsService.isComplete(COMPANY_ID)).thenReturn(false);
+        when(workedMinutesService.minutesByWeekAndWorker(company, monday.atStartOfDay(), sunday.atTime(LocalTime.MAX)))
+                .thenReturn(Map.of(WEEK_ID, Map.of(WORKER_ID, WORKED_MINUTES)));
+
+        DashboardStatsDto stats = adminService.getDashboardStats(admin);
+
+        assertEquals(45.0, stats.getTotalHoursThisWeek());
+        assertEquals(0, WEEKLY_PAY.compareTo(stats.getEstimatedWeeklyPayroll()));
+        verify(weeklyTotalsService, never()).findByWorkWeekIds(any());
+    }
+
+    // --- Helpers ---
+
+    private void givenWeek(LocalDate monday) {
+        week = new WorkWeek();
+        week.setId(WEEK_ID);
+        week.setCompany(company);
+        week.setStartDate(monday);
+        week.setEndDate(monday.plusDays(6));
+        when(workWeekRepository.findOverlappingWeeks(company, monday, monday.plusDays(6))).thenReturn(List.of(week));
+    }
+
+    private User user(Long id, RoleName roleName) {
+        Role role = new Role();
+        role.setRoleName(roleName);
+        User user = new User();
+        user.setId(id);
+        user.setCompany(company);
+        user.setRole(role);
+        return user;
+    }
+
+    private WeeklyTotal total() {
+        return new WeeklyTotal(WORKER_ID, WEEK_ID, WORKED_MINUTES, null, null, TimesheetStatus.OPEN);
+    }
+}
@@ -0,0 +1,106 @@
+package com.apv.chronotrack.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompanyLogoCacheTest {
+
+    private static final Long COMPANY_ID = 1L;
+
+    @TempDir
+    Path tempDir;
+
+    private final CompanyLogoCache cache = new CompanyLogoCache(1024 * 1024, 2000, 3000, 300);
+
+    @Test
+    @DisplayName("get - Descarga una vez, guarda el logo reducido a la caja y sirve el resto desde caché")
+    void get_fetchesOnceAndScales() throws Exception {
+        String url = logo("logo.png", 640, 320);
+
+        byte[] first = cache.get(COMPANY_ID, url);
+        byte[] second = cache.get(COMPANY_ID, url);
+
+        assertSame(first, second);
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(first));
+        assertEquals(CompanyLogoCache.LOGO_BOX_PIXELS, scaled.getWidth());
+        assertEquals(CompanyLogoCache.LOGO_BOX_PIXELS / 2, scaled.getHeight());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    @DisplayName("get - Una URL rota devuelve null y no se reintenta mientras dure la caché negativa")
+    void get_cachesFailures() {
+        String url = tempDir.resolve("missing.png").toUri().toString();
+
+        assertNull(cache.get(COMPANY_ID, url));
+        assertNull(cache.get(COMPANY_ID, url));
+
+        assertEquals(1, cache.stats().failures());
+        assertEquals(1, cache.stats().misses());
+        assertNull(cache.get(COMPANY_ID, null));
+    }
+
+    @Test
+    @DisplayName("get - Al superar el límite de bytes expulsa el logo usado hace más tiempo")
+    void get_evictsLeastRecentlyUsed() throws Exception {
+        String first = logo("first.png", 100, 100);
+        String second = logo("second.png", 100, 100);
+        String third = logo("third.png", 100, 100);
+        // Cabe en el límite con dos logos, no con tres
+        CompanyLogoCache probe = new CompanyLogoCache(1024 * 1024, 2000, 3000, 300);
+        probe.get(COMPANY_ID, first);
+        long oneLogo = probe.stats().bytes();
+        CompanyLogoCache small = new CompanyLogoCache(oneLogo * 2 + oneLogo / 2, 2000, 3000, 300);
+
+        small.get(COMPANY_ID, first);
+        small.get(2L, second);
+        small.get(COMPANY_ID, first);
+        small.get(3L, third);
+
+        assertEquals(1, small.stats().evictions());
+        small.get(COMPANY_ID, first);
+        small.get(2L, second);
+        // first siguió en caché; second fue el expulsado y se vuelve a descargar
+        assertEquals(4, small.stats().misses());
+    }
+
+    @Test
+    @DisplayName("evict - Descarta los logos de la compañía y el siguiente informe los vuelve a descargar")
+    void evict_forcesRefetch() throws Exception {
+        String url = logo("logo.png", 50, 50);
+        cache.get(COMPANY_ID, url);
+
+        cache.evict(COMPANY_ID);
+        cache.get(COMPANY_ID, url);
+
+        assertEquals(2, cache.stats().misses());
+        assertEquals(1, cache.stats().entries());
+    }
+
+    // --- Helpers ---
+
+    private String logo(String name, int width, int height) throws Exception {
+        Path file = tempDir.resolve(name);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 31 + y * 17 + name.hashCode()) & 0xFFFFFF);
+            }
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            ImageIO.write(image, "png", out);
+        }
+        return file.toUri().toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.DashboardStatsDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class DashboardStatsCacheTest {
+
+    private static final Long COMPANY_ID = 1L;
+
+    private final DashboardStatsCache cache = new DashboardStatsCache(60, mock(PlatformTransactionManager.class));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("get - La segunda petición se sirve de caché sin volver a calcular")
+    void get_secondCallIsHit() {
+        DashboardStatsDto first = cache.get(COMPANY_ID, this::load);
+        DashboardStatsDto second = cache.get(COMPANY_ID, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(new DashboardStatsCache.Stats(1, 1, 0, 0, 1), cache.stats());
+    }
+
+    @Test
+    @DisplayName("bindTo - Publica aciertos, fallos, invalidaciones y tamaño como métricas de caché")
+    void bindTo_publishesCacheMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(COMPANY_ID, this::load);
+        cache.get(COMPANY_ID, this::load);
+        cache.get(2L, this::load);
+        cache.invalidate(2L);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "dashboardStats").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.evictions").tag("cache", "dashboardStats").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "dashboardStats").gauge().value());
+    }
+
+    @Test
+    @DisplayName("invalidate - Fuerza a recalcular solo la compañía afectada")
+    void invalidate_forcesReloadForCompany() {
+        cache.get(COMPANY_ID, this::load);
+        cache.get(2L, this::load);
+
+        cache.invalidate(COMPANY_ID);
+        cache.get(COMPANY_ID, this::load);
+        cache.get(2L, this::load);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("get - Con TTL 0 cada petición vuelve a calcular")
+    void get_expiredEntryIsReloaded() {
+        DashboardStatsCache noTtl = new DashboardStatsCache(0, mock(PlatformTransactionManager.class));
+
+        noTtl.get(COMPANY_ID, this::load);
+        noTtl.get(COMPANY_ID, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("get - Fallos concurrentes de la misma compañía calculan una sola vez")
+    void get_concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<DashboardStatsDto> first = CompletableFuture.supplyAsync(() -> cache.get(COMPANY_ID, () -> {
+            loading.countDown();
+            await(release);
+            return load();
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<DashboardStatsDto> second = CompletableFuture.supplyAsync(() -> cache.get(COMPANY_ID, this::load));
+        // El segundo hilo queda esperando al cálculo en curso
+        while (cache.stats().coalesced() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("get - Un cálculo fallido no se guarda en caché")
+    void get_failedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(COMPANY_ID, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        cache.get(COMPANY_ID, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    // --- Helpers ---
+
+    private DashboardStatsDto load() {
+        return DashboardStatsDto.builder().totalWorkers(loads.incrementAndGet()).build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
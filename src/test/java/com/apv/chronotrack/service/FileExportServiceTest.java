@@ -0,0 +1,196 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.*;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileExportServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 4, 6);
+
+    private final FileExportService fileExportService = new FileExportService(new CompanyLogoCache(8 * 1024 * 1024, 2000, 3000, 300));
+
+    @Test
+    @DisplayName("writeConsolidatedExcel - Escribe todas las filas, más que la ventana en memoria, con anchos fijados")
+    void writeConsolidatedExcel_writesAllRows() throws Exception {
+        List<ConsolidatedPayrollEntryDto> entries = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            ConsolidatedPayrollEntryDto entry = new ConsolidatedPayrollEntryDto((long) i, "Worker " + i);
+            entry.setTotalRegularHours(40.0);
+            entry.setTotalOvertimeHours(2.0);
+            entry.setTotalHours(42.0);
+            entry.setTotalPay(new BigDecimal("800.00"));
+            entries.add(entry);
+        }
+        entries.get(0).setWorkerName("A worker with a rather long full name");
+        ConsolidatedPayrollReportDto report = ConsolidatedPayrollReportDto.builder()
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .entries(entries)
+                .grandTotalPay(new BigDecimal("200000.00"))
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fileExportService.writeConsolidatedExcel(report, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Consolidated Payroll");
+            assertEquals(250, sheet.getLastRowNum());
+            assertEquals("Worker", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Worker 250", sheet.getRow(250).getCell(0).getStringCellValue());
+            assertEquals(800.0, sheet.getRow(250).getCell(4).getNumericCellValue());
+            // Ancho de la columna según el nombre más largo (37 caracteres + margen)
+            assertEquals(39 * 256, sheet.getColumnWidth(0));
+        }
+    }
+
+    @Test
+    @DisplayName("writeDetailedExcel - Escribe los días y el resumen de cada semana")
+    void writeDetailedExcel_writesDaysAndWeeklySummary() throws Exception {
+        DailySummaryDto day = DailySummaryDto.builder()
+                .date(MONDAY)
+                .workLocationName("Oficina Central")
+                .clockInTime(LocalTime.of(8, 0))
+                .clockOutTime(LocalTime.of(16, 0))
+                .totalHours(8.0)
+                .dailyRate(new BigDecimal("15.00"))
+                .totalPay(new BigDecimal("120.00"))
+                .build();
+        WeeklyPaySummaryDto week = WeeklyPaySummaryDto.builder()
+                .workWeek(WorkWeekDto.builder().id(1L).startDate(MONDAY).endDate(MONDAY.plusDays(6)).build())
+                .totalHours(8.0)
+                .totalPay(new BigDecimal("120.00"))
+                .status(TimesheetStatus.APPROVED)
+                .build();
+        DetailedPayrollReportDto report = DetailedPayrollReportDto.builder()
+                .workerName("Ana")
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .weeklySummaries(List.of(week))
+                .dailySummariesByWeek(Map.of(1L, List.of(day)))
+                .build();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        fileExportService.writeDetailedExcel(report, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Detailed Report");
+            assertEquals("04/06/2026", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("08:00", sheet.getRow(1).getCell(2).getStringCellValue());
+            assertEquals("-", sheet.getRow(1).getCell(3).getStringCellValue());
+            assertEquals("Weekly Summary:", sheet.getRow(2).getCell(5).getStringCellValue());
+            assertEquals(120.0, sheet.getRow(2).getCell(8).getNumericCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("writeConsolidatedPdf - Escribe en el stream sin cerrarlo y con todas las filas en varias páginas")
+    void writeConsolidatedPdf_streamsAllRows() throws Exception {
+        List<ConsolidatedPayrollEntryDto> entries = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            ConsolidatedPayrollEntryDto entry = new ConsolidatedPayrollEntryDto((long) i, "Worker " + i);
+            entry.setTotalRegularHours(40.0);
+            entry.setTotalOvertimeHours(0.0);
+            entry.setTotalHours(40.0);
+            entry.setTotalPay(new BigDecimal("600.00"));
+            entries.add(entry);
+        }
+        ConsolidatedPayrollReportDto report = ConsolidatedPayrollReportDto.builder()
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .entries(entries)
+                .grandTotalPay(new BigDecimal("150000.00"))
+                .build();
+        CloseTrackingStream out = new CloseTrackingStream();
+
+        fileExportService.writeConsolidatedPdf(report, out);
+
+        assertFalse(out.closed);
+        try (PdfReader reader = new PdfReader(out.toByteArray())) {
+            assertTrue(reader.getNumberOfPages() > 1);
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            assertTrue(extractor.getTextFromPage(1).contains("Worker 1"));
+            assertTrue(extractor.getTextFromPage(reader.getNumberOfPages()).contains("Worker 250"));
+        }
+    }
+
+    @Test
+    @DisplayName("writeDetailedPdf - Cabecera, importes y firmas iguales en informes sucesivos con las piezas compartidas")
+    void writeDetailedPdf_reusesRenderKitAcrossReports() throws Exception {
+        DailySummaryDto day = DailySummaryDto.builder()
+                .date(MONDAY)
+                .workLocationName("Oficina Central")
+                .clockInTime(LocalTime.of(8, 0))
+                .clockOutTime(LocalTime.of(16, 0))
+                .totalHours(7.875)
+                .dailyRate(new BigDecimal("15.5"))
+                .totalPay(new BigDecimal("122.0625"))
+                .build();
+        WeeklyPaySummaryDto week = WeeklyPaySummaryDto.builder()
+                .workWeek(WorkWeekDto.builder().id(1L).startDate(MONDAY).endDate(MONDAY.plusDays(6)).build())
+                .regularHours(7.875)
+                .totalHours(7.875)
+                .totalPay(new BigDecimal("122.06"))
+                .status(TimesheetStatus.APPROVED)
+                .build();
+        DetailedPayrollReportDto report = DetailedPayrollReportDto.builder()
+                .workerName("Ana")
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .weeklySummaries(List.of(week))
+                .dailySummariesByWeek(Map.of(1L, List.of(day)))
+                .build();
+
+        for (int render = 0; render < 2; render++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            fileExportService.writeDetailedPdf(report, out);
+
+            try (PdfReader reader = new PdfReader(out.toByteArray())) {
+                String text = new PdfTextExtractor(reader).getTextFromPage(1);
+                assertTrue(text.contains("Daily Total"));
+                assertTrue(text.contains("7.88"));
+                assertTrue(text.contains("$15.50"));
+                assertTrue(text.contains("$122.06"));
+                assertTrue(text.contains("Received by (Worker Signature)"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("PdfRenderKit.decimal - Mismo texto que String.format(\"%.2f\") con punto decimal")
+    void decimal_matchesStringFormat() {
+        for (double value : new double[]{0.0, 0.005, 1.005, 2.675, 7.875, 40.0, 42.499, 1234567.891, -3.125}) {
+            assertEquals(String.format(Locale.US, "%.2f", value), PdfRenderKit.decimal(value));
+        }
+        assertEquals("$809.38", PdfRenderKit.money(new BigDecimal("809.375")));
+        assertEquals("-", PdfRenderKit.money(null));
+    }
+
+    // --- Helpers ---
+
+    private static final class CloseTrackingStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.*;
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimesheetStatus;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FlatExportServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 4, 6);
+
+    @Mock
+    private TimeLogRepository timeLogRepository;
+
+    @InjectMocks
+    private FlatExportService flatExportService;
+
+    @Test
+    @DisplayName("writeConsolidated - CSV con cabecera, dos decimales y comillas solo donde hacen falta")
+    void writeConsolidated_csv() throws Exception {
+        ConsolidatedPayrollEntryDto plain = entry(1L, "Ana", 40.0, 2.5, new BigDecimal("809.38"));
+        ConsolidatedPayrollEntryDto quoted = entry(2L, "Pérez, \"Beto\"", 7.875, 0.0, new BigDecimal("145.69"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        flatExportService.writeConsolidated(consolidated(plain, quoted), FlatExportService.Format.CSV, out, false);
+
+        assertEquals("worker_id,worker_name,period_start,period_end,regular_hours,overtime_hours,total_hours,total_pay\r\n"
+                + "1,Ana,2026-04-06,2026-04-12,40.00,2.50,42.50,809.38\r\n"
+                + "2,\"Pérez, \"\"Beto\"\"\",2026-04-06,2026-04-12,7.88,0.00,7.88,145.69\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("writeConsolidated - CSV neutraliza los textos que una hoja de cálculo tomaría por fórmula")
+    void writeConsolidated_csvEscapesFormulas() throws Exception {
+        ConsolidatedPayrollReportDto report = consolidated(
+                entry(1L, "=HYPERLINK(\"http://x\",\"y\")", 1.0, 0.0, new BigDecimal("15.00")),
+                entry(2L, "+1", 1.0, 0.0, new BigDecimal("15.00")),
+                entry(3L, "-2+3", 1.0, 0.0, new BigDecimal("15.00")),
+                entry(4L, "@SUM(A1)", 1.0, 0.0, new BigDecimal("15.00")),
+                entry(5L, "Ana-María", 1.0, 0.0, new BigDecimal("-15.00")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        flatExportService.writeConsolidated(report, FlatExportService.Format.CSV, out, false);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(lines[1].startsWith("1,\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\","), lines[1]);
+        assertTrue(lines[2].startsWith("2,'+1,"), lines[2]);
+        assertTrue(lines[3].startsWith("3,'-2+3,"), lines[3]);
+        assertTrue(lines[4].startsWith("4,'@SUM(A1),"), lines[4]);
+        // Solo el inicio del texto cuenta, y los números negativos se escriben tal cual
+        assertTrue(lines[5].startsWith("5,Ana-María,"), lines[5]);
+        assertTrue(lines[5].endsWith(",-15.00"), lines[5]);
+    }
+
+    @Test
+    @DisplayName("writeDetailed - NDJSON con un objeto por día y nulos para los fichajes que faltan")
+    void writeDetailed_ndjson() throws Exception {
+        DailySummaryDto day = DailySummaryDto.builder()
+                .date(MONDAY)
+                .workLocationName("Oficina Central")
+                .clockInTime(LocalTime.of(8, 0))
+                .clockOutTime(LocalTime.of(16, 30))
+                .totalHours(8.5)
+                .dailyRate(new BigDecimal("15.00"))
+                .totalPay(new BigDecimal("127.50"))
+                .build();
+        WeeklyPaySummaryDto week = WeeklyPaySummaryDto.builder()
+                .workWeek(WorkWeekDto.builder().id(1L).startDate(MONDAY).endDate(MONDAY.plusDays(6)).build())
+                .status(TimesheetStatus.APPROVED)
+                .build();
+        DetailedPayrollReportDto report = DetailedPayrollReportDto.builder()
+                .workerId(7L)
+                .workerName("Ana")
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .weeklySummaries(List.of(week))
+                .dailySummariesByWeek(Map.of(1L, List.of(day, day)))
+                .build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        flatExportService.writeDetailed(report, FlatExportService.Format.NDJSON, out, false);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode row = new ObjectMapper().readTree(lines[0]);
+        assertEquals(7L, row.get("worker_id").asLong());
+        assertEquals("APPROVED", row.get("timesheet_status").asText());
+        assertEquals("08:00", row.get("clock_in").asText());
+        assertTrue(row.get("lunch_start").isNull());
+        assertEquals("16:30", row.get("clock_out").asText());
+        assertTrue(lines[0].endsWith("\"hours\":8.50,\"rate\":15.00,\"daily_total\":127.50}"));
+    }
+
+    @Test
+    @DisplayName("writeTimeLogs - Recorre el cursor de fichajes y escribe CSV comprimido con gzip")
+    void writeTimeLogs_gzipCsv() throws Exception {
+        LocalDateTime start = MONDAY.atStartOfDay();
+        LocalDateTime end = MONDAY.atTime(LocalTime.MAX);
+        when(timeLogRepository.streamExportRowsByCompanyAndTimestampBetween(1L, start, end)).thenReturn(Stream.of(
+                new TimeLogExportRow(10L, 7L, "Ana", 1L, EventType.INGRESO, MONDAY.atTime(8, 0)),
+                new TimeLogExportRow(11L, 7L, "Ana", 1L, EventType.SALIDA, MONDAY.atTime(16, 30, 15))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        flatExportService.writeTimeLogs(1L, start, end, FlatExportService.Format.CSV, out, true);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals("id,worker_id,worker_name,work_week_id,event_type,timestamp\r\n"
+                    + "10,7,Ana,1,INGRESO,2026-04-06T08:00:00\r\n"
+                    + "11,7,Ana,1,SALIDA,2026-04-06T16:30:15\r\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    // --- Helpers ---
+
+    private static ConsolidatedPayrollEntryDto entry(Long workerId, String name, double regular, double overtime, BigDecimal pay) {
+        ConsolidatedPayrollEntryDto entry = new ConsolidatedPayrollEntryDto(workerId, name);
+        entry.setTotalRegularHours(regular);
+        entry.setTotalOvertimeHours(overtime);
+        entry.setTotalHours(regular + overtime);
+        entry.setTotalPay(pay);
+        return entry;
+    }
+
+    private static ConsolidatedPayrollReportDto consolidated(ConsolidatedPayrollEntryDto... entries) {
+        return ConsolidatedPayrollReportDto.builder()
+                .startDate(MONDAY)
+                .endDate(MONDAY.plusDays(6))
+                .entries(List.of(entries))
+                .build();
+    }
+}
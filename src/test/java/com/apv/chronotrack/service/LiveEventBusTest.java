@@ -0,0 +1,130 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.LiveEventDto;
+import com.apv.chronotrack.models.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveEventBusTest {
+
+    private static final Long COMPANY_ID = 1L;
+
+    private final LiveEventBus bus = new LiveEventBus(2, 60_000, 1);
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+    }
+
+    @Test
+    @DisplayName("publish - Entrega el evento solo a las conexiones de la compañía")
+    void publish_deliversToCompanySubscribers() throws Exception {
+        RecordingEmitter own = new RecordingEmitter(null);
+        RecordingEmitter other = new RecordingEmitter(null);
+        bus.subscribe(COMPANY_ID, own);
+        bus.subscribe(2L, other);
+
+        bus.publish(COMPANY_ID, punch(1L));
+
+        assertEquals(List.of("PUNCH"), own.awaitEvents(1));
+        assertTrue(other.events.isEmpty());
+    }
+
+    @Test
+    @DisplayName("publish - Si la cola de una conexión se llena, lo pendiente se sustituye por RESYNC")
+    void publish_overflowCoalescesToResync() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        bus.subscribe(COMPANY_ID, slow);
+
+        // El primer evento queda bloqueado en el envío; los siguientes se acumulan en la cola (tamaño 2)
+        bus.publish(COMPANY_ID, punch(1L));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        bus.publish(COMPANY_ID, punch(2L));
+        bus.publish(COMPANY_ID, punch(3L));
+        bus.publish(COMPANY_ID, punch(4L));
+        release.countDown();
+
+        assertEquals(List.of("PUNCH", "RESYNC", "PUNCH"), slow.awaitEvents(3));
+    }
+
+    @Test
+    @DisplayName("publish - Una conexión cerrada por el cliente se da de baja")
+    void publish_brokenConnectionUnsubscribes() throws Exception {
+        SseEmitter broken = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        bus.subscribe(COMPANY_ID, broken);
+        assertEquals(1, bus.subscriberCount(COMPANY_ID));
+
+        bus.publish(COMPANY_ID, punch(1L));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bus.subscriberCount(COMPANY_ID) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bus.subscriberCount(COMPANY_ID));
+    }
+
+    // --- Helpers ---
+
+    private LiveEventDto punch(Long timeLogId) {
+        return LiveEventDto.punch(10L, "Ana", 5L, timeLogId, EventType.INGRESO, LocalDateTime.now());
+    }
+
+    // Guarda el nombre de cada evento enviado; opcionalmente bloquea el primer envío hasta release
+    private static final class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String text = builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(String.class::isInstance)
+                    .map(String.class::cast)
+                    .collect(Collectors.joining());
+            text.lines()
+                    .filter(line -> line.startsWith("event:"))
+                    .forEach(line -> events.add(line.substring("event:".length())));
+        }
+
+        List<String> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return List.copyOf(events);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.ConsolidatedPayrollReportDto;
+import com.apv.chronotrack.models.Company;
+import com.apv.chronotrack.models.Role;
+import com.apv.chronotrack.models.RoleName;
+import com.apv.chronotrack.models.User;
+import com.apv.chronotrack.repository.CompanyRepository;
+import com.apv.chronotrack.repository.UserRepository;
+import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NotificationSchedulerServiceTest {
+
+    private static final int COMPANIES = 12;
+
+    private final CompanyRepository companyRepository = mock(CompanyRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final AdminService adminService = mock(AdminService.class);
+    private final PayrollComputePool computePool = new PayrollComputePool(8, 0);
+
+    @AfterEach
+    void tearDown() {
+        computePool.shutdown();
+    }
+
+    @Test
+    @DisplayName("sendAdminSummaries - Genera los informes en paralelo sin superar la mitad del pool de conexiones")
+    void sendAdminSummaries_capsConcurrentReports() {
+        NotificationSchedulerService service = new NotificationSchedulerService(mock(WeeklyTimesheetRepository.class),
+                companyRepository, userRepository, emailService, adminService, computePool);
+        ReflectionTestUtils.setField(service, "connectionPoolSize", 10);
+
+        List<Company> companies = new ArrayList<>();
+        for (long id = 1; id <= COMPANIES; id++) {
+            Company company = new Company();
+            company.setId(id);
+            companies.add(company);
+            when(userRepository.findByCompany(company)).thenReturn(List.of(admin(company)));
+        }
+        when(companyRepository.findAll()).thenReturn(companies);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(adminService.generateConsolidatedPayrollReport(any(LocalDate.class), any(LocalDate.class), any(User.class)))
+                .thenAnswer(invocation -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    User admin = invocation.getArgument(2);
+                    return ConsolidatedPayrollReportDto.builder().companyId(admin.getCompany().getId()).build();
+                });
+
+        service.sendAdminSummaries();
+
+        assertTrue(maxRunning.get() <= 5, "concurrent reports: " + maxRunning.get());
+        assertTrue(maxRunning.get() > 1, "reports should still run in parallel");
+        for (Company company : companies) {
+            verify(emailService).sendAdminWeeklySummary(argThat(admin -> admin.getCompany() == company),
+                    argThat(report -> report.getCompanyId().equals(company.getId())));
+        }
+    }
+
+    private static User admin(Company company) {
+        Role role = new Role();
+        role.setRoleName(RoleName.ROLE_ADMINISTRADOR);
+        User admin = new User();
+        admin.setCompany(company);
+        admin.setRole(role);
+        return admin;
+    }
+}
@@ -0,0 +1,57 @@
+package com.apv.chronotrack.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayEngineTest {
+
+    private static final BigDecimal SIXTY = BigDecimal.valueOf(60);
+
+    @Test
+    @DisplayName("weeklyPayCents - Coincide con el cálculo exacto en BigDecimal redondeado al centavo")
+    void weeklyPay_matchesExactDecimal() {
+        Random random = new Random(11L);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal hourlyRate = BigDecimal.valueOf(random.nextInt(20_000), 2);
+            long minutes = random.nextInt(80 * 60);
+
+            long rateCents = PayEngine.rateCents(hourlyRate);
+            BigDecimal regularMinutes = BigDecimal.valueOf(Math.min(minutes, 2400));
+            BigDecimal overtimeMinutes = BigDecimal.valueOf(Math.max(0, minutes - 2400));
+            BigDecimal regular = hourlyRate.multiply(regularMinutes).divide(SIXTY, 2, RoundingMode.HALF_UP);
+            BigDecimal overtime = hourlyRate.multiply(new BigDecimal("1.5")).multiply(overtimeMinutes)
+                    .divide(SIXTY, 2, RoundingMode.HALF_UP);
+
+            String context = hourlyRate + " x " + minutes + " min";
+            assertEquals(regular, PayEngine.toAmount(PayEngine.regularPayCents(rateCents, minutes)), context);
+            assertEquals(overtime, PayEngine.toAmount(PayEngine.overtimePayCents(rateCents, minutes)), context);
+            assertEquals(regular.add(overtime), PayEngine.toAmount(PayEngine.weeklyPayCents(rateCents, minutes)), context);
+        }
+    }
+
+    @Test
+    @DisplayName("weeklyPayCents - 45 horas a 15.00 son 600 normales y 112.50 de horas extra")
+    void weeklyPay_splitsOvertimeAtFortyHours() {
+        long rateCents = PayEngine.rateCents(new BigDecimal("15.00"));
+
+        assertEquals(60_000, PayEngine.regularPayCents(rateCents, 45 * 60));
+        assertEquals(11_250, PayEngine.overtimePayCents(rateCents, 45 * 60));
+        assertEquals(0, PayEngine.overtimePayCents(rateCents, 40 * 60));
+    }
+
+    @Test
+    @DisplayName("payCents - Redondea la mitad del centavo hacia arriba")
+    void payCents_roundsHalfUp() {
+        // 0.01 x 30 min = 0.005 -> 0.01; 0.01 x 29 min = 0.00483 -> 0.00
+        assertEquals(1, PayEngine.payCents(1, 30));
+        assertEquals(0, PayEngine.payCents(1, 29));
+        // Una tarifa con más de 2 decimales se redondea al centavo
+        assertEquals(1235, PayEngine.rateCents(new BigDecimal("12.345")));
+    }
+}
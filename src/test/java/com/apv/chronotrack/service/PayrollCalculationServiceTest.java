@@ -2,7 +2,9 @@ package com.apv.chronotrack.service;
 
 import com.apv.chronotrack.DTO.WeeklyPaySummaryDto;
 import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
 import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
+import com.apv.chronotrack.repository.WeeklyTimesheetRepository.TimesheetStatusRow;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,10 +17,14 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -138,8 +144,66 @@ class PayrollCalculationServiceTest {
         assertEquals(new BigDecimal("0.00"), result.getTotalPay());
     }
 
+    @Test
+    @DisplayName("calculateWeeklyPays - Usa los estados precargados sin consultar cada hoja de horas")
+    void calculateWeeklyPays_usesPrefetchedStatuses() {
+        WorkWeek nextWeek = new WorkWeek();
+        nextWeek.setId(2L);
+        nextWeek.setStartDate(LocalDate.of(2026, 4, 13));
+        nextWeek.setEndDate(LocalDate.of(2026, 4, 19));
+
+        Company company = new Company();
+        TimesheetStatusRow approved = statusRow(testWorker.getId(), testWeek.getId(), TimesheetStatus.APPROVED);
+        when(timesheetRepository.findStatusesInRange(eq(company), eq(testWorker.getId()), any(), any()))
+                .thenReturn(List.of(approved));
+
+        TimesheetStatuses statuses = payrollService.findTimesheetStatuses(company, testWorker.getId(),
+                testWeek.getStartDate(), nextWeek.getEndDate());
+        List<WeeklyPaySummaryDto> result = payrollService.calculateWeeklyPays(testWorker, List.of(testWeek, nextWeek),
+                Map.of(testWeek.getId(), createWeekRows(5, 10)), statuses, Map.of());
+
+        assertEquals(2, result.size());
+        assertEquals(TimesheetStatus.APPROVED, result.get(0).getStatus());
+        assertEquals(new BigDecimal("825.00"), result.get(0).getTotalPay());
+        // Sin hoja de horas ni registros: semana abierta y a cero
+        assertEquals(TimesheetStatus.OPEN, result.get(1).getStatus());
+        assertEquals(new BigDecimal("0.00"), result.get(1).getTotalPay());
+        verify(timesheetRepository, never()).findByUserAndWorkWeek(any(), any());
+    }
+
+    @Test
+    @DisplayName("calculateWeeklyPays - Una semana con nómina congelada no se recalcula con los registros")
+    void calculateWeeklyPays_usesSnapshotForApprovedWeek() {
+        PayrollSnapshot snapshot = new PayrollSnapshot();
+        snapshot.setWorkedMinutes(45 * 60);
+        snapshot.setRegularMinutes(40 * 60);
+        snapshot.setOvertimeMinutes(5 * 60);
+        snapshot.setHourlyRate(new BigDecimal("12.00"));
+        snapshot.setRegularPay(new BigDecimal("480.00"));
+        snapshot.setOvertimePay(new BigDecimal("90.00"));
+        snapshot.setTotalPay(new BigDecimal("570.00"));
+
+        // La tarifa actual (15.00) y los registros (50 horas) ya no cuentan para esta semana
+        List<WeeklyPaySummaryDto> result = payrollService.calculateWeeklyPays(testWorker, List.of(testWeek),
+                Map.of(testWeek.getId(), createWeekRows(5, 10)), TimesheetStatuses.of(List.of()),
+                Map.of(testWeek.getId(), snapshot));
+
+        assertEquals(45.0, result.get(0).getTotalHours());
+        assertEquals(5.0, result.get(0).getOvertimeHours());
+        assertEquals(new BigDecimal("570.00"), result.get(0).getTotalPay());
+        assertEquals(TimesheetStatus.APPROVED, result.get(0).getStatus());
+    }
+
     // --- Helpers ---
 
+    private TimesheetStatusRow statusRow(Long userId, Long workWeekId, TimesheetStatus status) {
+        return new TimesheetStatusRow() {
+            @Override public Long getUserId() { return userId; }
+            @Override public Long getWorkWeekId() { return workWeekId; }
+            @Override public TimesheetStatus getStatus() { return status; }
+        };
+    }
+
     private TimeLog createLog(EventType type, LocalDateTime timestamp) {
         TimeLog log = new TimeLog();
         log.setEventType(type);
@@ -158,4 +222,10 @@ class PayrollCalculationServiceTest {
         }
         return logs;
     }
+
+    private List<TimeLogRow> createWeekRows(int days, int hoursPerDay) {
+        return createWeekLogs(days, hoursPerDay).stream()
+                .map(log -> new TimeLogRow(log.getId(), testWorker.getId(), testWeek.getId(), log.getEventType(), log.getTimestamp()))
+                .toList();
+    }
 }
@@ -0,0 +1,64 @@
+package com.apv.chronotrack.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayrollComputePoolTest {
+
+    private final PayrollComputePool computePool = new PayrollComputePool(4, 100);
+
+    @AfterEach
+    void tearDown() {
+        computePool.shutdown();
+    }
+
+    @Test
+    @DisplayName("map - Por debajo del umbral se ejecuta en el hilo actual")
+    void map_belowThreshold_runsSequentially() {
+        String caller = Thread.currentThread().getName();
+
+        List<String> threads = computePool.map(List.of(1, 2, 3), 99, i -> Thread.currentThread().getName());
+
+        assertEquals(List.of(caller, caller, caller), threads);
+    }
+
+    @Test
+    @DisplayName("map - En paralelo conserva el orden y el total exacto del cálculo secuencial")
+    void map_parallel_keepsOrderAndExactTotal() {
+        List<Integer> items = IntStream.range(0, 5_000).boxed().toList();
+
+        List<BigDecimal> parallel = computePool.map(items, Long.MAX_VALUE, PayrollComputePoolTest::pay);
+        List<BigDecimal> sequential = items.stream().map(PayrollComputePoolTest::pay).toList();
+
+        assertEquals(sequential, parallel);
+        assertEquals(sequential.stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                parallel.stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertTrue(computePool.map(items, Long.MAX_VALUE, i -> Thread.currentThread().getName()).stream()
+                .allMatch(name -> name.startsWith("payroll-compute-")));
+    }
+
+    @Test
+    @DisplayName("map - Las tareas anidadas (compañía y sus trabajadores) usan el mismo pool sin bloquearse")
+    void map_nested_completes() {
+        List<Integer> companies = IntStream.range(0, 16).boxed().toList();
+
+        List<Integer> totals = computePool.map(companies, company ->
+                computePool.map(IntStream.range(0, 200).boxed().toList(), Long.MAX_VALUE, worker -> company * worker)
+                        .stream().mapToInt(Integer::intValue).sum());
+
+        for (int company = 0; company < companies.size(); company++) {
+            assertEquals(company * (199 * 200 / 2), totals.get(company));
+        }
+    }
+
+    private static BigDecimal pay(int i) {
+        return new BigDecimal("15.37").multiply(BigDecimal.valueOf(i % 61)).add(new BigDecimal("0.01"));
+    }
+}
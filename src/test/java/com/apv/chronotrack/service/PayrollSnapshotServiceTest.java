@@ -0,0 +1,88 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(PayrollSnapshotService.class)
+class PayrollSnapshotServiceTest extends EmbeddedDatabaseTest {
+
+    @Autowired private PayrollSnapshotService payrollSnapshotService;
+    @Autowired private PayrollSnapshotRepository snapshotRepository;
+
+    private User worker;
+    private WorkWeek week;
+    private WeeklyTimesheet timesheet;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            worker = createDefaultWorker();
+            week = createWeek(worker.getCompany(), MONDAY);
+            timesheet = createTimesheet(worker, week, TimesheetStatus.APPROVED);
+
+            // 5 días de 9 horas: 40 normales y 5 extra
+            for (int d = 0; d < 5; d++) {
+                timeLogRepository.save(log(worker, week, EventType.INGRESO, MONDAY.plusDays(d).atTime(8, 0)));
+                timeLogRepository.save(log(worker, week, EventType.SALIDA, MONDAY.plusDays(d).atTime(17, 0)));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("freeze - Congela minutos, tarifa e importes y no cambia con la tarifa posterior")
+    void freeze_storesPayAndIgnoresLaterRateChanges() {
+        tx.executeWithoutResult(status -> payrollSnapshotService.freeze(timesheetRepository.findById(timesheet.getId()).orElseThrow()));
+
+        tx.executeWithoutResult(status -> {
+            User fresh = userRepository.findById(worker.getId()).orElseThrow();
+            fresh.setHourlyRate(new BigDecimal("30.00"));
+            // Aprobar otra vez no genera ni modifica la fila
+            payrollSnapshotService.freeze(timesheetRepository.findById(timesheet.getId()).orElseThrow());
+        });
+
+        Map<Long, Map<Long, PayrollSnapshot>> snapshots = tx.execute(status ->
+                payrollSnapshotService.findByWorkWeekIds(List.of(week.getId())));
+        PayrollSnapshot snapshot = snapshots.get(week.getId()).get(worker.getId());
+
+        assertEquals(1, snapshotRepository.count());
+        assertEquals(45 * 60, snapshot.getWorkedMinutes());
+        assertEquals(40 * 60, snapshot.getRegularMinutes());
+        assertEquals(5 * 60, snapshot.getOvertimeMinutes());
+        assertEquals(0, new BigDecimal("15.00").compareTo(snapshot.getHourlyRate()));
+        assertEquals(0, new BigDecimal("600.00").compareTo(snapshot.getRegularPay()));
+        assertEquals(0, new BigDecimal("112.50").compareTo(snapshot.getOvertimePay()));
+        assertEquals(0, new BigDecimal("712.50").compareTo(snapshot.getTotalPay()));
+    }
+
+    @Test
+    @DisplayName("freezeMissing - Congela solo las hojas aprobadas sin nómina de la compañía")
+    void freezeMissing_freezesApprovedTimesheetsWithoutSnapshot() {
+        tx.executeWithoutResult(status -> {
+            User otherWorker = createUser(worker.getCompany(), worker.getRole(), "other@test.com");
+            createTimesheet(otherWorker, week, TimesheetStatus.SUBMITTED);
+            User outsider = createUser(createCompany("Other Company"), worker.getRole(), "outsider@test.com");
+            createTimesheet(outsider, createWeek(outsider.getCompany(), MONDAY), TimesheetStatus.APPROVED);
+        });
+
+        Long companyId = worker.getCompany().getId();
+        assertEquals(1, payrollSnapshotService.freezeMissing(companyId));
+        assertEquals(0, payrollSnapshotService.freezeMissing(companyId));
+
+        PayrollSnapshot snapshot = snapshotRepository.findAll().get(0);
+        assertEquals(1, snapshotRepository.count());
+        assertEquals(45 * 60, snapshot.getWorkedMinutes());
+        assertEquals(0, new BigDecimal("712.50").compareTo(snapshot.getTotalPay()));
+    }
+}
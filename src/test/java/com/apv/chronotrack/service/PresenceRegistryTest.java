@@ -0,0 +1,146 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.PresenceDto;
+import com.apv.chronotrack.DTO.PresenceWorkerDto;
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.repository.TimeLogRepository;
+import com.apv.chronotrack.repository.TimeLogRepository.PresenceRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceRegistryTest {
+
+    private static final Long COMPANY_ID = 1L;
+    private static final LocalDateTime TODAY = LocalDate.now().atTime(0, 0);
+
+    @Mock
+    private TimeLogRepository timeLogRepository;
+
+    @InjectMocks
+    private PresenceRegistry presenceRegistry;
+
+    @Test
+    @DisplayName("recordPunch - Cuenta y lista a cada trabajador según su último registro")
+    void recordPunch_tracksStateAndCounts() {
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INGRESO, TODAY.plusHours(8));
+        presenceRegistry.recordPunch(COMPANY_ID, 11L, "Luis", EventType.INGRESO, TODAY.plusHours(8));
+        presenceRegistry.recordPunch(COMPANY_ID, 12L, "Eva", EventType.INGRESO, TODAY.plusHours(7));
+        presenceRegistry.recordPunch(COMPANY_ID, 11L, "Luis", EventType.INICIO_ALMUERZO, TODAY.plusHours(12));
+        presenceRegistry.recordPunch(COMPANY_ID, 12L, "Eva", EventType.SALIDA, TODAY.plusHours(15));
+        presenceRegistry.recordPunch(2L, 20L, "Otra compañía", EventType.INGRESO, TODAY.plusHours(8));
+
+        PresenceDto presence = presenceRegistry.snapshot(COMPANY_ID);
+
+        assertEquals(1, presence.getClockedIn());
+        assertEquals(1, presence.getOnLunch());
+        assertEquals(1, presence.getClockedOut());
+        assertEquals(3, presence.getPunchedToday());
+        assertEquals(List.of(10L), ids(presence.getClockedInWorkers()));
+        assertEquals(List.of(11L), ids(presence.getOnLunchWorkers()));
+        assertEquals(List.of(12L), ids(presence.getClockedOutWorkers()));
+        assertEquals(3, presenceRegistry.punchedToday(COMPANY_ID));
+    }
+
+    @Test
+    @DisplayName("recordPunch - Una marcación anterior que confirma tarde no pisa la posterior")
+    void recordPunch_ignoresOlderEvent() {
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INICIO_ALMUERZO, TODAY.plusHours(12));
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INGRESO, TODAY.plusHours(8));
+
+        PresenceDto presence = presenceRegistry.snapshot(COMPANY_ID);
+
+        assertEquals(0, presence.getClockedIn());
+        assertEquals(1, presence.getOnLunch());
+    }
+
+    @Test
+    @DisplayName("snapshot - Un INGRESO o almuerzo sin cerrar desde antes de ayer deja de contar al cambiar de día")
+    void snapshot_expiresOpenShiftsOlderThanYesterday() {
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INGRESO, TODAY.plusHours(8));
+        presenceRegistry.recordPunch(COMPANY_ID, 11L, "Luis", EventType.INICIO_ALMUERZO, TODAY.plusHours(12));
+        presenceRegistry.recordPunch(COMPANY_ID, 12L, "Eva", EventType.INGRESO, TODAY.plusHours(22));
+
+        // Mañana siguen dentro (la ventana empieza ayer); pasado mañana ninguno ha vuelto a marcar
+        PresenceDto tomorrow = presenceRegistry.snapshot(COMPANY_ID, TODAY.toLocalDate().plusDays(1));
+        assertEquals(2, tomorrow.getClockedIn());
+        assertEquals(1, tomorrow.getOnLunch());
+
+        PresenceDto twoDaysLater = presenceRegistry.snapshot(COMPANY_ID, TODAY.toLocalDate().plusDays(2));
+        assertEquals(0, twoDaysLater.getClockedIn());
+        assertEquals(0, twoDaysLater.getOnLunch());
+        assertTrue(twoDaysLater.getClockedInWorkers().isEmpty());
+        assertTrue(twoDaysLater.getOnLunchWorkers().isEmpty());
+    }
+
+    @Test
+    @DisplayName("recordPunch - Una marcación de antes de ayer no entra en el registro")
+    void recordPunch_ignoresEventsBeforeYesterday() {
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INGRESO, TODAY.minusDays(2).plusHours(8));
+
+        assertEquals(0, presenceRegistry.snapshot(COMPANY_ID).getClockedIn());
+    }
+
+    @Test
+    @DisplayName("rebuild - Conserva el turno abierto desde ayer y olvida a quien salió ayer")
+    void rebuild_keepsOvernightShiftAndForgetsYesterdayOut() {
+        LocalDateTime yesterday = TODAY.minusDays(1);
+        when(timeLogRepository.findPresenceRowsSince(yesterday)).thenReturn(List.of(
+                row(10L, EventType.INGRESO, yesterday.plusHours(8)),
+                row(10L, EventType.SALIDA, yesterday.plusHours(16)),
+                row(11L, EventType.INGRESO, yesterday.plusHours(22)),
+                row(12L, EventType.INGRESO, TODAY.plusHours(7)),
+                row(12L, EventType.SALIDA, TODAY.plusHours(7).plusMinutes(30))
+        ));
+
+        presenceRegistry.rebuild();
+        PresenceDto presence = presenceRegistry.snapshot(COMPANY_ID);
+
+        assertEquals(List.of(11L), ids(presence.getClockedInWorkers()));
+        assertEquals(List.of(12L), ids(presence.getClockedOutWorkers()));
+        assertEquals(1, presence.getPunchedToday());
+    }
+
+    @Test
+    @DisplayName("reload - Recalcula al trabajador desde sus registros tras una corrección")
+    void reload_replacesWorkerState() {
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.INGRESO, TODAY.plusHours(8));
+        presenceRegistry.recordPunch(COMPANY_ID, 10L, "Ana", EventType.SALIDA, TODAY.plusHours(9));
+        // Se borró la SALIDA: el último registro vuelve a ser el INGRESO
+        when(timeLogRepository.findPresenceRowsByUserSince(eq(10L), any()))
+                .thenReturn(List.of(row(10L, EventType.INGRESO, TODAY.plusHours(8))));
+
+        presenceRegistry.reload(COMPANY_ID, 10L);
+        PresenceDto presence = presenceRegistry.snapshot(COMPANY_ID);
+
+        assertEquals(1, presence.getClockedIn());
+        assertEquals(0, presence.getClockedOut());
+
+        presenceRegistry.remove(COMPANY_ID, 10L);
+        assertEquals(0, presenceRegistry.snapshot(COMPANY_ID).getClockedIn());
+        assertEquals(0, presenceRegistry.punchedToday(COMPANY_ID));
+    }
+
+    // --- Helpers ---
+
+    private PresenceRow row(Long userId, EventType eventType, LocalDateTime timestamp) {
+        return new PresenceRow(userId, COMPANY_ID, "Worker " + userId, eventType, timestamp);
+    }
+
+    private List<Long> ids(List<PresenceWorkerDto> workers) {
+        return workers.stream().map(PresenceWorkerDto::workerId).toList();
+    }
+}
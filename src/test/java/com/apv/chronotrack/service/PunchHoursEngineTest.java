@@ -0,0 +1,143 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.models.TimeLog;
+import com.apv.chronotrack.repository.TimeLogRepository.TimeLogRow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PunchHoursEngineTest {
+
+    private static final EventType[] EVENTS = EventType.values();
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 4, 6, 0, 0);
+
+    @Test
+    @DisplayName("totalMinutes - Coincide con el cálculo anterior en secuencias aleatorias")
+    void totalMinutes_matchesLegacyOnRandomSequences() {
+        Random random = new Random(20260406L);
+        for (int run = 0; run < 5_000; run++) {
+            List<TimeLog> logs = randomLogs(random, random.nextInt(run % 10 == 0 ? 300 : 40));
+            if (random.nextBoolean()) {
+                logs.sort(Comparator.comparing(TimeLog::getTimestamp));
+            }
+
+            long expected = legacyMinutes(logs);
+            assertEquals(expected, PunchHoursEngine.totalMinutes(logs), "run " + run);
+            assertEquals(expected, PunchHoursEngine.totalMinutes(new LinkedList<>(logs)), "run " + run);
+            assertEquals(expected, PunchHoursEngine.totalRowMinutes(rows(logs)), "run " + run);
+            assertEquals(legacyHours(expected), PunchHoursEngine.toHours(expected), "run " + run);
+        }
+    }
+
+    @Test
+    @DisplayName("totalMinutes - Versión de arrays no modifica la entrada y da el mismo resultado")
+    void totalMinutes_primitiveArraysMatchList() {
+        Random random = new Random(42L);
+        List<TimeLog> logs = randomLogs(random, 120);
+        long[] seconds = new long[logs.size()];
+        int[] nanos = new int[logs.size()];
+        byte[] codes = new byte[logs.size()];
+        for (int i = 0; i < logs.size(); i++) {
+            seconds[i] = logs.get(i).getTimestamp().toEpochSecond(ZoneOffset.UTC);
+            nanos[i] = logs.get(i).getTimestamp().getNano();
+            codes[i] = PunchHoursEngine.eventCode(logs.get(i).getEventType());
+        }
+        long[] secondsCopy = seconds.clone();
+
+        assertEquals(legacyMinutes(logs), PunchHoursEngine.totalMinutes(seconds, nanos, codes, logs.size()));
+        assertArrayEquals(secondsCopy, seconds);
+    }
+
+    @Test
+    @DisplayName("totalMinutes - Minutos incompletos se truncan como Duration.toMinutes")
+    void totalMinutes_truncatesPartialMinutes() {
+        List<TimeLog> logs = List.of(
+                log(EventType.INGRESO, BASE.withHour(8).withNano(500_000_000)),
+                log(EventType.SALIDA, BASE.withHour(8).plusMinutes(1).withNano(200_000_000))
+        );
+
+        assertEquals(0, PunchHoursEngine.totalMinutes(logs));
+    }
+
+    @Test
+    @DisplayName("totalMinutes - Tras una llamada grande el hilo no conserva los arrays crecidos")
+    void totalMinutes_dropsOversizedBuffersAfterLargeCall() {
+        Random random = new Random(7L);
+        List<TimeLog> small = randomLogs(random, 200);
+        PunchHoursEngine.totalMinutes(small);
+        int smallCapacity = PunchHoursEngine.retainedCapacity();
+        assertTrue(smallCapacity >= 200 && smallCapacity <= PunchHoursEngine.MAX_RETAINED_CAPACITY);
+
+        List<TimeLog> large = randomLogs(random, PunchHoursEngine.MAX_RETAINED_CAPACITY * 3);
+        assertEquals(legacyMinutes(large), PunchHoursEngine.totalMinutes(large));
+        assertTrue(PunchHoursEngine.retainedCapacity() <= PunchHoursEngine.MAX_RETAINED_CAPACITY);
+
+        assertEquals(legacyMinutes(small), PunchHoursEngine.totalMinutes(small));
+    }
+
+    // --- Helpers ---
+
+    private List<TimeLog> randomLogs(Random random, int size) {
+        List<TimeLog> logs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // Rango estrecho para forzar empates de fecha; nanos aleatorios para probar el truncado
+            LocalDateTime timestamp = BASE
+                    .plusMinutes(random.nextInt(7 * 24 * 60))
+                    .plusSeconds(random.nextInt(4) == 0 ? 0 : random.nextInt(60))
+                    .withNano(random.nextInt(3) == 0 ? 0 : random.nextInt(1_000_000_000));
+            if (i > 0 && random.nextInt(10) == 0) {
+                timestamp = logs.get(random.nextInt(i)).getTimestamp();
+            }
+            logs.add(log(EVENTS[random.nextInt(EVENTS.length)], timestamp));
+        }
+        Collections.shuffle(logs, random);
+        return logs;
+    }
+
+    private List<TimeLogRow> rows(List<TimeLog> logs) {
+        return logs.stream()
+                .map(log -> new TimeLogRow(log.getId(), null, null, log.getEventType(), log.getTimestamp()))
+                .toList();
+    }
+
+    private TimeLog log(EventType type, LocalDateTime timestamp) {
+        TimeLog log = new TimeLog();
+        log.setEventType(type);
+        log.setTimestamp(timestamp);
+        return log;
+    }
+
+    // Implementación anterior de PayrollCalculationService.calculateHoursForLogs (sin redondeo)
+    private long legacyMinutes(List<TimeLog> logs) {
+        double totalMinutes = 0;
+        LocalDateTime startTime = null;
+        List<TimeLog> sortedLogs = new ArrayList<>(logs);
+        sortedLogs.sort(Comparator.comparing(TimeLog::getTimestamp));
+        for (TimeLog log : sortedLogs) {
+            EventType event = log.getEventType();
+            if ((event.name().equals("INGRESO") || event.name().equals("FINAL_ALMUERZO")) && startTime == null) {
+                startTime = log.getTimestamp();
+            } else if ((event.name().equals("SALIDA") || event.name().equals("INICIO_ALMUERZO")) && startTime != null) {
+                totalMinutes += Duration.between(startTime, log.getTimestamp()).toMinutes();
+                startTime = null;
+            }
+        }
+        return (long) totalMinutes;
+    }
+
+    private double legacyHours(long totalMinutes) {
+        return Math.round((((double) totalMinutes) / 60.0) * 100.0) / 100.0;
+    }
+}
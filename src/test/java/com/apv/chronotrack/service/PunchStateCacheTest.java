@@ -0,0 +1,146 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.models.EventType;
+import com.apv.chronotrack.service.PunchStateCache.PunchState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PunchStateCacheTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long WEEK_ID = 10L;
+    private static final LocalDate MONDAY = LocalDate.of(2026, 4, 6);
+    private static final LocalDateTime CLOCK_IN = MONDAY.atTime(8, 0);
+
+    private final PunchStateCache cache = new PunchStateCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("get - Carga una vez y las marcaciones confirmadas actualizan la entrada")
+    void get_loadsOnceAndPunchesUpdateEntry() {
+        cache.get(USER_ID, loader(state(EventType.SALIDA, null)));
+
+        cache.recordPunch(USER_ID, EventType.INGRESO, CLOCK_IN, WEEK_ID, MONDAY);
+        PunchState state = cache.get(USER_ID, loader(state(EventType.SALIDA, null)));
+
+        assertEquals(1, loads.get());
+        assertEquals(EventType.INGRESO, state.lastEventType());
+        assertTrue(state.hasClockedInOn(MONDAY));
+    }
+
+    @Test
+    @DisplayName("get - Una marcación confirmada durante la carga impide guardar la carga anterior")
+    void get_punchCommittedDuringLoadDiscardsStaleLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // La carga lee time_logs antes del INGRESO y termina después de su commit
+        Future<PunchState> staleRead = executor.submit(() -> cache.get(USER_ID, () -> {
+            PunchState beforeClockIn = state(EventType.SALIDA, null);
+            loading.countDown();
+            await(committed);
+            return beforeClockIn;
+        }));
+
+        await(loading);
+        cache.recordPunch(USER_ID, EventType.INGRESO, CLOCK_IN, WEEK_ID, MONDAY);
+        committed.countDown();
+        assertEquals(EventType.SALIDA, staleRead.get(10, TimeUnit.SECONDS).lastEventType());
+        executor.shutdown();
+
+        PunchState state = cache.get(USER_ID, loader(state(EventType.INGRESO, CLOCK_IN)));
+        assertEquals(1, loads.get());
+        assertEquals(EventType.INGRESO, state.lastEventType());
+    }
+
+    @Test
+    @DisplayName("get - Una corrección durante la carga impide guardar la carga anterior")
+    void get_invalidateDuringLoadDiscardsStaleLoad() {
+        cache.get(USER_ID, () -> {
+            cache.invalidate(USER_ID);
+            return state(EventType.INGRESO, CLOCK_IN);
+        });
+
+        cache.get(USER_ID, loader(state(EventType.SALIDA, CLOCK_IN)));
+        PunchState state = cache.get(USER_ID, loader(state(EventType.SALIDA, CLOCK_IN)));
+
+        assertEquals(1, loads.get());
+        assertEquals(EventType.SALIDA, state.lastEventType());
+    }
+
+    @Test
+    @DisplayName("get - Con cargas y marcaciones concurrentes la caché acaba con el último estado confirmado")
+    void concurrentLoadsAndPunches_endWithCommittedState() throws Exception {
+        EventType[] events = EventType.values();
+        AtomicReference<PunchState> database = new AtomicReference<>(state(EventType.SALIDA, null));
+        Object commitLock = new Object();
+        int threads = 8;
+        int iterations = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                await(start);
+                for (int i = 0; i < iterations; i++) {
+                    if ((i + thread) % 3 == 0) {
+                        // Commit: se escribe la fila y, tras el commit, se avisa a la caché
+                        synchronized (commitLock) {
+                            EventType eventType = events[(i + thread) % events.length];
+                            PunchState current = database.get();
+                            database.set(state(eventType, current.firstClockInToday()));
+                            cache.recordPunch(USER_ID, eventType, CLOCK_IN.plusMinutes(i), WEEK_ID, MONDAY);
+                        }
+                    } else if (i % 97 == 0) {
+                        cache.evict(USER_ID);
+                    } else {
+                        cache.get(USER_ID, database::get);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(database.get().lastEventType(), cache.get(USER_ID, database::get).lastEventType());
+    }
+
+    // --- Helpers ---
+
+    private Supplier<PunchState> loader(PunchState state) {
+        return () -> {
+            loads.incrementAndGet();
+            return state;
+        };
+    }
+
+    private static PunchState state(EventType lastEventType, LocalDateTime firstClockInToday) {
+        return new PunchState(lastEventType, firstClockInToday, WEEK_ID, MONDAY);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
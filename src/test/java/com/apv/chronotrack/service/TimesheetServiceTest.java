@@ -1,9 +1,12 @@
 package com.apv.chronotrack.service;
 
+import com.apv.chronotrack.DTO.CursorPageDto;
+import com.apv.chronotrack.DTO.TimesheetSummaryDto;
 import com.apv.chronotrack.models.*;
 import com.apv.chronotrack.repository.UserRepository;
 import com.apv.chronotrack.repository.WeeklyTimesheetRepository;
 import com.apv.chronotrack.repository.WorkWeekRepository;
+import com.apv.chronotrack.utils.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,10 +18,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +35,10 @@ class TimesheetServiceTest {
     @Mock private UserRepository userRepository;
     @Mock private EmailService emailService;
     @Mock private AuditService auditService;
+    @Mock private WorkCalendarService workCalendarService;
+    @Mock private WeeklyTotalsService weeklyTotalsService;
+    @Mock private PayrollSnapshotService payrollSnapshotService;
+    @Mock private LiveEventBus liveEventBus;
 
     @InjectMocks
     private TimesheetService timesheetService;
@@ -118,6 +128,7 @@ class TimesheetServiceTest {
         timesheetService.approveTimesheet(testTimesheet.getId(), testAdmin);
 
         assertEquals(TimesheetStatus.APPROVED, testTimesheet.getStatus());
+        verify(payrollSnapshotService).freeze(testTimesheet);
         verify(emailService).sendApprovalNotification(any());
     }
 
@@ -180,4 +191,45 @@ class TimesheetServiceTest {
                 timesheetService.submitTimesheet(testWorker, 999L)
         );
     }
+
+    @Test
+    @DisplayName("getFilteredTimesheetsAfter - Pide una fila de más para saber si hay otra página y la continúa desde su clave")
+    void getFilteredTimesheetsAfter_continuesFromCursor() {
+        WeeklyTimesheet second = new WeeklyTimesheet();
+        second.setId(7L);
+        second.setUser(testWorker);
+        second.setWorkWeek(testWeek);
+        second.setStatus(TimesheetStatus.SUBMITTED);
+        when(userRepository.findById(testAdmin.getId())).thenReturn(Optional.of(testAdmin));
+        when(timesheetRepository.findFilteredTimesheetsAfter(eq(testCompany), isNull(), isNull(),
+                eq(LocalDate.of(9999, 12, 31)), eq(Long.MAX_VALUE), any()))
+                .thenReturn(List.of(testTimesheet, second));
+
+        CursorPageDto<TimesheetSummaryDto> firstPage = timesheetService.getFilteredTimesheetsAfter(testAdmin, null, null, null, 1);
+
+        assertTrue(firstPage.hasMore());
+        assertEquals(List.of(1L), firstPage.items().stream().map(TimesheetSummaryDto::getTimesheetId).toList());
+        assertNotNull(firstPage.nextCursor());
+
+        when(timesheetRepository.findFilteredTimesheetsAfter(eq(testCompany), isNull(), isNull(),
+                eq(testWeek.getStartDate()), eq(1L), any()))
+                .thenReturn(List.of(second));
+
+        CursorPageDto<TimesheetSummaryDto> lastPage = timesheetService.getFilteredTimesheetsAfter(testAdmin, null, null, firstPage.nextCursor(), 1);
+
+        assertFalse(lastPage.hasMore());
+        assertNull(lastPage.nextCursor());
+        assertEquals(List.of(7L), lastPage.items().stream().map(TimesheetSummaryDto::getTimesheetId).toList());
+    }
+
+    @Test
+    @DisplayName("getFilteredTimesheetsAfter - Rechaza un cursor de otro listado")
+    void getFilteredTimesheetsAfter_rejectsForeignCursor() {
+        when(userRepository.findById(testAdmin.getId())).thenReturn(Optional.of(testAdmin));
+        String workersCursor = PageCursor.encode("workers", 10L);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                timesheetService.getFilteredTimesheetsAfter(testAdmin, null, null, workersCursor, 20)
+        );
+    }
 }
@@ -0,0 +1,200 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.DTO.DashboardStatsDto;
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.*;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import({WeeklyTotalsRepository.class, WeeklyTotalsService.class, DashboardStatsCache.class})
+class WeeklyTotalsServiceTest extends EmbeddedDatabaseTest {
+
+    private static final EventType[] EVENTS = EventType.values();
+
+    @Autowired private WeeklyTotalsService weeklyTotalsService;
+    @Autowired private WeeklyTotalsRepository totalsRepository;
+    @Autowired private DashboardStatsCache dashboardStatsCache;
+
+    private Company company;
+    private User worker;
+    private WorkWeek week;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            company = createCompany("Test Company");
+            worker = createUser(company, createRole(RoleName.ROLE_TRABAJADOR), "worker@test.com");
+            week = createWeek(company, MONDAY);
+        });
+    }
+
+    @Test
+    @DisplayName("recordPunch - Los totales incrementales coinciden con el cálculo sobre los registros, también fuera de orden")
+    void recordPunch_matchesEngineOnRandomPunches() {
+        Random random = new Random(7L);
+        for (int i = 0; i < 60; i++) {
+            LocalDateTime timestamp = MONDAY.atTime(6, 0)
+                    .plusMinutes(random.nextInt(6 * 24 * 60))
+                    .plusSeconds(random.nextInt(60));
+            // La mayoría de marcaciones llegan en orden; algunas son anteriores a la última (correcciones)
+            if (i > 0 && random.nextInt(5) != 0) {
+                timestamp = lastTimestamp().plusMinutes(1 + random.nextInt(240)).plusSeconds(random.nextInt(60));
+            }
+            EventType eventType = EVENTS[random.nextInt(EVENTS.length)];
+            LocalDateTime punchTime = timestamp;
+            tx.executeWithoutResult(status -> {
+                TimeLog saved = timeLogRepository.save(log(eventType, punchTime));
+                weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+            });
+
+            assertEquals(expectedMinutes(), currentTotal().workedMinutes(), "punch " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("recordPunch - Se aplica en la transacción del fichaje: si se revierte, el total tampoco cambia")
+    void recordPunch_rolledBackWithPunch() {
+        tx.executeWithoutResult(status -> {
+            TimeLog saved = timeLogRepository.save(log(EventType.INGRESO, MONDAY.atTime(8, 0)));
+            weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+            status.setRollbackOnly();
+        });
+        assertTrue(tx.execute(status -> weeklyTotalsService.findByWorkWeekIds(List.of(week.getId()))).isEmpty());
+
+        tx.executeWithoutResult(status -> {
+            for (TimeLog log : List.of(log(EventType.INGRESO, MONDAY.atTime(9, 0)), log(EventType.SALIDA, MONDAY.atTime(10, 0)))) {
+                TimeLog saved = timeLogRepository.save(log);
+                weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+            }
+        });
+        assertEquals(60, currentTotal().workedMinutes());
+    }
+
+    @Test
+    @DisplayName("shutdown - Espera a que termine la reconstrucción inicial y la compañía vuelve a estar completa")
+    void shutdown_drainsInitialRebuild() {
+        tx.executeWithoutResult(status -> {
+            timeLogRepository.save(log(EventType.INGRESO, MONDAY.atTime(8, 0)));
+            timeLogRepository.save(log(EventType.SALIDA, MONDAY.atTime(16, 0)));
+        });
+        // Instancia propia: la del contexto sigue en uso por las demás pruebas
+        WeeklyTotalsService service = new WeeklyTotalsService(totalsRepository, timeLogRepository, companyRepository, tx, dashboardStatsCache);
+
+        assertTrue(service.isComplete(company.getId()));
+        service.rebuildIfEmpty();
+        service.shutdown();
+
+        assertEquals(8 * 60, currentTotal().workedMinutes());
+        assertTrue(service.isComplete(company.getId()));
+    }
+
+    @Test
+    @DisplayName("recordPunch - Las estadísticas del panel recargadas tras el commit del fichaje ya incluyen su total")
+    void recordPunch_dashboardReloadSeesTotal() {
+        tx.executeWithoutResult(status -> {
+            TimeLog saved = timeLogRepository.save(log(EventType.INGRESO, MONDAY.atTime(8, 0)));
+            weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+        });
+        assertEquals(0.0, dashboardStatsCache.get(company.getId(), this::dashboardStats).getTotalHoursThisWeek());
+
+        // Como TimeLogService: total e invalidación en la transacción del fichaje
+        tx.executeWithoutResult(status -> {
+            TimeLog saved = timeLogRepository.save(log(EventType.SALIDA, MONDAY.atTime(12, 0)));
+            weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+            dashboardStatsCache.invalidate(company.getId());
+        });
+
+        assertEquals(4.0, dashboardStatsCache.get(company.getId(), this::dashboardStats).getTotalHoursThisWeek());
+    }
+
+    @Test
+    @DisplayName("rebuildCompany - Tras el commit descarta las estadísticas del panel de la compañía")
+    void rebuildCompany_evictsDashboardStats() {
+        dashboardStatsCache.get(company.getId(), this::dashboardStats);
+        assertEquals(1, dashboardStatsCache.stats().entries());
+
+        tx.execute(status -> weeklyTotalsService.rebuildCompany(company.getId()));
+
+        assertEquals(0, dashboardStatsCache.stats().entries());
+    }
+
+    @Test
+    @DisplayName("recompute y rebuildCompany - Reflejan borrados y reconstruyen las mismas filas")
+    void recomputeAndRebuild_matchLogs() {
+        tx.executeWithoutResult(status -> {
+            for (TimeLog log : List.of(
+                    log(EventType.INGRESO, MONDAY.atTime(8, 0)),
+                    log(EventType.INICIO_ALMUERZO, MONDAY.atTime(12, 0)),
+                    log(EventType.FINAL_ALMUERZO, MONDAY.atTime(12, 30)),
+                    log(EventType.SALIDA, MONDAY.atTime(17, 0)))) {
+                TimeLog saved = timeLogRepository.save(log);
+                weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+            }
+        });
+        assertEquals(8 * 60 + 30, currentTotal().workedMinutes());
+
+        tx.executeWithoutResult(status -> {
+            TimeLog lunchEnd = timeLogRepository.findByUserAndWorkWeekOrderByTimestampAsc(worker, week).get(2);
+            timeLogRepository.delete(lunchEnd);
+            weeklyTotalsService.recompute(worker.getId(), week.getId());
+        });
+        assertEquals(4 * 60, currentTotal().workedMinutes());
+
+        WeeklyTotal beforeRebuild = currentTotal();
+        Integer rows = tx.execute(status -> weeklyTotalsService.rebuildCompany(company.getId()));
+        assertEquals(1, rows);
+        assertEquals(beforeRebuild, currentTotal());
+    }
+
+    @Test
+    @DisplayName("timesheetStatusChanged - La fila copia el estado de la hoja de horas y sigue sus cambios")
+    void status_followsTimesheet() {
+        tx.executeWithoutResult(status -> {
+            createTimesheet(worker, week, TimesheetStatus.SUBMITTED);
+            TimeLog saved = timeLogRepository.save(log(EventType.INGRESO, MONDAY.atTime(8, 0)));
+            weeklyTotalsService.recordPunch(worker.getId(), week.getId(), saved.getEventType(), saved.getTimestamp());
+        });
+        assertEquals(TimesheetStatus.SUBMITTED, currentTotal().status());
+
+        tx.executeWithoutResult(status -> weeklyTotalsService.timesheetStatusChanged(worker.getId(), week.getId(), TimesheetStatus.APPROVED));
+        assertEquals(TimesheetStatus.APPROVED, currentTotal().status());
+    }
+
+    // --- Helpers ---
+
+    private TimeLog log(EventType type, LocalDateTime timestamp) {
+        return log(worker, week, type, timestamp);
+    }
+
+    private LocalDateTime lastTimestamp() {
+        return tx.execute(status -> timeLogRepository.findTopByUserOrderByTimestampDesc(worker).orElseThrow().getTimestamp());
+    }
+
+    private long expectedMinutes() {
+        return tx.execute(status -> PunchHoursEngine.totalMinutes(timeLogRepository.findByUserAndWorkWeekOrderByTimestampAsc(worker, week)));
+    }
+
+    // Horas de la semana a partir de los totales, como las calcula el panel
+    private DashboardStatsDto dashboardStats() {
+        long minutes = weeklyTotalsService.findByWorkWeekIds(List.of(week.getId())).stream()
+                .mapToLong(WeeklyTotal::workedMinutes).sum();
+        return DashboardStatsDto.builder().totalHoursThisWeek(PunchHoursEngine.toHours(minutes)).build();
+    }
+
+    private WeeklyTotal currentTotal() {
+        List<WeeklyTotal> totals = tx.execute(status -> weeklyTotalsService.findByWorkWeekIds(List.of(week.getId())));
+        assertEquals(1, totals.size());
+        return totals.get(0);
+    }
+}
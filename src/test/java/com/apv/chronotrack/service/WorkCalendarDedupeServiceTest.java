@@ -0,0 +1,170 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.repository.PayrollSnapshotRepository;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository;
+import com.apv.chronotrack.repository.WeeklyTotalsRepository.WeeklyTotal;
+import com.apv.chronotrack.repository.WorkCalendarDedupeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+
+import static com.apv.chronotrack.repository.WorkCalendarDedupeRepository.TIMESHEETS_UNIQUE;
+import static com.apv.chronotrack.repository.WorkCalendarDedupeRepository.WORK_WEEKS_UNIQUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import({WorkCalendarDedupeRepository.class, WorkCalendarDedupeService.class,
+        WeeklyTotalsRepository.class, WeeklyTotalsService.class, DashboardStatsCache.class, PayrollSnapshotService.class})
+class WorkCalendarDedupeServiceTest extends EmbeddedDatabaseTest {
+
+    @Autowired private WorkCalendarDedupeService dedupeService;
+    @Autowired private WorkCalendarDedupeRepository dedupeRepository;
+    @Autowired private WeeklyTotalsService weeklyTotalsService;
+    @Autowired private PayrollSnapshotService payrollSnapshotService;
+    @Autowired private PayrollSnapshotRepository snapshotRepository;
+
+    private Company company;
+    private User worker;
+    private User otherWorker;
+
+    @BeforeEach
+    void setUp() {
+        // Estado de una base anterior a las restricciones únicas
+        jdbcTemplate.execute("ALTER TABLE work_weeks DROP CONSTRAINT " + WORK_WEEKS_UNIQUE);
+        jdbcTemplate.execute("ALTER TABLE weekly_timesheets DROP CONSTRAINT " + TIMESHEETS_UNIQUE);
+        tx.executeWithoutResult(status -> {
+            company = createCompany("Test Company");
+            Role role = createRole(RoleName.ROLE_TRABAJADOR);
+            worker = createUser(company, role, "worker@test.com");
+            otherWorker = createUser(company, role, "other@test.com");
+        });
+    }
+
+    // Si una prueba falla a medias, el resto del contexto no debe quedarse sin restricciones
+    @AfterEach
+    void restoreConstraints() {
+        dedupeService.afterSingletonsInstantiated();
+    }
+
+    @Test
+    @DisplayName("dedupe - Fusiona semanas repetidas en la de menor id con sus registros, hojas y nóminas")
+    void dedupe_mergesDuplicateWeeks() {
+        WorkWeek[] weeks = new WorkWeek[3];
+        WeeklyTimesheet[] timesheets = new WeeklyTimesheet[3];
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < weeks.length; i++) {
+                weeks[i] = createWeek(company, MONDAY);
+            }
+            timesheets[0] = createTimesheet(worker, weeks[0], TimesheetStatus.OPEN);
+            timesheets[1] = createTimesheet(worker, weeks[1], TimesheetStatus.APPROVED);
+            timesheets[2] = createTimesheet(otherWorker, weeks[2], TimesheetStatus.SUBMITTED);
+            timeLogRepository.save(log(worker, weeks[0], EventType.INGRESO, MONDAY.atTime(8, 0)));
+            timeLogRepository.save(log(worker, weeks[1], EventType.SALIDA, MONDAY.atTime(16, 0)));
+            timeLogRepository.save(log(otherWorker, weeks[2], EventType.INGRESO, MONDAY.atTime(9, 0)));
+            timeLogRepository.save(log(otherWorker, weeks[2], EventType.SALIDA, MONDAY.atTime(13, 0)));
+        });
+        tx.executeWithoutResult(status -> {
+            payrollSnapshotService.freeze(timesheetRepository.findById(timesheets[1].getId()).orElseThrow());
+            weeklyTotalsService.rebuildCompany(company.getId());
+        });
+
+        tx.executeWithoutResult(status -> dedupeService.dedupe(false, false));
+
+        Long keepWeekId = weeks[0].getId();
+        assertEquals(List.of(keepWeekId), workWeekRepository.findAll().stream().map(WorkWeek::getId).toList());
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM time_logs WHERE work_week_id = ?", Integer.class, keepWeekId));
+
+        // La hoja aprobada con nómina congelada sobrevive a la abierta; la del otro trabajador se mueve
+        List<WeeklyTimesheet> remaining = timesheetRepository.findAll();
+        assertEquals(2, remaining.size());
+        assertTrue(timesheetRepository.findById(timesheets[0].getId()).isEmpty());
+        assertTimesheet(timesheets[1].getId(), TimesheetStatus.APPROVED, keepWeekId);
+        assertTimesheet(timesheets[2].getId(), TimesheetStatus.SUBMITTED, keepWeekId);
+        assertEquals(keepWeekId, jdbcTemplate.queryForObject("SELECT work_week_id FROM payroll_snapshots", Long.class));
+        assertEquals(1, snapshotRepository.count());
+
+        List<WeeklyTotal> totals = tx.execute(status -> weeklyTotalsService.findByWorkWeekIds(List.of(keepWeekId)));
+        assertEquals(2, totals.size());
+        assertEquals(8 * 60, totalOf(totals, worker).workedMinutes());
+        assertEquals(4 * 60, totalOf(totals, otherWorker).workedMinutes());
+
+        assertConstraintsEnforced(keepWeekId);
+    }
+
+    @Test
+    @DisplayName("dedupe - Deja una hoja por trabajador en semanas sin duplicar, la más avanzada")
+    void dedupe_keepsMostAdvancedTimesheetOfSameWeek() {
+        WeeklyTimesheet[] timesheets = new WeeklyTimesheet[3];
+        WorkWeek week = tx.execute(status -> {
+            WorkWeek created = createWeek(company, MONDAY);
+            timesheets[0] = createTimesheet(worker, created, TimesheetStatus.OPEN);
+            timesheets[1] = createTimesheet(worker, created, TimesheetStatus.REJECTED);
+            timesheets[2] = createTimesheet(otherWorker, created, TimesheetStatus.OPEN);
+            return created;
+        });
+
+        tx.executeWithoutResult(status -> dedupeService.dedupe(true, false));
+
+        assertEquals(2, timesheetRepository.count());
+        assertTimesheet(timesheets[1].getId(), TimesheetStatus.REJECTED, week.getId());
+        assertTimesheet(timesheets[2].getId(), TimesheetStatus.OPEN, week.getId());
+        assertTrue(dedupeRepository.timesheetsUniqueExists());
+    }
+
+    @Test
+    @DisplayName("afterSingletonsInstantiated - Sin restricciones ni duplicados solo crea las restricciones")
+    void afterSingletons_addsMissingConstraints() {
+        assertFalse(dedupeRepository.workWeeksUniqueExists());
+
+        dedupeService.afterSingletonsInstantiated();
+
+        assertTrue(dedupeRepository.workWeeksUniqueExists());
+        assertTrue(dedupeRepository.timesheetsUniqueExists());
+    }
+
+    @Test
+    @DisplayName("afterSingletonsInstantiated - Una restricción con el mismo nombre en otro esquema no cuenta")
+    void afterSingletons_ignoresConstraintsOfOtherSchemas() {
+        jdbcTemplate.execute("CREATE SCHEMA other");
+        try {
+            jdbcTemplate.execute("CREATE TABLE other.work_weeks (company_id BIGINT, start_date DATE, "
+                    + "CONSTRAINT " + WORK_WEEKS_UNIQUE + " UNIQUE (company_id, start_date))");
+            assertFalse(dedupeRepository.workWeeksUniqueExists());
+
+            dedupeService.afterSingletonsInstantiated();
+
+            assertTrue(dedupeRepository.workWeeksUniqueExists());
+        } finally {
+            jdbcTemplate.execute("DROP SCHEMA other CASCADE");
+        }
+    }
+
+    // --- Helpers ---
+
+    private void assertTimesheet(Long id, TimesheetStatus expectedStatus, Long expectedWeekId) {
+        tx.executeWithoutResult(status -> {
+            WeeklyTimesheet timesheet = timesheetRepository.findById(id).orElseThrow();
+            assertEquals(expectedStatus, timesheet.getStatus());
+            assertEquals(expectedWeekId, timesheet.getWorkWeek().getId());
+        });
+    }
+
+    private WeeklyTotal totalOf(List<WeeklyTotal> totals, User user) {
+        return totals.stream().filter(t -> t.userId().equals(user.getId())).findFirst().orElseThrow();
+    }
+
+    private void assertConstraintsEnforced(Long keepWeekId) {
+        assertTrue(dedupeRepository.workWeeksUniqueExists());
+        assertTrue(dedupeRepository.timesheetsUniqueExists());
+        assertThrows(DataIntegrityViolationException.class, () -> tx.executeWithoutResult(status -> createWeek(company, MONDAY)));
+        assertThrows(DataIntegrityViolationException.class, () -> tx.executeWithoutResult(status ->
+                createTimesheet(worker, workWeekRepository.findById(keepWeekId).orElseThrow(), TimesheetStatus.OPEN)));
+    }
+}
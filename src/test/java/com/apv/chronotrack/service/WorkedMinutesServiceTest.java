@@ -0,0 +1,128 @@
+package com.apv.chronotrack.service;
+
+import com.apv.chronotrack.EmbeddedDatabaseTest;
+import com.apv.chronotrack.models.*;
+import com.apv.chronotrack.service.WorkedMinutesService.Strategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Paridad entre las estrategias JVM, STREAM y DATABASE sobre los mismos registros, y de ambas con
+ * calculateHoursForLogs (PunchHoursEngine) por trabajador y semana.
+ */
+@Import(WorkedMinutesService.class)
+class WorkedMinutesServiceTest extends EmbeddedDatabaseTest {
+
+    private static final int WORKERS = 4;
+    private static final int WEEKS = 3;
+    private static final EventType[] EVENTS = EventType.values();
+
+    @Autowired private WorkedMinutesService workedMinutesService;
+
+    private Company company;
+    private final List<User> workers = new ArrayList<>();
+    private final List<WorkWeek> weeks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        workers.clear();
+        weeks.clear();
+        tx.executeWithoutResult(status -> {
+            Role role = createRole(RoleName.ROLE_TRABAJADOR);
+
+            company = createCompany("Test Company");
+            Company otherCompany = createCompany("Other Company");
+            for (int i = 0; i < WORKERS; i++) {
+                workers.add(createUser(company, role, "worker" + i + "@test.com"));
+            }
+            for (int w = 0; w < WEEKS; w++) {
+                weeks.add(createWeek(company, MONDAY.plusWeeks(w)));
+            }
+
+            // Eventos aleatorios: secuencias normales, inicios o cierres repetidos y fracciones de segundo
+            Random random = new Random(13L);
+            for (User worker : workers) {
+                for (WorkWeek week : weeks) {
+                    LocalDateTime timestamp = week.getStartDate().atTime(6, 0);
+                    int events = random.nextInt(25);
+                    for (int e = 0; e < events; e++) {
+                        timestamp = timestamp.plusMinutes(1 + random.nextInt(300))
+                                .plusSeconds(random.nextInt(60))
+                                .withNano(random.nextInt(1_000_000) * 1_000);
+                        if (timestamp.toLocalDate().isAfter(week.getEndDate())) {
+                            break;
+                        }
+                        timeLogRepository.save(log(worker, week, EVENTS[random.nextInt(EVENTS.length)], timestamp));
+                    }
+                }
+            }
+
+            // Registros de otra compañía en las mismas fechas: no deben contar
+            User outsider = createUser(otherCompany, role, "outsider@test.com");
+            WorkWeek outsiderWeek = createWeek(otherCompany, MONDAY);
+            timeLogRepository.save(log(outsider, outsiderWeek, EventType.INGRESO, MONDAY.atTime(8, 0)));
+            timeLogRepository.save(log(outsider, outsiderWeek, EventType.SALIDA, MONDAY.atTime(16, 0)));
+        });
+    }
+
+    @Test
+    @DisplayName("minutesByWeekAndWorker - Las tres estrategias coinciden con calculateHoursForLogs en todo el rango")
+    void strategies_matchEngineForWholeRange() {
+        LocalDateTime start = MONDAY.atStartOfDay();
+        LocalDateTime end = MONDAY.plusWeeks(WEEKS).atStartOfDay().minusNanos(1);
+
+        Map<Long, Map<Long, Long>> expected = tx.execute(status -> expectedMinutes());
+        Map<Long, Map<Long, Long>> jvm = tx.execute(status -> workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.JVM));
+        Map<Long, Map<Long, Long>> stream = tx.execute(status -> workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.STREAM));
+        Map<Long, Map<Long, Long>> database = tx.execute(status -> workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.DATABASE));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, jvm);
+        assertEquals(expected, stream);
+        assertEquals(expected, database);
+    }
+
+    @Test
+    @DisplayName("minutesByWeekAndWorker - Las tres estrategias coinciden en un rango que corta semanas")
+    void strategies_matchForPartialRange() {
+        LocalDateTime start = MONDAY.plusDays(3).atTime(12, 0);
+        LocalDateTime end = MONDAY.plusWeeks(1).plusDays(2).atTime(9, 30);
+
+        Map<Long, Map<Long, Long>> jvm = tx.execute(status -> workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.JVM));
+        // Sin transacción externa: el servicio abre la suya de solo lectura para recorrer el cursor
+        Map<Long, Map<Long, Long>> stream = workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.STREAM);
+        Map<Long, Map<Long, Long>> database = tx.execute(status -> workedMinutesService.minutesByWeekAndWorker(company, start, end, Strategy.DATABASE));
+
+        assertFalse(jvm.isEmpty());
+        assertEquals(jvm, stream);
+        assertEquals(jvm, database);
+    }
+
+    // --- Helpers ---
+
+    private Map<Long, Map<Long, Long>> expectedMinutes() {
+        Map<Long, Map<Long, Long>> expected = new HashMap<>();
+        for (User worker : workers) {
+            for (WorkWeek week : weeks) {
+                List<TimeLog> logs = timeLogRepository.findByUserAndWorkWeekOrderByTimestampAsc(worker, week);
+                if (!logs.isEmpty()) {
+                    expected.computeIfAbsent(week.getId(), id -> new HashMap<>())
+                            .put(worker.getId(), PunchHoursEngine.totalMinutes(logs));
+                }
+            }
+        }
+        return expected;
+    }
+}